@@ -0,0 +1,138 @@
+import echofall.jmh.Workloads;
+
+// Fixtures for the JMH suite, the same workloads the Benchmarks harness times; see
+// echofall.jmh.Workloads for why they live here
+public class JmhWorkloads implements Workloads {
+    private static final int SCREEN_W = 480, SCREEN_H = 270;
+
+    @Override
+    public Workload terrainTileAtScreen(long seed) {
+        TerrainGenerator gen = new TerrainGenerator(seed);
+        return () -> {
+            long acc = 0;
+            for (int tx = 0; tx < SCREEN_W; tx++) {
+                for (int ty = 0; ty < SCREEN_H; ty++) acc += gen.tileAt(tx, ty);
+            }
+            return acc;
+        };
+    }
+
+    @Override
+    public Workload worldTileAtScreen(long seed) {
+        GameWorld world = new GameWorld(800, 600, seed, false);
+        return () -> {
+            long acc = 0;
+            for (int tx = 0; tx < SCREEN_W; tx++) {
+                for (int ty = 0; ty < SCREEN_H; ty++) acc += world.tileAt(tx, ty);
+            }
+            return acc;
+        };
+    }
+
+    @Override
+    public Workload computeGroundTileY(long seed) {
+        TerrainGenerator gen = new TerrainGenerator(seed);
+        return () -> {
+            long acc = 0;
+            for (int tx = 0; tx < COLUMNS; tx++) acc += gen.computeGroundTileY(tx);
+            return acc;
+        };
+    }
+
+    @Override
+    public Workload groundTileYCached(long seed) {
+        TerrainGenerator gen = new TerrainGenerator(seed);
+        return () -> {
+            long acc = 0;
+            for (int tx = 0; tx < COLUMNS; tx++) acc += gen.groundTileY(tx);
+            return acc;
+        };
+    }
+
+    @Override
+    public Workload noise2D(long seed) {
+        TerrainGenerator gen = new TerrainGenerator(seed);
+        return () -> {
+            float acc = 0;
+            for (int i = 0; i < COLUMNS; i++) acc += gen.noise2D(i, i >> 3, 0.2f, 101);
+            return (long) acc;
+        };
+    }
+
+    // Solid stone block with a 3-tile corridor, so every collision probe hits terrain
+    @Override
+    public Workload updateDense(long seed) {
+        GameWorld world = new GameWorld(800, 600, seed, false);
+        Player p = world.getPlayer();
+        int px = (int) (p.x / GameWorld.TILE_SIZE);
+        int py = 60;
+        for (int tx = px - 40; tx <= px + 40; tx++) {
+            for (int ty = py - 20; ty <= py + 20; ty++) {
+                boolean corridor = ty >= py - 1 && ty <= py + 1 && Math.abs(tx - px) < 30;
+                world.setTile(tx, ty, corridor ? 0 : 6);
+            }
+        }
+        float homeX = px * GameWorld.TILE_SIZE;
+        float homeY = (py - 1) * GameWorld.TILE_SIZE;
+        p.x = homeX;
+        p.y = homeY;
+        int[] step = new int[1];
+        return () -> {
+            for (int i = 0; i < DENSE_STEPS; i++) {
+                int s = step[0]++;
+                boolean right = (s & 128) == 0;
+                world.update(GameWorld.TICK_DT, !right, right, (s & 15) == 0);
+            }
+            if (Math.abs(p.x - homeX) > 200) { p.x = homeX; p.y = homeY; }
+            return (long) p.x;
+        };
+    }
+
+    // Falling drops, put back in the air before any land (see Benchmarks.fallingDrops)
+    @Override
+    public Workload updateDrops(long seed) {
+        GameWorld world = new GameWorld(800, 600, seed, false);
+        Runnable respawn = Benchmarks.fallingDrops(world, DROPS, 7);
+        int[] ticks = {0};
+        return () -> {
+            if (++ticks[0] % Benchmarks.DROP_RESPAWN_TICKS == 0) respawn.run();
+            world.updateDrops(GameWorld.TICK_DT);
+            return world.getDrops().size();
+        };
+    }
+
+    @Override
+    public Workload inventoryAddBlock() {
+        return () -> {
+            Inventory inv = new Inventory(9);
+            for (int i = 0; i < ADD_BLOCKS; i++) inv.addBlock(1 + (i & 7), "Block");
+            return inv.totalCountFor(1);
+        };
+    }
+
+    @Override
+    public Workload inventoryTotalCountFor() {
+        Inventory inv = filledInventory();
+        return () -> {
+            long acc = 0;
+            for (int id = 1; id <= COUNT_QUERIES; id++) acc += inv.totalCountFor(id);
+            return acc;
+        };
+    }
+
+    @Override
+    public Workload availableRecipes() {
+        CraftingSystem crafting = new CraftingSystem();
+        Inventory inv = filledInventory();
+        return () -> crafting.getAvailableRecipes(inv).size();
+    }
+
+    private static Inventory filledInventory() {
+        Inventory inv = new Inventory(9);
+        inv.addTool(new Item("Wood Pickaxe", ToolType.PICKAXE));
+        for (int i = 0; i < 30; i++) {
+            for (int id = 1; id <= 8; id++) inv.addBlock(id, "Block " + id);
+        }
+        return inv;
+    }
+}
@@ -0,0 +1,34 @@
+package echofall.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventoryBench {
+    private Workloads.Workload addBlock, totalCountFor, availableRecipes;
+
+    @Setup
+    public void setUp() {
+        Workloads w = Workloads.load();
+        addBlock = w.inventoryAddBlock();
+        totalCountFor = w.inventoryTotalCountFor();
+        availableRecipes = w.availableRecipes();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Workloads.ADD_BLOCKS)
+    public long addBlock() { return addBlock.run(); }
+
+    @Benchmark
+    @OperationsPerInvocation(Workloads.COUNT_QUERIES)
+    public long totalCountFor() { return totalCountFor.run(); }
+
+    @Benchmark
+    public long getAvailableRecipes() { return availableRecipes.run(); }
+}
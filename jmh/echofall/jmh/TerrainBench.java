@@ -0,0 +1,47 @@
+package echofall.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TerrainBench {
+    private static final long SEED = 12345L;
+
+    private Workloads.Workload terrainTileAt, worldTileAt, computeGround, cachedGround, noise;
+
+    @Setup
+    public void setUp() {
+        Workloads w = Workloads.load();
+        terrainTileAt = w.terrainTileAtScreen(SEED);
+        worldTileAt = w.worldTileAtScreen(SEED);
+        computeGround = w.computeGroundTileY(SEED);
+        cachedGround = w.groundTileYCached(SEED);
+        noise = w.noise2D(SEED);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Workloads.SCREEN_TILES)
+    public long terrainTileAtScreen() { return terrainTileAt.run(); }
+
+    @Benchmark
+    @OperationsPerInvocation(Workloads.SCREEN_TILES)
+    public long worldTileAtScreen() { return worldTileAt.run(); }
+
+    @Benchmark
+    @OperationsPerInvocation(Workloads.COLUMNS)
+    public long computeGroundTileY() { return computeGround.run(); }
+
+    @Benchmark
+    @OperationsPerInvocation(Workloads.COLUMNS)
+    public long groundTileYCached() { return cachedGround.run(); }
+
+    @Benchmark
+    @OperationsPerInvocation(Workloads.COLUMNS)
+    public long noise2D() { return noise.run(); }
+}
@@ -0,0 +1,37 @@
+package echofall.jmh;
+
+import java.util.ServiceLoader;
+
+// The benchmark-facing API. The game lives in the default package, which JMH does not
+// accept for benchmark classes and which named packages cannot import, so the
+// fixtures are built by JmhWorkloads (default package, next to the game code and its
+// package-private hot paths) and reached through this interface via ServiceLoader.
+// Each workload runs one batch of OPS_* operations and returns a value to consume.
+public interface Workloads {
+    int SCREEN_TILES = 480 * 270; // a 4K framebuffer at zoom 1.0
+    int COLUMNS = 1024;
+    int DENSE_STEPS = 256;
+    int DROPS = 10_000;
+    int ADD_BLOCKS = 64;
+    int COUNT_QUERIES = 8;
+
+    interface Workload {
+        long run();
+    }
+
+    Workload terrainTileAtScreen(long seed);
+    Workload worldTileAtScreen(long seed);
+    Workload computeGroundTileY(long seed);
+    Workload groundTileYCached(long seed);
+    Workload noise2D(long seed);
+    Workload updateDense(long seed);
+    Workload updateDrops(long seed);
+    Workload inventoryAddBlock();
+    Workload inventoryTotalCountFor();
+    Workload availableRecipes();
+
+    static Workloads load() {
+        return ServiceLoader.load(Workloads.class).findFirst()
+                .orElseThrow(() -> new IllegalStateException("no Workloads implementation on the classpath"));
+    }
+}
@@ -0,0 +1,33 @@
+package echofall.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Physics and drops keep state between invocations, as they would between ticks
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorldBench {
+    private static final long SEED = 12345L;
+
+    private Workloads.Workload updateDense, updateDrops;
+
+    @Setup
+    public void setUp() {
+        Workloads w = Workloads.load();
+        updateDense = w.updateDense(SEED);
+        updateDrops = w.updateDrops(SEED);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Workloads.DENSE_STEPS)
+    public long updateDense() { return updateDense.run(); }
+
+    @Benchmark
+    @OperationsPerInvocation(Workloads.DROPS)
+    public long updateDrops10k() { return updateDrops.run(); }
+}
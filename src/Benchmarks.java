@@ -0,0 +1,679 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Standalone benchmark suite for the hot paths. Each benchmark is warmed up,
+// then timed over several fixed-length iterations; results go to a JSON file
+// so runs can be compared. Quicker to run than the JMH suite in jmh/ (see pom.xml),
+// and covers the subsystems that suite does not.
+//   java -cp <classes> Benchmarks [--filter substr] [--json out.json] [--baseline old.json] [--quick]
+public class Benchmarks {
+    private static class Result {
+        final String name;
+        final double score;
+        final double error;
+        final String unit;
+
+        Result(String name, double score, double error, String unit) {
+            this.name = name;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+    }
+
+    private static final long SEED = 12345L;
+    private static volatile long sink;
+
+    private static final List<Result> results = new ArrayList<>();
+    private static String filter = "";
+    private static int warmupIterations = 5;
+    private static int measureIterations = 5;
+    private static long iterationNs = 500_000_000L;
+
+    public static void main(String[] args) throws IOException {
+        String jsonPath = "bench-results.json";
+        String baselinePath = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filter": filter = args[++i]; break;
+                case "--json": jsonPath = args[++i]; break;
+                case "--baseline": baselinePath = args[++i]; break;
+                case "--quick":
+                    warmupIterations = 2;
+                    measureIterations = 3;
+                    iterationNs = 100_000_000L;
+                    break;
+                default: throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        terrain();
+        physics();
+        drops();
+        inventory();
+        crafting();
+        rendering();
+        fluids();
+        lighting();
+        minimap();
+        overrideMap(300_000);
+
+        writeJson(Path.of(jsonPath));
+        System.out.println("wrote " + jsonPath);
+        if (baselinePath != null) compare(Path.of(baselinePath));
+    }
+
+    // Runs body repeatedly; opsPerCall is how many logical operations one call performs
+    private static void measure(String name, int opsPerCall, Runnable body) {
+        if (!name.contains(filter)) return;
+        for (int i = 0; i < warmupIterations; i++) runFor(body, opsPerCall);
+        double[] samples = new double[measureIterations];
+        for (int i = 0; i < measureIterations; i++) samples[i] = runFor(body, opsPerCall);
+        recordSamples(name, samples, "ns/op");
+    }
+
+    private static void recordSamples(String name, double[] samples, String unit) {
+        if (!name.contains(filter)) return;
+        double mean = 0;
+        for (double s : samples) mean += s;
+        mean /= samples.length;
+        double var = 0;
+        for (double s : samples) var += (s - mean) * (s - mean);
+        record(name, mean, samples.length > 1 ? Math.sqrt(var / (samples.length - 1)) : 0, unit);
+    }
+
+    private static double runFor(Runnable body, int opsPerCall) {
+        long calls = 0;
+        long start = System.nanoTime();
+        long end = start + iterationNs;
+        long now;
+        do {
+            body.run();
+            calls++;
+            now = System.nanoTime();
+        } while (now < end);
+        return (now - start) / (double) (calls * opsPerCall);
+    }
+
+    // Groups ask this before building their fixtures: true when the filter selects any
+    // of the named benchmarks, by the same name.contains(filter) test measure uses
+    private static boolean wants(String... names) {
+        for (String name : names) {
+            if (name.contains(filter)) return true;
+        }
+        return false;
+    }
+
+    private static void record(String name, double score, double error, String unit) {
+        if (!name.contains(filter)) return;
+        results.add(new Result(name, score, error, unit));
+        System.out.printf(Locale.ROOT, "%-36s %12.3f +- %8.3f %s%n", name, score, error, unit);
+    }
+
+    // ---- terrain ----
+
+    static void terrain() {
+        if (!wants("terrain.tileAt.screen", "world.tileAt.screen", "terrain.computeGroundTileY", "terrain.groundTileY.cached",
+                "terrain.generate.chunk.scalar", "terrain.generate.chunk.batch", "terrain.noise2D")) return;
+        TerrainGenerator gen = new TerrainGenerator(SEED);
+        // A 4K framebuffer at zoom 1.0 is 480x270 tiles
+        int w = 480, h = 270;
+        measure("terrain.tileAt.screen", w * h, () -> {
+            long acc = 0;
+            for (int tx = 0; tx < w; tx++) {
+                for (int ty = 0; ty < h; ty++) acc += gen.tileAt(tx, ty);
+            }
+            sink += acc;
+        });
+        if (wants("world.tileAt.screen")) {
+            GameWorld world = new GameWorld(800, 600, SEED, false);
+            measure("world.tileAt.screen", w * h, () -> {
+                long acc = 0;
+                for (int tx = 0; tx < w; tx++) {
+                    for (int ty = 0; ty < h; ty++) acc += world.tileAt(tx, ty);
+                }
+                sink += acc;
+            });
+            world.dispose();
+        }
+        measure("terrain.computeGroundTileY", 1024, () -> {
+            long acc = 0;
+            for (int tx = 0; tx < 1024; tx++) acc += gen.computeGroundTileY(tx);
+            sink += acc;
+        });
+        measure("terrain.groundTileY.cached", 1024, () -> {
+            long acc = 0;
+            for (int tx = 0; tx < 1024; tx++) acc += gen.groundTileY(tx);
+            sink += acc;
+        });
+        // Underground chunks (cy 1..2), where every tile below the dirt layers samples four noise octaves
+        int[] next = {0};
+        measure("terrain.generate.chunk.scalar", 1, () -> {
+            int i = next[0]++;
+            Chunk c = new Chunk(i & 63, 1 + ((i >> 6) & 1));
+            gen.generateScalar(c);
+            sink += c.get(0, 0);
+        });
+        measure("terrain.generate.chunk.batch", 1, () -> {
+            int i = next[0]++;
+            Chunk c = new Chunk(i & 63, 1 + ((i >> 6) & 1));
+            gen.generate(c);
+            sink += c.get(0, 0);
+        });
+        measure("terrain.noise2D", 1024, () -> {
+            float acc = 0;
+            for (int i = 0; i < 1024; i++) acc += gen.noise2D(i, i >> 3, 0.2f, 101);
+            sink += (long) acc;
+        });
+    }
+
+    // ---- physics ----
+
+    static void physics() {
+        if (!wants("world.update.dense")) return;
+        GameWorld world = new GameWorld(800, 600, SEED, false);
+        Player p = world.getPlayer();
+        int px = (int) (p.x / GameWorld.TILE_SIZE);
+        int py = 60;
+        // Solid stone block with a 3-tile corridor so every probe hits terrain
+        for (int tx = px - 40; tx <= px + 40; tx++) {
+            for (int ty = py - 20; ty <= py + 20; ty++) {
+                boolean corridor = ty >= py - 1 && ty <= py + 1 && Math.abs(tx - px) < 30;
+                world.setTile(tx, ty, corridor ? 0 : 6);
+            }
+        }
+        float homeX = px * GameWorld.TILE_SIZE;
+        float homeY = (py - 1) * GameWorld.TILE_SIZE;
+        p.x = homeX;
+        p.y = homeY;
+        int[] step = new int[1];
+        measure("world.update.dense", 256, () -> {
+            for (int i = 0; i < 256; i++) {
+                int s = step[0]++;
+                boolean right = (s & 128) == 0;
+                world.update(GameWorld.TICK_DT, !right, right, (s & 15) == 0);
+            }
+            if (Math.abs(p.x - homeX) > 200) { p.x = homeX; p.y = homeY; }
+        });
+        world.dispose();
+    }
+
+    // ---- drops ----
+
+    static void drops() {
+        if (wants("world.updateDrops.10k")) drops10k();
+        if (wants("world.updateDrops.100k.airborne")) dropsBurst();
+    }
+
+    // 10k drops spread away from the player, all falling: put back in the air every
+    // DROP_RESPAWN_TICKS ticks, like the burst case, so the set never comes to rest
+    private static void drops10k() {
+        GameWorld world = new GameWorld(800, 600, SEED, false);
+        Runnable respawn = fallingDrops(world, 10_000, 7);
+        int[] ticks = {0};
+        measure("world.updateDrops.10k", 10_000, () -> {
+            if (++ticks[0] % DROP_RESPAWN_TICKS == 0) respawn.run();
+            world.updateDrops(GameWorld.TICK_DT);
+        });
+        sink += world.getDrops().size();
+        world.dispose();
+    }
+
+    static final int DROP_RESPAWN_TICKS = 30;
+
+    // Spawns count drops over 200 columns well away from the player, so none are picked
+    // up, 20-23 tiles above the ground; the returned task puts them all back there.
+    // Shared with the JMH suite.
+    static Runnable fallingDrops(GameWorld world, int count, long seed) {
+        Random rnd = new Random(seed);
+        TerrainGenerator gen = world.getGenerator();
+        int firstTx = (int) (world.getPlayer().x / GameWorld.TILE_SIZE) + 40;
+        float[] xs = new float[count], ys = new float[count];
+        for (int i = 0; i < count; i++) {
+            int tx = firstTx + rnd.nextInt(200);
+            xs[i] = tx * GameWorld.TILE_SIZE + rnd.nextInt(GameWorld.TILE_SIZE);
+            ys[i] = (gen.groundTileY(tx) - 20 - rnd.nextInt(4)) * GameWorld.TILE_SIZE;
+        }
+        Runnable respawn = () -> {
+            world.getDrops().clear();
+            for (int i = 0; i < count; i++) world.spawnDrop(xs[i], ys[i], 1);
+        };
+        respawn.run();
+        return respawn;
+    }
+
+    // 100k drops from 64 bursts (explosions, felled trees), all still in the air:
+    // the set is respawned every 30 ticks, before the first drops land
+    private static void dropsBurst() {
+        Random rnd = new Random(7);
+        GameWorld burst = new GameWorld(800, 600, SEED, false);
+        DropStore drops = burst.getDrops();
+        TerrainGenerator gen = burst.getGenerator();
+        int firstTx = (int) (burst.getPlayer().x / GameWorld.TILE_SIZE) + 60;
+        int[] ticks = {0};
+        Runnable respawn = () -> {
+            drops.clear();
+            for (int b = 0; b < 64; b++) {
+                int tx = firstTx + b * 4;
+                float cy = (gen.groundTileY(tx) - 20) * GameWorld.TILE_SIZE;
+                for (int k = 0; k < 100_000 / 64 + 1; k++) {
+                    burst.spawnDrop(tx * GameWorld.TILE_SIZE + rnd.nextInt(GameWorld.TILE_SIZE * 3), cy, 6);
+                }
+            }
+        };
+        measure("world.updateDrops.100k.airborne", 100_000, () -> {
+            if (ticks[0]++ % 30 == 0) respawn.run();
+            burst.updateDrops(GameWorld.TICK_DT);
+        });
+        sink += drops.size();
+        burst.dispose();
+    }
+
+    // ---- rendering (CPU side) ----
+
+    // What one tile edit costs before anything reaches GL: rebuilding the chunk's
+    // quad mesh versus repacking its id texture
+    static void rendering() {
+        views();
+        if (!wants("render.chunkEdit.mesh", "render.chunkEdit.meshLit", "render.chunkEdit.texture")) return;
+        TerrainGenerator gen = new TerrainGenerator(SEED);
+        Chunk chunk = new Chunk(0, 1);
+        gen.generate(chunk);
+        java.nio.FloatBuffer mesh = java.nio.FloatBuffer.allocate(Chunk.BYTES * TileMeshBuilder.FLOATS_PER_QUAD);
+        measure("render.chunkEdit.mesh", 1, () -> {
+            mesh.clear();
+            sink += TileMeshBuilder.build(chunk, GameWorld.TILE_SIZE, mesh);
+        });
+        // Same chunk shaded by real light: every underground air tile gains a quad
+        if (wants("render.chunkEdit.meshLit")) {
+            GameWorld lit = new GameWorld(800, 600, SEED, false);
+            Chunk litChunk = lit.getChunks().chunkAt(0, 1);
+            for (int cx = -1; cx <= 1; cx++) {
+                for (int cy = 0; cy <= 2; cy++) lit.getChunks().chunkAt(cx, cy);
+            }
+            lit.getLighting().setBudgetNanos(0);
+            lit.getLighting().step();
+            byte[] corners = new byte[TileMeshBuilder.CORNERS];
+            measure("render.chunkEdit.meshLit", 1, () -> {
+                mesh.clear();
+                lit.getLighting().corners(litChunk, corners);
+                sink += TileMeshBuilder.build(litChunk, corners, GameWorld.TILE_SIZE, mesh);
+            });
+            lit.dispose();
+        }
+        java.nio.ByteBuffer ids = java.nio.ByteBuffer.allocateDirect(Chunk.BYTES);
+        measure("render.chunkEdit.texture", 1, () -> {
+            ids.clear();
+            TileTextureBuilder.packChunk(chunk, ids);
+            sink += ids.position();
+        });
+    }
+
+    // Every mesh of an 800 x 600 view, built from scratch (what a zoom change costs),
+    // at the level of detail GameRenderer picks for that zoom; lod0 is the same far
+    // view drawn tile by tile. quads is what one frame then draws.
+    static void views() {
+        if (!wants("render.view.zoom1.quads", "render.view.zoom0.25.quads", "render.view.zoom0.125.quads",
+                "render.view.zoom0.125.lod0.quads")) return;
+        GameWorld world = new GameWorld(800, 600, SEED, false);
+        world.getLighting().setBudgetNanos(0);
+        view(world, "render.view.zoom1", 1f, 0);
+        view(world, "render.view.zoom0.25", 0.25f, 2);
+        view(world, "render.view.zoom0.125", 0.125f, 3);
+        view(world, "render.view.zoom0.125.lod0", 0.125f, 0);
+        world.dispose();
+    }
+
+    private static void view(GameWorld world, String name, float zoom, int level) {
+        if (!wants(name, name + ".quads")) return;
+        int tiles = GameWorld.TILE_SIZE;
+        int halfW = (int) (400 / zoom / tiles), halfH = (int) (300 / zoom / tiles);
+        int tx = 50, ty = world.getGenerator().groundTileY(tx);
+        int cx0 = (tx - halfW) >> Chunk.SHIFT, cx1 = (tx + halfW) >> Chunk.SHIFT;
+        int cy0 = (ty - halfH) >> Chunk.SHIFT, cy1 = (ty + halfH) >> Chunk.SHIFT;
+        java.util.ArrayList<Chunk> visible = new java.util.ArrayList<>();
+        for (int cx = cx0; cx <= cx1; cx++) {
+            for (int cy = cy0; cy <= cy1; cy++) visible.add(world.getChunks().chunkAt(cx, cy));
+        }
+        world.getLighting().step();
+        byte[] corners = new byte[TileMeshBuilder.CORNERS];
+        int[] counts = new int[TileMeshBuilder.LOD_COUNTS];
+        java.nio.FloatBuffer mesh = java.nio.FloatBuffer.allocate(Chunk.BYTES * TileMeshBuilder.FLOATS_PER_QUAD);
+        long[] quads = {0};
+        Runnable buildAll = () -> {
+            long q = 0;
+            for (Chunk c : visible) {
+                mesh.clear();
+                world.getLighting().corners(c, corners);
+                q += TileMeshBuilder.build(c, corners, counts, level, tiles, mesh) / TileMeshBuilder.VERTICES_PER_QUAD;
+            }
+            quads[0] = q;
+        };
+        buildAll.run(); // counted once, so the count is there when only it is selected
+        record(name + ".quads", quads[0], 0, "quads");
+        measure(name, 1, buildAll);
+    }
+
+    // ---- fluids ----
+
+    // A 400 x 250 lake (100k cells) in a stone basin in the sky, held back by a dam.
+    // Each iteration builds it on a fresh world (untimed), takes one step over the
+    // whole still lake (every cell woken by the edits, none moves), then removes the
+    // dam and times the collapse. Scores are per visited cell.
+    static void fluids() {
+        if (wants("fluids.lake100k.still", "fluids.lake100k.collapse", "fluids.lake100k.collapse.cellsPerStep")) lake();
+        if (wants("fluids.idle.step")) idleOcean();
+    }
+
+    private static void lake() {
+        int w = 400, h = 250, steps = 300;
+        int iterations = warmupIterations + measureIterations;
+        double[] still = new double[measureIterations];
+        double[] collapse = new double[measureIterations];
+        double cellsPerStep = 0;
+        for (int it = 0; it < iterations; it++) {
+            GameWorld world = new GameWorld(800, 600, SEED, false);
+            FluidSim fluids = world.getFluids();
+            int x0 = 0, y0 = -600, floor = y0 + h;
+            for (int tx = x0 - 1; tx <= x0 + 3 * w; tx++) world.setTile(tx, floor, 8);
+            for (int ty = y0 - 4; ty < floor; ty++) {
+                world.setTile(x0 - 1, ty, 8);
+                world.setTile(x0 + w, ty, 8); // the dam
+                world.setTile(x0 + 3 * w, ty, 8);
+            }
+            for (int ty = y0; ty < floor; ty++) {
+                for (int tx = x0; tx < x0 + w; tx++) world.setTile(tx, ty, BlockRegistry.WATER);
+            }
+            fluids.setBudget(Integer.MAX_VALUE);
+            long t0 = System.nanoTime();
+            fluids.step();
+            double stillNs = (System.nanoTime() - t0) / (double) fluids.getVisitedLastStep();
+            for (int ty = y0 - 4; ty < floor; ty++) world.setTile(x0 + w, ty, BlockRegistry.AIR);
+            fluids.setBudget(FluidSim.DEFAULT_BUDGET);
+            long v0 = fluids.getVisited();
+            t0 = System.nanoTime();
+            for (int i = 0; i < steps; i++) fluids.step();
+            long ns = System.nanoTime() - t0;
+            long visited = fluids.getVisited() - v0;
+            if (it >= warmupIterations) {
+                still[it - warmupIterations] = stillNs;
+                collapse[it - warmupIterations] = ns / (double) visited;
+                cellsPerStep += visited / (double) steps / measureIterations;
+            }
+            world.dispose();
+        }
+        recordSamples("fluids.lake100k.still", still, "ns/cell");
+        recordSamples("fluids.lake100k.collapse", collapse, "ns/cell");
+        record("fluids.lake100k.collapse.cellsPerStep", cellsPerStep, 0, "cells");
+    }
+
+    // Still water is never visited: a step over a settled world is bookkeeping only
+    private static void idleOcean() {
+        GameWorld ocean = new GameWorld(800, 600, SEED, false);
+        FluidSim fluids = ocean.getFluids();
+        measure("fluids.idle.step", 1, fluids::step);
+        sink += fluids.getVisited();
+        ocean.dispose();
+    }
+
+    // ---- lighting ----
+
+    // First light for freshly loaded 8 x 8 blocks of chunks (generation untimed; 20
+    // blocks per iteration, so the step is warm), then the relight
+    // after single edits: opening and closing a hole in the surface, which swings a
+    // sky column, and a torch placed and taken away in a 31 x 31 room underground
+    static void lighting() {
+        if (wants("light.seed.chunk")) lightSeed();
+        if (wants("light.edit.surface", "light.edit.torch")) lightEdits();
+    }
+
+    private static void lightSeed() {
+        int iterations = warmupIterations + measureIterations;
+        double[] seed = new double[measureIterations];
+        for (int it = 0; it < iterations; it++) {
+            GameWorld world = new GameWorld(800, 600, SEED, false);
+            Lighting lighting = world.getLighting();
+            lighting.setBudgetNanos(0);
+            lighting.step();
+            ChunkMap chunks = world.getChunks();
+            long ns = 0;
+            for (int block = 0; block < 20; block++) {
+                for (int cx = 4 + 8 * block; cx < 12 + 8 * block; cx++) {
+                    for (int cy = -2; cy < 6; cy++) chunks.chunkAt(cx, cy);
+                }
+                long t0 = System.nanoTime();
+                lighting.step();
+                ns += System.nanoTime() - t0;
+            }
+            if (it >= warmupIterations) seed[it - warmupIterations] = ns / (20 * 64.0);
+            world.dispose();
+        }
+        recordSamples("light.seed.chunk", seed, "ns/chunk");
+    }
+
+    private static void lightEdits() {
+        GameWorld world = new GameWorld(800, 600, SEED, false);
+        Lighting lighting = world.getLighting();
+        lighting.setBudgetNanos(0);
+        int tx = 50;
+        int ground = world.getGenerator().groundTileY(tx);
+        int roomY = ground + 60;
+        for (int y = roomY - 15; y <= roomY + 15; y++) {
+            for (int x = tx - 15; x <= tx + 15; x++) world.setTile(x, y, BlockRegistry.AIR);
+        }
+        lighting.step();
+        measure("light.edit.surface", 2, () -> {
+            world.setTile(tx, ground, BlockRegistry.AIR);
+            lighting.step();
+            world.setTile(tx, ground, 5);
+            lighting.step();
+        });
+        measure("light.edit.torch", 2, () -> {
+            world.setTile(tx, roomY, 9);
+            lighting.step();
+            world.setTile(tx, roomY, BlockRegistry.AIR);
+            lighting.step();
+        });
+        sink += lighting.getNodes();
+        world.dispose();
+    }
+
+    // ---- minimap ----
+
+    // Building the summaries of an 8 x 8 block of chunks, a single tile edit patching
+    // its pixel, and the per-frame walk over a 512-tile overview (17 x 17 chunks, all
+    // summaries cached) that decides what to upload
+    static void minimap() {
+        if (!wants("minimap.summary.chunk", "minimap.summary.tileEdit", "minimap.overview.sync")) return;
+        GameWorld world = new GameWorld(800, 600, SEED, false);
+        ChunkMap chunks = world.getChunks();
+        ChunkSummaries summaries = new ChunkSummaries(chunks);
+        for (int cx = 0; cx < 17; cx++) {
+            for (int cy = -4; cy < 13; cy++) {
+                chunks.chunkAt(cx, cy);
+                summaries.get(cx, cy);
+            }
+        }
+        int[] out = new int[ChunkSummaries.PIXELS * ChunkSummaries.PIXELS];
+        measure("minimap.summary.chunk", 64, () -> {
+            for (int cx = 0; cx < 8; cx++) {
+                for (int cy = 0; cy < 8; cy++) ChunkSummaries.build(chunks.chunkAt(cx, cy), out);
+            }
+            sink += out[0];
+        });
+        int tx = 50;
+        int ty = world.getGenerator().groundTileY(tx);
+        Chunk chunk = chunks.chunkAt(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT);
+        int lx = tx & Chunk.MASK, ly = ty & Chunk.MASK;
+        int ground = chunk.get(lx, ly);
+        measure("minimap.summary.tileEdit", 2, () -> {
+            chunk.set(lx, ly, BlockRegistry.AIR);
+            summaries.tileChanged(tx, ty);
+            chunk.set(lx, ly, ground);
+            summaries.tileChanged(tx, ty);
+        });
+        measure("minimap.overview.sync", 1, () -> {
+            long acc = 0;
+            for (int cy = -4; cy < 13; cy++) {
+                for (int cx = 0; cx < 17; cx++) acc += summaries.get(cx, cy).getVersion();
+            }
+            sink += acc;
+        });
+        sink += summaries.getUpdates();
+        world.dispose();
+    }
+
+    // ---- inventory / crafting ----
+
+    static void inventory() {
+        measure("inventory.addBlock", 64, () -> {
+            Inventory inv = new Inventory(9);
+            for (int i = 0; i < 64; i++) inv.addBlock(1 + (i & 7), "Block");
+            sink += inv.totalCountFor(1);
+        });
+        Inventory full = filledInventory();
+        measure("inventory.totalCountFor", 8, () -> {
+            long acc = 0;
+            for (int id = 1; id <= 8; id++) acc += full.totalCountFor(id);
+            sink += acc;
+        });
+    }
+
+    static void crafting() {
+        CraftingSystem crafting = new CraftingSystem();
+        Inventory inv = filledInventory();
+        measure("crafting.getAvailableRecipes", 1, () -> sink += crafting.getAvailableRecipes(inv).size());
+        if (!wants("crafting.match.3x3.hit", "crafting.match.3x3.miss")) return;
+
+        // Matching a 3x3 grid against the standard recipes plus 500 generated shapeless ones
+        List<Recipe> recipes = new ArrayList<>(crafting.getAllRecipes());
+        Random rnd = new Random(3);
+        java.util.HashSet<String> seen = new java.util.HashSet<>();
+        while (recipes.size() < 505) {
+            int kinds = 1 + rnd.nextInt(3);
+            Item[] ingredients = new Item[kinds];
+            int[] quantities = new int[kinds];
+            StringBuilder sig = new StringBuilder();
+            for (int k = 0; k < kinds; k++) {
+                int id = 10 + k * 10 + rnd.nextInt(10);
+                ingredients[k] = new Item("Block " + id, id, 1);
+                quantities[k] = 1 + rnd.nextInt(3);
+                sig.append(id).append('x').append(quantities[k]).append(' ');
+            }
+            if (seen.add(sig.toString())) recipes.add(new Recipe("Generated " + recipes.size(), new Item("Out", 1, 1), ingredients, quantities));
+        }
+        RecipeBook book = new RecipeBook(recipes);
+        Item stone = new Item("Stone", 6, 1);
+        Item wood = new Item("Wood", 3, 1);
+        Item[] pickaxe = {stone, stone, stone, null, wood, null, null, wood, null};
+        Item[] nothing = {stone, wood, stone, wood, null, null, null, null, wood};
+        measure("crafting.match.3x3.hit", 1, () -> sink += book.match(pickaxe, 3).result.count);
+        measure("crafting.match.3x3.miss", 1, () -> sink += book.match(nothing, 3) == null ? 1 : 0);
+    }
+
+    private static Inventory filledInventory() {
+        Inventory inv = new Inventory(9);
+        inv.addTool(new Item("Wood Pickaxe", ToolType.PICKAXE));
+        for (int i = 0; i < 30; i++) {
+            for (int id = 1; id <= 8; id++) inv.addBlock(id, "Block " + id);
+        }
+        return inv;
+    }
+
+    // ---- edit layer ----
+
+    // LongByteHashMap vs the boxed HashMap<Long, Integer> it replaced
+    static void overrideMap(int edits) {
+        if (!wants("overrides.LongByteHashMap.get", "overrides.HashMap.get", "overrides.LongByteHashMap.memory",
+                "overrides.HashMap.memory")) return;
+        Random rnd = new Random(1234);
+        long[] keys = new long[edits];
+        for (int i = 0; i < edits; i++) {
+            int tx = rnd.nextInt(20_000) - 10_000;
+            int ty = rnd.nextInt(400);
+            keys[i] = (((long) tx) << 32) ^ (ty & 0xffffffffL);
+        }
+        // Half hits, half misses, in a shuffled order
+        long[] probes = new long[edits * 2];
+        for (int i = 0; i < probes.length; i++) {
+            if ((i & 1) == 0) probes[i] = keys[rnd.nextInt(edits)];
+            else probes[i] = (((long) (rnd.nextInt(20_000) + 20_000)) << 32) ^ rnd.nextInt(400);
+        }
+
+        long before = usedHeap();
+        LongByteHashMap prim = new LongByteHashMap();
+        for (int i = 0; i < edits; i++) prim.put(keys[i], (byte) (i & 7));
+        long primBytes = usedHeap() - before;
+
+        before = usedHeap();
+        HashMap<Long, Integer> boxed = new HashMap<>();
+        for (int i = 0; i < edits; i++) boxed.put(keys[i], i & 7);
+        long boxedBytes = usedHeap() - before;
+
+        measure("overrides.LongByteHashMap.get", probes.length, () -> {
+            long acc = 0;
+            for (long k : probes) acc += prim.get(k, -1);
+            sink += acc;
+        });
+        measure("overrides.HashMap.get", probes.length, () -> {
+            long acc = 0;
+            for (long k : probes) {
+                Integer v = boxed.get(k);
+                acc += v == null ? -1 : v;
+            }
+            sink += acc;
+        });
+        record("overrides.LongByteHashMap.memory", primBytes / (double) prim.size(), 0, "bytes/entry");
+        record("overrides.HashMap.memory", boxedBytes / (double) boxed.size(), 0, "bytes/entry");
+        sink += boxed.size();
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    // ---- output ----
+
+    private static void writeJson(Path path) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"timestamp\": ").append(System.currentTimeMillis()).append(",\n");
+        sb.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        sb.append("  \"benchmarks\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result r = results.get(i);
+            sb.append(String.format(Locale.ROOT,
+                "    {\"name\": \"%s\", \"score\": %.4f, \"error\": %.4f, \"unit\": \"%s\"}",
+                r.name, r.score, r.error, r.unit));
+            sb.append(i + 1 < results.size() ? ",\n" : "\n");
+        }
+        sb.append("  ]\n}\n");
+        Files.writeString(path, sb.toString());
+    }
+
+    // Reads a file written by writeJson (one benchmark per line) and prints the change per benchmark
+    private static void compare(Path baseline) throws IOException {
+        Pattern line = Pattern.compile("\"name\": \"([^\"]+)\", \"score\": ([0-9.eE+-]+)");
+        HashMap<String, Double> old = new HashMap<>();
+        for (String l : Files.readAllLines(baseline)) {
+            Matcher m = line.matcher(l);
+            if (m.find()) old.put(m.group(1), Double.parseDouble(m.group(2)));
+        }
+        System.out.println("vs " + baseline + ":");
+        for (Result r : results) {
+            Double prev = old.get(r.name);
+            if (prev == null || prev == 0) continue;
+            System.out.printf(Locale.ROOT, "  %-36s %+7.1f%%%n", r.name, (r.score - prev) / prev * 100.0);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Per-tile properties loaded from blocks.txt (working directory first, then the
+// classpath) into flat tables indexed by tile id, so the hot checks in physics,
+// mining and meshing are a single array read instead of a chain of id compares.
+public class BlockRegistry {
+    public static final int MAX_ID = 255;
+    private static final int IDS = MAX_ID + 1;
+    // Mining speed factor when the block lists a tool and a different one is held
+    public static final float WRONG_TOOL_SPEED = 0.75f;
+
+    public static final int AIR = 0;
+    public static final int WATER = 2; // generated below sea level; FluidSim moves it
+
+    private static final long[] SOLID = new long[IDS / 64];
+    private static final boolean[] REPLACEABLE = new boolean[IDS];
+    private static final boolean[] NEEDS_TOOL = new boolean[IDS];
+    private static final boolean[] MINEABLE = new boolean[IDS];
+    private static final float[] BREAK_SPEED = new float[IDS]; // 1 / hardness; progress per second
+    private static final ToolType[] TOOL = new ToolType[IDS];
+    private static final int[] DROP = new int[IDS]; // 0 = drops nothing
+    private static final int[] LIGHT = new int[IDS]; // block light emitted, 0..15
+    private static final int[] RGBA = new int[IDS];
+    private static final float[][] RGBA_FLOATS = new float[IDS][];
+    private static final String[] NAME = new String[IDS];
+    private static final boolean[] DEFINED = new boolean[IDS];
+
+    static {
+        // Undefined ids render light grey and behave like an unmineable solid-less block
+        for (int id = 0; id < IDS; id++) {
+            TOOL[id] = ToolType.NONE;
+            RGBA[id] = 0xccccccff;
+            NAME[id] = "Block " + id;
+        }
+        try {
+            load(open());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load block definitions", e);
+        }
+        for (int id = 0; id < IDS; id++) RGBA_FLOATS[id] = unpack(RGBA[id]);
+    }
+
+    private BlockRegistry() {
+    }
+
+    private static List<String> open() throws IOException {
+        Path file = Path.of("blocks.txt");
+        if (Files.exists(file)) return Files.readAllLines(file);
+        try (InputStream in = BlockRegistry.class.getResourceAsStream("/blocks.txt")) {
+            if (in == null) throw new IOException("blocks.txt not found in the working directory or on the classpath");
+            List<String> lines = new ArrayList<>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            for (String line; (line = reader.readLine()) != null; ) lines.add(line);
+            return lines;
+        }
+    }
+
+    private static void load(List<String> lines) throws IOException {
+        int lineNo = 0;
+        for (String raw : lines) {
+            lineNo++;
+            int hash = raw.indexOf('#');
+            String line = (hash >= 0 ? raw.substring(0, hash) : raw).trim();
+            if (line.isEmpty()) continue;
+            String[] parts = line.split("\\s+", 7);
+            try {
+                define(parts);
+            } catch (RuntimeException e) {
+                throw new IOException("blocks.txt:" + lineNo + ": bad block '" + raw + "'", e);
+            }
+        }
+    }
+
+    private static void define(String[] parts) {
+        int id = Integer.parseInt(parts[0]);
+        if (id < 0 || id > MAX_ID) throw new IllegalArgumentException("id out of range");
+        if (DEFINED[id]) throw new IllegalArgumentException("id " + id + " defined twice");
+        DEFINED[id] = true;
+        RGBA[id] = (int) Long.parseLong(parts[1], 16);
+        MINEABLE[id] = !parts[2].equals("-");
+        BREAK_SPEED[id] = MINEABLE[id] ? 1f / Float.parseFloat(parts[2]) : 0f;
+        TOOL[id] = ToolType.valueOf(parts[3]);
+        DROP[id] = parts[4].equals("-") ? 0 : Integer.parseInt(parts[4]);
+        if (!parts[5].equals("-")) {
+            for (String flag : parts[5].split(",")) {
+                if (flag.startsWith("light=")) {
+                    LIGHT[id] = Integer.parseInt(flag.substring(6));
+                    if (LIGHT[id] < 0 || LIGHT[id] > 15) throw new IllegalArgumentException("light out of range");
+                    continue;
+                }
+                switch (flag) {
+                    case "solid": SOLID[id >>> 6] |= 1L << id; break;
+                    case "replaceable": REPLACEABLE[id] = true; break;
+                    case "needs-tool": NEEDS_TOOL[id] = true; break;
+                    default: throw new IllegalArgumentException("unknown flag " + flag);
+                }
+            }
+        }
+        NAME[id] = parts[6];
+    }
+
+    private static float[] unpack(int rgba) {
+        return new float[]{
+            ((rgba >>> 24) & 0xff) / 255f,
+            ((rgba >>> 16) & 0xff) / 255f,
+            ((rgba >>> 8) & 0xff) / 255f,
+            (rgba & 0xff) / 255f
+        };
+    }
+
+    // Tile ids come out of chunks as signed bytes; every lookup masks to 0..255
+
+    public static boolean isSolid(int id) {
+        id &= MAX_ID;
+        return (SOLID[id >>> 6] & (1L << id)) != 0;
+    }
+
+    public static boolean isReplaceable(int id) { return REPLACEABLE[id & MAX_ID]; }
+    public static boolean isMineable(int id) { return MINEABLE[id & MAX_ID]; }
+    public static boolean needsTool(int id) { return NEEDS_TOOL[id & MAX_ID]; }
+    public static float breakSpeed(int id) { return BREAK_SPEED[id & MAX_ID]; }
+    public static ToolType toolFor(int id) { return TOOL[id & MAX_ID]; }
+    public static int dropOf(int id) { return DROP[id & MAX_ID]; }
+    public static int lightOf(int id) { return LIGHT[id & MAX_ID]; }
+    public static int rgba(int id) { return RGBA[id & MAX_ID]; }
+    public static float[] color(int id) { return RGBA_FLOATS[id & MAX_ID]; }
+    public static String nameOf(int id) { return NAME[id & MAX_ID]; }
+    public static boolean isDefined(int id) { return DEFINED[id & MAX_ID]; }
+}
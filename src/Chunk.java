@@ -0,0 +1,62 @@
+public class Chunk {
+    public static final int SHIFT = 5;
+    public static final int SIZE = 1 << SHIFT; // 32x32 tiles
+    public static final int MASK = SIZE - 1;
+    public static final int BYTES = SIZE * SIZE;
+
+    public final int cx;
+    public final int cy;
+    private final byte[] tiles = new byte[BYTES]; // row-major, index = ly * SIZE + lx
+    // Bit lx of solidRows[ly] is set when that tile is solid; kept in step by set/loadTiles for TileCollider
+    private final int[] solidRows = new int[SIZE];
+    boolean unsaved; // edited since the last save; owned by ChunkMap
+    int edits; // tiles this session that differ from the generator; owned by ChunkMap
+    // Sky and block light, 0..15, two tiles per byte (even index in the low nibble).
+    // Owned by Lighting and not saved; a loaded chunk is relit from scratch.
+    final byte[] skyLight = new byte[BYTES / 2];
+    final byte[] blockLight = new byte[BYTES / 2];
+    long lightMark = -1; // Lighting step that last reported this chunk as relit
+
+    public Chunk(int cx, int cy) {
+        this.cx = cx;
+        this.cy = cy;
+    }
+
+    public int get(int lx, int ly) {
+        return tiles[(ly << SHIFT) | lx];
+    }
+
+    public void set(int lx, int ly, int tileId) {
+        tiles[(ly << SHIFT) | lx] = (byte) tileId;
+        if (BlockRegistry.isSolid(tileId)) solidRows[ly] |= 1 << lx;
+        else solidRows[ly] &= ~(1 << lx);
+    }
+
+    public int solidRow(int ly) {
+        return solidRows[ly];
+    }
+
+    public void copyTiles(byte[] dst) {
+        System.arraycopy(tiles, 0, dst, 0, BYTES);
+    }
+
+    // Writes the BYTES tile ids at dst's position and advances it
+    public void copyTiles(java.nio.ByteBuffer dst) {
+        dst.put(tiles);
+    }
+
+    public void loadTiles(java.nio.ByteBuffer src, int offset) {
+        src.get(offset, tiles, 0, BYTES);
+        for (int ly = 0; ly < SIZE; ly++) {
+            int row = 0;
+            for (int lx = 0; lx < SIZE; lx++) {
+                if (BlockRegistry.isSolid(tiles[(ly << SHIFT) | lx])) row |= 1 << lx;
+            }
+            solidRows[ly] = row;
+        }
+    }
+
+    public static long key(int cx, int cy) {
+        return (((long) cx) << 32) ^ (cy & 0xffffffffL);
+    }
+}
@@ -0,0 +1,56 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Generates chunks on a small daemon pool. Each worker has its own
+// TerrainGenerator (column caches are single-threaded); generation is a pure
+// function of seed and chunk coords, so results do not depend on scheduling.
+// Finished chunks are published through a lock-free queue that the main
+// thread drains; a chunk is never touched by a worker after it is queued.
+public class ChunkGenService {
+    private static final int MAX_IN_FLIGHT = 64;
+
+    private final ExecutorService pool;
+    private final ThreadLocal<TerrainGenerator> generators;
+    private final ConcurrentLinkedQueue<Chunk> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ChunkGenService(long seed, int threads) {
+        this.generators = ThreadLocal.withInitial(() -> new TerrainGenerator(seed));
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "chunk-gen");
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+    }
+
+    public static int defaultThreads() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    // Returns false when the queue is saturated; the caller simply asks again later
+    public boolean submit(int cx, int cy) {
+        if (inFlight.get() >= MAX_IN_FLIGHT) return false;
+        inFlight.incrementAndGet();
+        pool.execute(() -> {
+            try {
+                Chunk c = new Chunk(cx, cy);
+                generators.get().generate(c);
+                ready.add(c);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        return true;
+    }
+
+    public Chunk poll() {
+        return ready.poll();
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+public class ChunkMap {
+    public interface LoadListener {
+        void chunkLoaded(Chunk chunk);
+    }
+
+    private static final int PREFETCH_AHEAD = 3; // chunks beyond the view in the direction of travel
+    private static final int RECENT_MASK = 63;
+
+    private final TerrainGenerator generator;
+    private final ChunkGenService genService; // null = generate synchronously
+    private final HashMap<Long, Chunk> chunks = new HashMap<>();
+    private final HashSet<Long> pending = new HashSet<>();
+    private final ArrayList<Chunk> unsaved = new ArrayList<>();
+    private WorldStore store; // saved chunks are read from here instead of generated
+    // Direct-mapped cache in front of the HashMap, slot = (cx * 8 + cy) & 63, so any 8x8
+    // block of chunks fits without collisions. Collision, drops and rendering mostly touch a
+    // handful of neighbouring chunks, often interleaved, which a single last-chunk slot thrashed on.
+    private final Chunk[] recent = new Chunk[RECENT_MASK + 1];
+    private long unloads;
+    private LoadListener loadListener;
+
+    public ChunkMap(TerrainGenerator generator) {
+        this(generator, null);
+    }
+
+    public ChunkMap(TerrainGenerator generator, ChunkGenService genService) {
+        this.generator = generator;
+        this.genService = genService;
+    }
+
+    public void setStore(WorldStore store) {
+        this.store = store;
+    }
+
+    // Told about every chunk as it enters the map, generated, read or installed
+    public void setLoadListener(LoadListener listener) {
+        this.loadListener = listener;
+    }
+
+    // Always returns a chunk; falls back to generating on the calling thread
+    public Chunk chunkAt(int cx, int cy) {
+        int slot = ((cx << 3) + cy) & RECENT_MASK;
+        Chunk c = recent[slot];
+        if (c != null && c.cx == cx && c.cy == cy) return c;
+        long key = Chunk.key(cx, cy);
+        c = chunks.get(key);
+        if (c == null) {
+            c = new Chunk(cx, cy);
+            if (store == null || !store.readChunk(c)) generator.generate(c);
+            chunks.put(key, c);
+            if (loadListener != null) loadListener.chunkLoaded(c);
+        }
+        recent[slot] = c;
+        return c;
+    }
+
+    // Loaded chunk or null; never generates or queues anything
+    public Chunk getIfLoaded(int cx, int cy) {
+        int slot = ((cx << 3) + cy) & RECENT_MASK;
+        Chunk c = recent[slot];
+        if (c != null && c.cx == cx && c.cy == cy) return c;
+        c = chunks.get(Chunk.key(cx, cy));
+        if (c != null) recent[slot] = c;
+        return c;
+    }
+
+    // Non-blocking lookup: returns null and queues generation if the chunk is not loaded yet
+    public Chunk peek(int cx, int cy) {
+        Chunk c = chunks.get(Chunk.key(cx, cy));
+        if (c == null) request(cx, cy);
+        return c;
+    }
+
+    public boolean isLoaded(int cx, int cy) {
+        return chunks.containsKey(Chunk.key(cx, cy));
+    }
+
+    public void request(int cx, int cy) {
+        if (genService == null) {
+            chunkAt(cx, cy);
+            return;
+        }
+        long key = Chunk.key(cx, cy);
+        if (chunks.containsKey(key) || pending.contains(key)) return;
+        // Saved chunks are a 1 KB copy out of a mapped file; no need for a worker
+        if (store != null && store.hasChunk(cx, cy)) {
+            chunkAt(cx, cy);
+            return;
+        }
+        if (genService.submit(cx, cy)) pending.add(key);
+    }
+
+    // Install chunks finished by the workers; returns how many became visible
+    public int drainReady() {
+        if (genService == null) return 0;
+        int installed = 0;
+        Chunk c;
+        while ((c = genService.poll()) != null) {
+            long key = Chunk.key(c.cx, c.cy);
+            pending.remove(key);
+            // A synchronous fallback may have beaten the worker; keep that one (it may hold edits)
+            if (chunks.containsKey(key)) continue;
+            // ...and it may have been edited and unloaded since, in which case the store has it
+            if (store != null && store.hasChunk(c.cx, c.cy)) continue;
+            chunks.put(key, c);
+            if (loadListener != null) loadListener.chunkLoaded(c);
+            installed++;
+        }
+        return installed;
+    }
+
+    // Queue the visible chunk range plus a few chunks ahead of the player's motion
+    public void prefetch(int cx0, int cx1, int cy0, int cy1, float velocityX) {
+        if (genService == null) return;
+        int ahead0 = cx0, ahead1 = cx1;
+        if (velocityX > 0) ahead1 += PREFETCH_AHEAD;
+        else if (velocityX < 0) ahead0 -= PREFETCH_AHEAD;
+        else { ahead0 -= 1; ahead1 += 1; }
+        for (int cx = ahead0; cx <= ahead1; cx++) {
+            for (int cy = cy0; cy <= cy1; cy++) request(cx, cy);
+        }
+    }
+
+    // Drops every chunk outside the box of half-extents rx, ry (in chunks) around
+    // (cx, cy); returns how many. Edited chunks are handed to the store on the way out;
+    // with no store they stay loaded, as they hold the only copy of the edits. A chunk
+    // whose tiles are back to what the generator makes is dropped like a clean one.
+    // Chunk references taken before this call may be stale afterwards.
+    public int unloadOutside(int cx, int cy, int rx, int ry) {
+        ArrayList<Chunk> evictedEdits = null;
+        int removed = 0;
+        Iterator<Chunk> it = chunks.values().iterator();
+        while (it.hasNext()) {
+            Chunk c = it.next();
+            if (Math.abs(c.cx - cx) <= rx && Math.abs(c.cy - cy) <= ry) continue;
+            if (c.unsaved) {
+                if (needsWrite(c)) {
+                    if (store == null) continue;
+                    if (evictedEdits == null) evictedEdits = new ArrayList<>();
+                    evictedEdits.add(c);
+                }
+                c.unsaved = false;
+                unsaved.remove(c);
+            }
+            it.remove();
+            int slot = ((c.cx << 3) + c.cy) & RECENT_MASK;
+            if (recent[slot] == c) recent[slot] = null;
+            removed++;
+        }
+        if (evictedEdits != null) store.saveChunksAsync(evictedEdits);
+        unloads += removed;
+        return removed;
+    }
+
+    public int tileAt(int tx, int ty) {
+        return chunkAt(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT).get(tx & Chunk.MASK, ty & Chunk.MASK);
+    }
+
+    // editDelta: +1 when the tile now differs from the generator, -1 when it is back
+    public void setTile(int tx, int ty, int tileId, int editDelta) {
+        Chunk c = chunkAt(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT);
+        c.set(tx & Chunk.MASK, ty & Chunk.MASK, tileId);
+        c.edits += editDelta;
+        if (!c.unsaved) {
+            c.unsaved = true;
+            unsaved.add(c);
+        }
+    }
+
+    // Hands over the chunks edited since the last call that need writing, and clears
+    // the flags of all of them
+    public List<Chunk> takeUnsaved() {
+        ArrayList<Chunk> out = new ArrayList<>(unsaved.size());
+        for (Chunk c : unsaved) {
+            c.unsaved = false;
+            if (needsWrite(c)) out.add(c);
+        }
+        unsaved.clear();
+        return out;
+    }
+
+    // A chunk that matches the generator again regenerates as it is, unless the store
+    // holds an older copy that would be read instead
+    private boolean needsWrite(Chunk c) {
+        return c.edits > 0 || (store != null && store.hasChunk(c.cx, c.cy));
+    }
+
+    public int size() {
+        return chunks.size();
+    }
+
+    public long getUnloads() {
+        return unloads;
+    }
+
+    public void dispose() {
+        if (genService != null) genService.shutdown();
+    }
+}
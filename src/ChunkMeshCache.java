@@ -0,0 +1,146 @@
+import java.nio.FloatBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.lwjgl.system.MemoryUtil;
+
+// LRU of per-chunk quad meshes, one per level of detail in use, bounded by the
+// off-heap bytes they hold.
+// A mesh is rebuilt only after markDirty hits its chunk (or the chunk border), or
+// markChunkDirty when Lighting reports the chunk relit.
+public class ChunkMeshCache {
+    public static class ChunkMesh {
+        FloatBuffer data;
+        int vertexCount;
+        boolean dirty = true;
+
+        public FloatBuffer getData() { return data; }
+        public int getVertexCount() { return vertexCount; }
+
+        long bytes() {
+            return data == null ? 0 : (long) data.capacity() * Float.BYTES;
+        }
+    }
+
+    private final int tileSize;
+    private final long budgetBytes;
+    private final Lighting lighting; // null = everything in full light
+    private final byte[] corners = new byte[TileMeshBuilder.CORNERS];
+    private final int[] counts = new int[TileMeshBuilder.LOD_COUNTS];
+    private final LinkedHashMap<Long, ChunkMesh> meshes = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long rebuilds;
+    private long evictions;
+
+    public ChunkMeshCache(int tileSize, long budgetBytes) {
+        this(tileSize, budgetBytes, null);
+    }
+
+    public ChunkMeshCache(int tileSize, long budgetBytes, Lighting lighting) {
+        this.tileSize = tileSize;
+        this.budgetBytes = budgetBytes;
+        this.lighting = lighting;
+    }
+
+    public ChunkMesh meshFor(Chunk chunk, int level) {
+        long key = meshKey(chunk.cx, chunk.cy, level);
+        ChunkMesh mesh = meshes.get(key);
+        if (mesh == null) {
+            misses++;
+            mesh = new ChunkMesh();
+            meshes.put(key, mesh);
+        } else if (!mesh.dirty) {
+            hits++;
+            return mesh;
+        }
+        rebuild(chunk, mesh, level);
+        evictOverBudget(mesh);
+        return mesh;
+    }
+
+    private static long meshKey(int cx, int cy, int level) {
+        return Chunk.key(cx, cy) * TileMeshBuilder.LOD_LEVELS + level;
+    }
+
+    private void rebuild(Chunk chunk, ChunkMesh mesh, int level) {
+        rebuilds++;
+        byte[] light = null;
+        if (lighting != null) {
+            lighting.corners(chunk, corners);
+            light = corners;
+        }
+        // Coarse levels are at most a quarter of the tiles; counting them first would cost as much as building
+        int quads = level == 0 ? TileMeshBuilder.quadCount(chunk, light) : TileMeshBuilder.maxQuads(level);
+        int floats = Math.max(quads * TileMeshBuilder.FLOATS_PER_QUAD, TileMeshBuilder.FLOATS_PER_QUAD);
+        if (mesh.data == null || mesh.data.capacity() < floats) {
+            usedBytes -= mesh.bytes();
+            if (mesh.data != null) MemoryUtil.memFree(mesh.data);
+            mesh.data = MemoryUtil.memAllocFloat(floats);
+            usedBytes += mesh.bytes();
+        }
+        mesh.data.clear();
+        mesh.vertexCount = TileMeshBuilder.build(chunk, light, counts, level, tileSize, mesh.data);
+        mesh.data.flip();
+        mesh.dirty = false;
+    }
+
+    // Drop least recently used meshes until under budget, never the one just built
+    private void evictOverBudget(ChunkMesh keep) {
+        Iterator<Map.Entry<Long, ChunkMesh>> it = meshes.entrySet().iterator();
+        while (usedBytes > budgetBytes && it.hasNext()) {
+            ChunkMesh m = it.next().getValue();
+            if (m == keep) continue;
+            usedBytes -= m.bytes();
+            if (m.data != null) MemoryUtil.memFree(m.data);
+            m.data = null;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    // Returns true if a cached mesh was invalidated
+    public boolean markDirty(int tx, int ty) {
+        int cx = tx >> Chunk.SHIFT;
+        int cy = ty >> Chunk.SHIFT;
+        int lx = tx & Chunk.MASK;
+        int ly = ty & Chunk.MASK;
+        boolean any = markChunkDirty(cx, cy);
+        // Edits on the border also touch the neighbour's mesh (edges, lighting)
+        if (lx == 0) any |= markChunkDirty(cx - 1, cy);
+        if (lx == Chunk.MASK) any |= markChunkDirty(cx + 1, cy);
+        if (ly == 0) any |= markChunkDirty(cx, cy - 1);
+        if (ly == Chunk.MASK) any |= markChunkDirty(cx, cy + 1);
+        return any;
+    }
+
+    // Every level of the chunk
+    public boolean markChunkDirty(int cx, int cy) {
+        boolean any = false;
+        for (int level = 0; level < TileMeshBuilder.LOD_LEVELS; level++) {
+            ChunkMesh mesh = meshes.get(meshKey(cx, cy, level));
+            if (mesh == null || mesh.dirty) continue;
+            mesh.dirty = true;
+            any = true;
+        }
+        return any;
+    }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getRebuilds() { return rebuilds; }
+    public long getEvictions() { return evictions; }
+    public long getUsedBytes() { return usedBytes; }
+    public int size() { return meshes.size(); }
+
+    public void dispose() {
+        for (ChunkMesh m : meshes.values()) {
+            if (m.data != null) MemoryUtil.memFree(m.data);
+            m.data = null;
+        }
+        meshes.clear();
+        usedBytes = 0;
+    }
+}
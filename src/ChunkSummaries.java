@@ -0,0 +1,111 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Per-chunk colour images for the minimap: PIXELS x PIXELS RGBA (0xRRGGBBAA), each
+// pixel the average colour of a SCALE x SCALE block of tiles, air as the sky. A
+// summary is built the first time it is asked for while its chunk is loaded, then
+// kept up to date one pixel per tile edit, and outlives the chunk (up to CAPACITY
+// summaries, least recently used dropped first), so the map shows everything seen
+// so far without reading a tile per frame. No GL calls; MinimapRenderer uploads them.
+public class ChunkSummaries {
+    public static final int SCALE = 2; // tiles per pixel side
+    public static final int PIXELS = Chunk.SIZE / SCALE;
+    public static final int CAPACITY = 4096; // summaries kept; 1 KB each
+
+    public static final class Summary {
+        public final int cx, cy;
+        public final int[] pixels = new int[PIXELS * PIXELS]; // row-major, top row first
+        int version; // bumped on every change, so uploads can be skipped when unchanged
+
+        Summary(int cx, int cy) {
+            this.cx = cx;
+            this.cy = cy;
+        }
+
+        public int getVersion() { return version; }
+    }
+
+    // Block colours with air as the sky, so caves and the open sky read alike
+    private static final int[] PALETTE = new int[BlockRegistry.MAX_ID + 1];
+
+    static {
+        for (int id = 0; id <= BlockRegistry.MAX_ID; id++) PALETTE[id] = BlockRegistry.rgba(id);
+        float[] sky = TileMeshBuilder.SKY;
+        PALETTE[BlockRegistry.AIR] = (Math.round(sky[0] * 255) << 24) | (Math.round(sky[1] * 255) << 16) | (Math.round(sky[2] * 255) << 8) | 0xff;
+    }
+
+    private final ChunkMap chunks;
+    private final LinkedHashMap<Long, Summary> summaries = new LinkedHashMap<Long, Summary>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Summary> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    private long builds;
+    private long updates;
+
+    public ChunkSummaries(ChunkMap chunks) {
+        this.chunks = chunks;
+    }
+
+    // The chunk's summary; built now if the chunk is loaded, null if it was never seen
+    public Summary get(int cx, int cy) {
+        long key = key(cx, cy);
+        Summary s = summaries.get(key);
+        if (s != null) return s;
+        Chunk chunk = chunks.getIfLoaded(cx, cy);
+        if (chunk == null) return null;
+        s = new Summary(cx, cy);
+        build(chunk, s.pixels);
+        summaries.put(key, s);
+        builds++;
+        return s;
+    }
+
+    // Tile listener: recomputes the one pixel the tile falls in, if that chunk has a summary
+    public void tileChanged(int tx, int ty) {
+        int cx = tx >> Chunk.SHIFT, cy = ty >> Chunk.SHIFT;
+        Summary s = summaries.get(key(cx, cy));
+        if (s == null) return;
+        Chunk chunk = chunks.getIfLoaded(cx, cy);
+        if (chunk == null) return;
+        int px = (tx & Chunk.MASK) / SCALE, py = (ty & Chunk.MASK) / SCALE;
+        int rgba = pixel(chunk, px, py);
+        int i = py * PIXELS + px;
+        if (s.pixels[i] == rgba) return;
+        s.pixels[i] = rgba;
+        s.version++;
+        updates++;
+    }
+
+    // Chunk.key hashes to cx ^ cy as a Long, which piles a square view's chunks into a
+    // few bins; an odd multiplier keeps keys distinct and spreads them
+    private static long key(int cx, int cy) {
+        return Chunk.key(cx, cy) * 0x9E3779B97F4A7C15L;
+    }
+
+    public static void build(Chunk chunk, int[] out) {
+        for (int py = 0; py < PIXELS; py++) {
+            for (int px = 0; px < PIXELS; px++) out[py * PIXELS + px] = pixel(chunk, px, py);
+        }
+    }
+
+    // Opaque average of the block's tile colours, rounded per channel
+    static int pixel(Chunk chunk, int px, int py) {
+        int r = 0, g = 0, b = 0;
+        for (int ly = py * SCALE; ly < (py + 1) * SCALE; ly++) {
+            for (int lx = px * SCALE; lx < (px + 1) * SCALE; lx++) {
+                int c = PALETTE[chunk.get(lx, ly) & BlockRegistry.MAX_ID];
+                r += c >>> 24;
+                g += (c >>> 16) & 0xff;
+                b += (c >>> 8) & 0xff;
+            }
+        }
+        int n = SCALE * SCALE;
+        return ((r + n / 2) / n << 24) | ((g + n / 2) / n << 16) | ((b + n / 2) / n << 8) | 0xff;
+    }
+
+    public long getBuilds() { return builds; }
+    public long getUpdates() { return updates; }
+    public int size() { return summaries.size(); }
+}
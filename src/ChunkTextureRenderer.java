@@ -0,0 +1,207 @@
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.lwjgl.system.MemoryUtil;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE1;
+import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.lwjgl.opengl.GL20.*;
+
+// Alternative to WorldRenderer: every chunk is a SIZE x SIZE luminance texture of
+// tile ids, drawn as one textured quad, and a GLSL 1.20 fragment shader turns ids
+// into colours through a 256 x 1 palette texture. An edit re-uploads the chunk's
+// 1 KB with glTexSubImage2D instead of rebuilding quads. Needs GL 2.1 (Mesa
+// llvmpipe is enough). Textures are kept in an LRU capped by count.
+// Unlit: the shader sees tile ids only, not Lighting, so blocks draw at full
+// brightness and caves show the sky colour instead of darkness. The mesh mode
+// (WorldRenderer) is the reference view; this one is for comparing upload costs.
+public class ChunkTextureRenderer {
+    private static final int MAX_TEXTURES = 1024; // 1 KB each on the GPU
+
+    private static final String VERTEX_SHADER =
+        "#version 120\n" +
+        "varying vec2 uv;\n" +
+        "void main() {\n" +
+        "    uv = gl_MultiTexCoord0.xy;\n" +
+        "    gl_Position = gl_ModelViewProjectionMatrix * gl_Vertex;\n" +
+        "}\n";
+
+    private static final String FRAGMENT_SHADER =
+        "#version 120\n" +
+        "uniform sampler2D ids;\n" +
+        "uniform sampler2D palette;\n" +
+        "varying vec2 uv;\n" +
+        "void main() {\n" +
+        "    float id = floor(texture2D(ids, uv).r * 255.0 + 0.5);\n" +
+        "    vec4 c = texture2D(palette, vec2((id + 0.5) / 256.0, 0.5));\n" +
+        "    if (c.a == 0.0) discard;\n" +
+        "    gl_FragColor = c;\n" +
+        "}\n";
+
+    private static class ChunkTexture {
+        int texture;
+        boolean dirty = true;
+    }
+
+    private final ChunkMap chunks;
+    private final int chunkPixels;
+    private final int program;
+    private final int paletteTexture;
+    private final LinkedHashMap<Long, ChunkTexture> textures = new LinkedHashMap<>(64, 0.75f, true);
+    private final ByteBuffer upload = MemoryUtil.memAlloc(Chunk.BYTES);
+    private long uploads;
+
+    // Needs a current GL context; throws IllegalStateException if the shader does not build
+    public ChunkTextureRenderer(ChunkMap chunks, int tileSize) {
+        this.chunks = chunks;
+        this.chunkPixels = Chunk.SIZE * tileSize;
+        this.program = link(compile(GL_VERTEX_SHADER, VERTEX_SHADER), compile(GL_FRAGMENT_SHADER, FRAGMENT_SHADER));
+        glUseProgram(program);
+        glUniform1i(glGetUniformLocation(program, "ids"), 0);
+        glUniform1i(glGetUniformLocation(program, "palette"), 1);
+        glUseProgram(0);
+
+        ByteBuffer palette = MemoryUtil.memAlloc(TileTextureBuilder.PALETTE_BYTES);
+        TileTextureBuilder.packPalette(palette);
+        palette.flip();
+        paletteTexture = newTexture();
+        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, TileTextureBuilder.PALETTE_SIZE, 1, 0, GL_RGBA, GL_UNSIGNED_BYTE, palette);
+        MemoryUtil.memFree(palette);
+        glBindTexture(GL_TEXTURE_2D, 0);
+    }
+
+    private static int compile(int type, String source) {
+        int shader = glCreateShader(type);
+        glShaderSource(shader, source);
+        glCompileShader(shader);
+        if (glGetShaderi(shader, GL_COMPILE_STATUS) == GL_FALSE) {
+            String log = glGetShaderInfoLog(shader);
+            glDeleteShader(shader);
+            throw new IllegalStateException("Tile shader did not compile: " + log);
+        }
+        return shader;
+    }
+
+    private static int link(int vertex, int fragment) {
+        int program = glCreateProgram();
+        glAttachShader(program, vertex);
+        glAttachShader(program, fragment);
+        glLinkProgram(program);
+        glDeleteShader(vertex); // freed with the program
+        glDeleteShader(fragment);
+        if (glGetProgrami(program, GL_LINK_STATUS) == GL_FALSE) {
+            String log = glGetProgramInfoLog(program);
+            glDeleteProgram(program);
+            throw new IllegalStateException("Tile shader did not link: " + log);
+        }
+        return program;
+    }
+
+    private static int newTexture() {
+        int texture = glGenTextures();
+        glBindTexture(GL_TEXTURE_2D, texture);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+        return texture;
+    }
+
+    // Tile ids only; unlike meshes, a chunk's texture never depends on its neighbours
+    public void markDirty(int tx, int ty) {
+        ChunkTexture t = textures.get(Chunk.key(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT));
+        if (t != null) t.dirty = true;
+    }
+
+    // Expects the world projection to be set up; applies the camera offset itself.
+    // Returns the chunks drawn, one quad (and one draw call) each.
+    public int render(float cameraX, float cameraY, int startTileX, int endTileX, int startTileY, int endTileY) {
+        int cx0 = startTileX >> Chunk.SHIFT, cx1 = endTileX >> Chunk.SHIFT;
+        int cy0 = startTileY >> Chunk.SHIFT, cy1 = endTileY >> Chunk.SHIFT;
+        glPushMatrix();
+        glTranslatef(-cameraX, -cameraY, 0f);
+        glUseProgram(program);
+        glActiveTexture(GL_TEXTURE1);
+        glBindTexture(GL_TEXTURE_2D, paletteTexture);
+        glActiveTexture(GL_TEXTURE0);
+        glColor4f(1f, 1f, 1f, 1f);
+        glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+        int drawn = 0;
+        for (int cx = cx0; cx <= cx1; cx++) {
+            for (int cy = cy0; cy <= cy1; cy++) {
+                Chunk chunk = chunks.peek(cx, cy); // not generated yet: skip this frame
+                if (chunk == null) continue;
+                bindTexture(chunk);
+                float x = cx * (float) chunkPixels;
+                float y = cy * (float) chunkPixels;
+                glBegin(GL_QUADS);
+                glTexCoord2f(0f, 0f); glVertex2f(x, y);
+                glTexCoord2f(1f, 0f); glVertex2f(x + chunkPixels, y);
+                glTexCoord2f(1f, 1f); glVertex2f(x + chunkPixels, y + chunkPixels);
+                glTexCoord2f(0f, 1f); glVertex2f(x, y + chunkPixels);
+                glEnd();
+                drawn++;
+            }
+        }
+        glBindTexture(GL_TEXTURE_2D, 0);
+        glActiveTexture(GL_TEXTURE1);
+        glBindTexture(GL_TEXTURE_2D, 0);
+        glActiveTexture(GL_TEXTURE0);
+        glUseProgram(0);
+        glPopMatrix();
+        return drawn;
+    }
+
+    // Binds the chunk's texture, uploading its tiles first if new or edited
+    private void bindTexture(Chunk chunk) {
+        long key = Chunk.key(chunk.cx, chunk.cy);
+        ChunkTexture t = textures.get(key);
+        boolean created = t == null;
+        if (created) {
+            t = new ChunkTexture();
+            textures.put(key, t);
+            evictOverBudget(t);
+            t.texture = newTexture();
+        } else {
+            glBindTexture(GL_TEXTURE_2D, t.texture);
+            if (!t.dirty) return;
+        }
+        upload.clear();
+        TileTextureBuilder.packChunk(chunk, upload);
+        upload.flip();
+        if (created) {
+            glTexImage2D(GL_TEXTURE_2D, 0, GL_LUMINANCE8, Chunk.SIZE, Chunk.SIZE, 0, GL_LUMINANCE, GL_UNSIGNED_BYTE, upload);
+        } else {
+            glTexSubImage2D(GL_TEXTURE_2D, 0, 0, 0, Chunk.SIZE, Chunk.SIZE, GL_LUMINANCE, GL_UNSIGNED_BYTE, upload);
+        }
+        t.dirty = false;
+        uploads++;
+    }
+
+    // Drop least recently drawn textures over the cap, never the one just made
+    private void evictOverBudget(ChunkTexture keep) {
+        Iterator<Map.Entry<Long, ChunkTexture>> it = textures.entrySet().iterator();
+        while (textures.size() > MAX_TEXTURES && it.hasNext()) {
+            ChunkTexture t = it.next().getValue();
+            if (t == keep) continue;
+            glDeleteTextures(t.texture);
+            it.remove();
+        }
+    }
+
+    public long getUploads() { return uploads; }
+    public int size() { return textures.size(); }
+
+    public void dispose() {
+        for (ChunkTexture t : textures.values()) glDeleteTextures(t.texture);
+        textures.clear();
+        glDeleteTextures(paletteTexture);
+        glDeleteProgram(program);
+        MemoryUtil.memFree(upload);
+    }
+}
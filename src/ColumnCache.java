@@ -0,0 +1,61 @@
+import java.util.Arrays;
+
+// Per-column terrain metadata (surface height, tree height) keyed by tile X.
+// Direct-mapped on tx & mask, so memory is fixed at CAPACITY slots; entries
+// far from the camera focus are dropped in sweeps as the camera moves.
+public class ColumnCache {
+    public static final int CAPACITY = 4096; // columns; 2 ints each
+    private static final int EMPTY = Integer.MIN_VALUE;
+    private static final int SWEEP_STEP = Chunk.SIZE; // re-sweep after the focus moves this far
+
+    private final TerrainGenerator generator;
+    private final int[] tags = new int[CAPACITY];
+    private final int[] packed = new int[CAPACITY]; // ground << 8 | treeHeight (0 = no tree)
+    private final int mask = CAPACITY - 1;
+    private int focusX;
+    private int hits;
+    private int misses;
+
+    public ColumnCache(TerrainGenerator generator) {
+        this.generator = generator;
+        Arrays.fill(tags, EMPTY);
+    }
+
+    private int lookup(int tx) {
+        int slot = tx & mask;
+        if (tags[slot] == tx) {
+            hits++;
+            return packed[slot];
+        }
+        misses++;
+        int ground = generator.computeGroundTileY(tx);
+        int tree = generator.computeTreeHeight(tx);
+        int p = (ground << 8) | tree;
+        tags[slot] = tx;
+        packed[slot] = p;
+        return p;
+    }
+
+    public int groundTileY(int tx) {
+        return lookup(tx) >> 8;
+    }
+
+    // 0 when no tree grows in this column
+    public int treeHeight(int tx) {
+        return lookup(tx) & 0xff;
+    }
+
+    // Evict columns more than CAPACITY / 2 away from the given tile X
+    public void focus(int centerTx) {
+        if (Math.abs(centerTx - focusX) < SWEEP_STEP) return;
+        focusX = centerTx;
+        int radius = CAPACITY / 2;
+        for (int i = 0; i < CAPACITY; i++) {
+            int tag = tags[i];
+            if (tag != EMPTY && Math.abs(tag - centerTx) > radius) tags[i] = EMPTY;
+        }
+    }
+
+    public int getHits() { return hits; }
+    public int getMisses() { return misses; }
+}
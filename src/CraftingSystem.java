@@ -10,34 +10,36 @@ public class CraftingSystem {
     }
 
     private void initializeRecipes() {
-        // Stone tools (upgrade from wood)
-        recipes.add(new Recipe(
+        Item wood = new Item("Wood", 3, 1);
+        Item stone = new Item("Stone", 6, 1);
+
+        // Stone tools (upgrade from wood); pickaxe and axe need the 3x3 grid
+        recipes.add(Recipe.shaped(
             "Stone Pickaxe",
             new Item("Stone Pickaxe", ToolType.PICKAXE),
-            new Item[]{
-                new Item("Wood", 3, 1),
-                new Item("Stone", 6, 1)
+            new String[]{
+                "SSS",
+                ".W.",
+                ".W."
             },
-            new int[]{2, 3}
+            "S", stone, "W", wood
         ));
 
-        recipes.add(new Recipe(
-            "Stone Axe", 
+        recipes.add(Recipe.shaped(
+            "Stone Axe",
             new Item("Stone Axe", ToolType.AXE),
-            new Item[]{
-                new Item("Wood", 3, 1),
-                new Item("Stone", 6, 1)
+            new String[]{
+                "SS.",
+                "SW.",
+                ".W."
             },
-            new int[]{2, 3}
+            "S", stone, "W", wood
         ));
 
         recipes.add(new Recipe(
             "Stone Shovel",
             new Item("Stone Shovel", ToolType.SHOVEL),
-            new Item[]{
-                new Item("Wood", 3, 1),
-                new Item("Stone", 6, 1)
-            },
+            new Item[]{wood, stone},
             new int[]{2, 2}
         ));
 
@@ -45,19 +47,28 @@ public class CraftingSystem {
         recipes.add(new Recipe(
             "Wood Planks",
             new Item("Wood Planks", 7, 4), // New block ID 7 for planks
-            new Item[]{
-                new Item("Wood", 3, 1)
-            },
+            new Item[]{wood},
             new int[]{1}
         ));
 
-        recipes.add(new Recipe(
+        recipes.add(Recipe.shaped(
             "Stone Bricks",
             new Item("Stone Bricks", 8, 4), // New block ID 8 for bricks
-            new Item[]{
-                new Item("Stone", 6, 1)
+            new String[]{
+                "SS",
+                "SS"
+            },
+            "S", stone
+        ));
+
+        recipes.add(Recipe.shaped(
+            "Torch",
+            new Item("Torch", 9, 4),
+            new String[]{
+                "S",
+                "W"
             },
-            new int[]{4}
+            "S", stone, "W", wood
         ));
     }
 
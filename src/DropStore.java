@@ -0,0 +1,249 @@
+import java.util.Arrays;
+
+// Item drops as parallel arrays: a drop is an index, removal swaps the last
+// drop into the hole, and the arrays only ever grow, so spawning and picking up
+// allocate nothing. Drops that have come to rest are linked per tile cell, which
+// lets landing drops merge with a resting stack of the same tile and lets the
+// pickup test look at the few cells around the player instead of every drop.
+public class DropStore {
+    public interface Visitor {
+        void picked(int tileId, int count);
+    }
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int EMPTY = -2; // cell slot never used
+    private static final int NONE = -1;  // end of chain / cell with no resting drops
+
+    // Read and written directly by GameWorld.updateDrops
+    float[] x = new float[INITIAL_CAPACITY];
+    float[] y = new float[INITIAL_CAPACITY];
+    float[] vx = new float[INITIAL_CAPACITY];
+    float[] vy = new float[INITIAL_CAPACITY];
+    int[] tileId = new int[INITIAL_CAPACITY];
+    int[] count = new int[INITIAL_CAPACITY]; // items carried; >1 after merging
+    boolean[] resting = new boolean[INITIAL_CAPACITY];
+    int size;
+
+    // Resting drops by cell: open-addressed cell key -> first drop, chained through next[]
+    private int[] next = new int[INITIAL_CAPACITY];
+    private long[] cellKeys = new long[64];
+    private int[] cellHeads = new int[64];
+    private int cellsUsed;
+    private int[] scratch = new int[16];
+
+    private long rng; // spawn velocities are seeded so runs replay exactly
+
+    public DropStore(long seed) {
+        rng = seed ^ 0x5DEECE66DL;
+        Arrays.fill(cellHeads, EMPTY);
+    }
+
+    public int size() { return size; }
+    public float getX(int i) { return x[i]; }
+    public float getY(int i) { return y[i]; }
+    public int getTileId(int i) { return tileId[i]; }
+    public int getCount(int i) { return count[i]; }
+
+    public void spawn(float px, float py, int id) {
+        if (size == x.length) grow();
+        int i = size++;
+        x[i] = px;
+        y[i] = py;
+        vx[i] = nextFloat() * 60 - 30;
+        vy[i] = -80 - nextFloat() * 60;
+        tileId[i] = id;
+        count[i] = 1;
+        resting[i] = false;
+    }
+
+    public void clear() {
+        size = 0;
+        Arrays.fill(cellHeads, EMPTY);
+        cellsUsed = 0;
+    }
+
+    // Swap-remove; the drop that was last now lives at index i
+    public void remove(int i) {
+        int last = --size;
+        if (resting[i]) unlink(i);
+        if (i == last) return;
+        x[i] = x[last];
+        y[i] = y[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        tileId[i] = tileId[last];
+        count[i] = count[last];
+        resting[i] = resting[last];
+        if (resting[i]) relink(last, i);
+    }
+
+    // Puts a drop that stopped moving to rest. If its cell already holds a resting
+    // drop of the same tile the two merge and i is removed; returns true in that case.
+    public boolean settle(int i) {
+        long key = cellKey(x[i], y[i]);
+        int slot = findCell(key);
+        if (slot >= 0) {
+            for (int j = cellHeads[slot]; j != NONE; j = next[j]) {
+                if (tileId[j] == tileId[i]) {
+                    count[j] += count[i];
+                    resting[i] = false;
+                    remove(i);
+                    return true;
+                }
+            }
+        }
+        vx[i] = 0;
+        vy[i] = 0;
+        link(i, key); // before flagging it, so a rehash inside link does not index it twice
+        resting[i] = true;
+        return false;
+    }
+
+    // Drops resting on or inside this tile have to re-check their footing. A drop's cell
+    // is that of its top-left corner, so one straddling the tile's left edge sits in tx - 1.
+    public void tileChanged(int tx, int ty) {
+        for (int cy = ty - 1; cy <= ty; cy++) {
+            wake(tx - 1, cy);
+            wake(tx, cy);
+        }
+    }
+
+    private void wake(int cx, int cy) {
+        int slot = findCell(key(cx, cy));
+        if (slot < 0) return;
+        for (int j = cellHeads[slot]; j != NONE; j = next[j]) resting[j] = false;
+        cellHeads[slot] = NONE;
+    }
+
+    // Removes every resting drop within r of (px, py) and reports it to the visitor
+    public void pickUpResting(float px, float py, float r, Visitor visitor) {
+        if (cellsUsed == 0) return;
+        int cx0 = (int) Math.floor((px - r) / GameWorld.TILE_SIZE);
+        int cx1 = (int) Math.floor((px + r) / GameWorld.TILE_SIZE);
+        int cy0 = (int) Math.floor((py - r) / GameWorld.TILE_SIZE);
+        int cy1 = (int) Math.floor((py + r) / GameWorld.TILE_SIZE);
+        float r2 = r * r;
+        int n = 0;
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int slot = findCell(key(cx, cy));
+                if (slot < 0) continue;
+                for (int j = cellHeads[slot]; j != NONE; j = next[j]) {
+                    float dx = x[j] - px;
+                    float dy = y[j] - py;
+                    if (dx * dx + dy * dy >= r2) continue;
+                    if (n == scratch.length) scratch = Arrays.copyOf(scratch, n * 2);
+                    scratch[n++] = j;
+                }
+            }
+        }
+        if (n == 0) return;
+        // Highest index first so swap-remove never moves a drop still waiting to be removed
+        Arrays.sort(scratch, 0, n);
+        for (int k = n - 1; k >= 0; k--) {
+            int j = scratch[k];
+            visitor.picked(tileId[j], count[j]);
+            remove(j);
+        }
+    }
+
+    private float nextFloat() {
+        // splitmix64
+        long z = (rng += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z >>> 40) * 0x1.0p-24f;
+    }
+
+    private void grow() {
+        int cap = x.length * 2;
+        x = Arrays.copyOf(x, cap);
+        y = Arrays.copyOf(y, cap);
+        vx = Arrays.copyOf(vx, cap);
+        vy = Arrays.copyOf(vy, cap);
+        tileId = Arrays.copyOf(tileId, cap);
+        count = Arrays.copyOf(count, cap);
+        resting = Arrays.copyOf(resting, cap);
+        next = Arrays.copyOf(next, cap);
+    }
+
+    // ---- resting index ----
+
+    private static long key(int cx, int cy) {
+        return (((long) cx) << 32) ^ (cy & 0xffffffffL);
+    }
+
+    private static long cellKey(float px, float py) {
+        return key((int) Math.floor(px / GameWorld.TILE_SIZE), (int) Math.floor(py / GameWorld.TILE_SIZE));
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Slot holding key, or -1
+    private int findCell(long key) {
+        int mask = cellKeys.length - 1;
+        for (int s = hash(key) & mask; ; s = (s + 1) & mask) {
+            if (cellHeads[s] == EMPTY) return -1;
+            if (cellKeys[s] == key) return s;
+        }
+    }
+
+    private void link(int i, long key) {
+        int mask = cellKeys.length - 1;
+        int s = hash(key) & mask;
+        while (cellHeads[s] != EMPTY && cellKeys[s] != key) s = (s + 1) & mask;
+        if (cellHeads[s] == EMPTY) {
+            // Cells emptied by pickups keep their slot; a rehash clears them out
+            if ((cellsUsed + 1) * 2 > cellKeys.length) {
+                rehash();
+                link(i, key);
+                return;
+            }
+            cellKeys[s] = key;
+            cellHeads[s] = NONE;
+            cellsUsed++;
+        }
+        next[i] = cellHeads[s];
+        cellHeads[s] = i;
+    }
+
+    private void unlink(int i) {
+        int s = findCell(cellKey(x[i], y[i]));
+        if (cellHeads[s] == i) {
+            cellHeads[s] = next[i];
+            return;
+        }
+        int p = cellHeads[s];
+        while (next[p] != i) p = next[p];
+        next[p] = next[i];
+    }
+
+    // Drop `from` was moved to index `to`; point its chain at the new index
+    private void relink(int from, int to) {
+        int s = findCell(cellKey(x[to], y[to]));
+        next[to] = next[from];
+        if (cellHeads[s] == from) {
+            cellHeads[s] = to;
+            return;
+        }
+        int p = cellHeads[s];
+        while (next[p] != from) p = next[p];
+        next[p] = to;
+    }
+
+    private void rehash() {
+        int restingCount = 0;
+        for (int i = 0; i < size; i++) if (resting[i]) restingCount++;
+        int cap = 64;
+        while (cap < restingCount * 4) cap <<= 1;
+        cellKeys = new long[cap];
+        cellHeads = new int[cap];
+        Arrays.fill(cellHeads, EMPTY);
+        cellsUsed = 0;
+        for (int i = 0; i < size; i++) if (resting[i]) link(i, cellKey(x[i], y[i]));
+    }
+}
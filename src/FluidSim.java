@@ -0,0 +1,386 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// Flowing water as a cellular automaton over the tiles. A chunk that water moves in
+// gets a Cells record: levels 0..FULL as two byte arrays (read cur, write next, swap
+// at the end of the step, so a cell's flow never sees a neighbour's same-tick
+// update) and bitsets of the cells to visit. Only cells near a change are visited:
+// a tile edit wakes the wet cells around it, a level change wakes the cell and the
+// wet cells that could flow into it, and a visit that moves nothing puts the cell
+// back to sleep. Still water - every generated ocean - has no Cells and costs
+// nothing. At most `budget` cells are visited per step; the rest wait their turn.
+//
+// A step is two passes over the visited cells, each double-buffered: first each
+// falls into the cell below as far as it will fill (one source per target), then
+// passes a third of the difference to each lower side neighbour (two sources per
+// target, which a third cannot overfill). Levels stay within 0..FULL and the total
+// is conserved. A tile is water while its level is above zero.
+//
+// Persistence: the water/air tiles go through GameWorld.setTile like any edit and are
+// saved with their chunk; the levels live only here. A tile that flows back to its
+// generated state drops out of the edit log, and a chunk with no edits left is
+// neither written nor kept loaded. After loading a save each water tile starts full.
+public class FluidSim {
+    public static final int FULL = 64;
+    public static final int DEFAULT_BUDGET = 32 * 1024; // cells per step
+    private static final int WORDS = Chunk.BYTES / 64;
+    private static final int RECENT_MASK = 255;
+
+    private static final class Cells {
+        final int cx, cy;
+        byte[] cur = new byte[Chunk.BYTES];
+        byte[] next = new byte[Chunk.BYTES];
+        final long[] active = new long[WORDS]; // to visit this step, including any left over
+        final long[] wake = new long[WORDS]; // to visit next step
+        final long[] visiting = new long[WORDS]; // taken from active this step, for the spread pass
+        final long[] changed = new long[WORDS]; // written this step
+        Chunk chunk; // valid in step chunkStep only; ChunkMap may unload between steps
+        long chunkStep = -1;
+        long stamp = -1; // pass in which next was last copied from cur
+        boolean awake; // in the awake list
+
+        Cells(int cx, int cy) {
+            this.cx = cx;
+            this.cy = cy;
+        }
+    }
+
+    private final GameWorld world;
+    private final ChunkMap chunks;
+    private final HashMap<Long, Cells> cells = new HashMap<>();
+    private final ArrayList<Cells> awake = new ArrayList<>();
+    private final ArrayList<Cells> touched = new ArrayList<>();
+    private Cells home; // chunk of the cell being visited; lookups try it first
+    private final Cells[] recent = new Cells[RECENT_MASK + 1]; // direct-mapped like ChunkMap's, 16x16 chunks
+    private long steps;
+    private long pass; // two per step: fall, then spread
+    private int budget = DEFAULT_BUDGET;
+    private Cells resume; // where the last step ran out of budget; the next one starts there
+    private boolean applying; // our own setTile calls; tileChanged ignores them
+    private long visited;
+    private int visitedLastStep;
+
+    public FluidSim(GameWorld world, ChunkMap chunks) {
+        this.world = world;
+        this.chunks = chunks;
+    }
+
+    public void setBudget(int budget) {
+        this.budget = budget;
+    }
+
+    public long getVisited() { return visited; }
+    public int getVisitedLastStep() { return visitedLastStep; }
+    public int getAwakeChunks() { return awake.size(); }
+    public int getChunks() { return cells.size(); }
+
+    // 0..FULL; cells without fluid state read from the tile
+    public int levelAt(int tx, int ty) {
+        return level(tx, ty);
+    }
+
+    // Called by GameWorld for every tile edit: a removed tile may let water in, a
+    // placed one displaces it
+    public void tileChanged(int tx, int ty, int newTile) {
+        if (applying) return;
+        Cells c = find(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT);
+        if (c != null) c.cur[index(tx, ty)] = (byte) (newTile == BlockRegistry.WATER ? FULL : 0);
+        wakeIfWet(tx, ty);
+        wakeIfWet(tx, ty - 1);
+        wakeIfWet(tx - 1, ty);
+        wakeIfWet(tx + 1, ty);
+    }
+
+    public void step() {
+        steps++;
+        int n = awake.size();
+        for (int i = 0; i < n; i++) {
+            Cells c = awake.get(i);
+            for (int w = 0; w < WORDS; w++) {
+                c.active[w] |= c.wake[w];
+                c.wake[w] = 0;
+            }
+        }
+        // Round-robin from where the budget ran out, so no chunk starves
+        int left = budget;
+        int start = resume == null ? 0 : Math.max(0, awake.indexOf(resume));
+        resume = null;
+        pass++;
+        for (int k = 0; k < n && left > 0; k++) {
+            int i = start + k;
+            if (i >= n) i -= n;
+            Cells c = awake.get(i);
+            home = c;
+            left = fallChunk(c, left);
+            if (left == 0) resume = c;
+        }
+        commit();
+        // The same cells then spread sideways from where the fall left them
+        pass++;
+        for (int i = 0; i < n; i++) {
+            Cells c = awake.get(i);
+            home = c;
+            spreadChunk(c);
+        }
+        commit();
+        home = null;
+        visitedLastStep = budget - left;
+        visited += visitedLastStep;
+        sleep();
+    }
+
+    private int fallChunk(Cells c, int left) {
+        Chunk chunk = chunkOf(c);
+        int baseX = c.cx << Chunk.SHIFT;
+        int baseY = c.cy << Chunk.SHIFT;
+        for (int w = 0; w < WORDS; w++) {
+            long bits = c.active[w];
+            long taken = 0;
+            while (bits != 0 && left > 0) {
+                long bit = bits & -bits;
+                bits ^= bit;
+                taken |= bit;
+                left--;
+                int i = (w << 6) | Long.numberOfTrailingZeros(bit);
+                int level = c.cur[i];
+                if (level > 0) fall(c, chunk, i, baseX + (i & Chunk.MASK), baseY + (i >> Chunk.SHIFT), level);
+            }
+            c.active[w] = bits;
+            c.visiting[w] = taken;
+        }
+        return left;
+    }
+
+    private void spreadChunk(Cells c) {
+        Chunk chunk = chunkOf(c);
+        int baseX = c.cx << Chunk.SHIFT;
+        int baseY = c.cy << Chunk.SHIFT;
+        for (int w = 0; w < WORDS; w++) {
+            long bits = c.visiting[w];
+            c.visiting[w] = 0;
+            while (bits != 0) {
+                int i = (w << 6) | Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int level = c.cur[i];
+                if (level >= 2) spread(c, chunk, i, baseX + (i & Chunk.MASK), baseY + (i >> Chunk.SHIFT), level);
+            }
+        }
+    }
+
+    // A cell has one cell above it, so it can be filled to the top in one pass
+    private void fall(Cells c, Chunk chunk, int i, int tx, int ty, int level) {
+        int below = neighbour(c, chunk, i, tx, ty, 0, 1);
+        if (below < 0) return;
+        int amount = Math.min(level, FULL - below);
+        if (amount <= 0) return;
+        move(c, i, tx, ty, 0, 1, amount);
+        add(c, i, -amount);
+    }
+
+    // A third of the difference (rounded) to each lower side: with two sources per
+    // cell this cannot overfill it, and a difference of two still moves
+    private void spread(Cells c, Chunk chunk, int i, int tx, int ty, int level) {
+        int toLeft = 0, toRight = 0;
+        int l = neighbour(c, chunk, i, tx, ty, -1, 0);
+        if (l >= 0 && level - l >= 2) toLeft = (level - l + 1) / 3;
+        int r = neighbour(c, chunk, i, tx, ty, 1, 0);
+        if (r >= 0 && level - r >= 2) toRight = (level - r + 1) / 3;
+        if (toLeft > 0) move(c, i, tx, ty, -1, 0, toLeft);
+        if (toRight > 0) move(c, i, tx, ty, 1, 0, toRight);
+        if (toLeft + toRight > 0) add(c, i, -(toLeft + toRight));
+    }
+
+    // End of a pass: swap the written chunks, turn level changes into tile changes
+    // and wake what they affect for the next step
+    private void commit() {
+        int n = touched.size();
+        for (int i = 0; i < n; i++) {
+            Cells c = touched.get(i);
+            byte[] t = c.cur;
+            c.cur = c.next;
+            c.next = t;
+        }
+        for (int i = 0; i < n; i++) {
+            Cells c = touched.get(i);
+            home = c;
+            int baseX = c.cx << Chunk.SHIFT;
+            int baseY = c.cy << Chunk.SHIFT;
+            for (int w = 0; w < WORDS; w++) {
+                long bits = c.changed[w];
+                c.changed[w] = 0;
+                while (bits != 0) {
+                    int idx = (w << 6) | Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    int before = c.next[idx];
+                    int after = c.cur[idx];
+                    if (before == after) continue; // flows in and out cancelled
+                    int tx = baseX + (idx & Chunk.MASK);
+                    int ty = baseY + (idx >> Chunk.SHIFT);
+                    if ((before > 0) != (after > 0)) {
+                        applying = true;
+                        world.setTile(tx, ty, after > 0 ? BlockRegistry.WATER : BlockRegistry.AIR);
+                        applying = false;
+                    }
+                    if (after > 0) wake(c, idx);
+                    wakeNeighbour(c, idx, tx, ty, 0, -1);
+                    wakeNeighbour(c, idx, tx, ty, -1, 0);
+                    wakeNeighbour(c, idx, tx, ty, 1, 0);
+                }
+            }
+        }
+        touched.clear();
+    }
+
+    // Drop chunks with nothing left to do; forget them entirely once the tiles say
+    // everything (no partly filled cells)
+    private void sleep() {
+        int kept = 0;
+        for (int i = 0; i < awake.size(); i++) {
+            Cells c = awake.get(i);
+            if (any(c.active) || any(c.wake)) {
+                awake.set(kept++, c);
+                continue;
+            }
+            c.awake = false;
+            if (settled(c.cur)) {
+                cells.remove(Chunk.key(c.cx, c.cy));
+                int slot = ((c.cx << 4) + c.cy) & RECENT_MASK;
+                if (recent[slot] == c) recent[slot] = null;
+            }
+        }
+        for (int i = awake.size() - 1; i >= kept; i--) awake.remove(i);
+    }
+
+    // ---- cell access ----
+
+    private static int index(int tx, int ty) {
+        return ((ty & Chunk.MASK) << Chunk.SHIFT) | (tx & Chunk.MASK);
+    }
+
+    private boolean open(int tx, int ty) {
+        Cells c = find(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT);
+        return isOpen(c != null ? chunkOf(c).get(tx & Chunk.MASK, ty & Chunk.MASK) : chunks.tileAt(tx, ty));
+    }
+
+    private static boolean isOpen(int tile) {
+        return tile == BlockRegistry.AIR || tile == BlockRegistry.WATER;
+    }
+
+    private Chunk chunkOf(Cells c) {
+        if (c.chunkStep != steps) {
+            c.chunk = chunks.chunkAt(c.cx, c.cy);
+            c.chunkStep = steps;
+        }
+        return c.chunk;
+    }
+
+    private int level(int tx, int ty) {
+        Cells c = find(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT);
+        if (c != null) return c.cur[index(tx, ty)];
+        return chunks.tileAt(tx, ty) == BlockRegistry.WATER ? FULL : 0;
+    }
+
+    // Level of cell i's neighbour at (dx, dy), or -1 if the tile there is not open.
+    // Inside the chunk this is two array reads; across the edge it is a lookup.
+    private int neighbour(Cells c, Chunk chunk, int i, int tx, int ty, int dx, int dy) {
+        int lx = (i & Chunk.MASK) + dx;
+        int ly = (i >> Chunk.SHIFT) + dy;
+        if (((lx | ly) & ~Chunk.MASK) == 0) {
+            if (!isOpen(chunk.get(lx, ly))) return -1;
+            return c.cur[(ly << Chunk.SHIFT) | lx];
+        }
+        return open(tx + dx, ty + dy) ? level(tx + dx, ty + dy) : -1;
+    }
+
+    private void move(Cells c, int i, int tx, int ty, int dx, int dy, int amount) {
+        int lx = (i & Chunk.MASK) + dx;
+        int ly = (i >> Chunk.SHIFT) + dy;
+        if (((lx | ly) & ~Chunk.MASK) == 0) add(c, (ly << Chunk.SHIFT) | lx, amount);
+        else add(cellsFor((tx + dx) >> Chunk.SHIFT, (ty + dy) >> Chunk.SHIFT), index(tx + dx, ty + dy), amount);
+    }
+
+    private void add(Cells c, int i, int delta) {
+        if (c.stamp != pass) {
+            c.stamp = pass;
+            System.arraycopy(c.cur, 0, c.next, 0, Chunk.BYTES);
+            touched.add(c);
+        }
+        c.next[i] += delta;
+        c.changed[i >>> 6] |= 1L << i;
+    }
+
+    private void wakeNeighbour(Cells c, int i, int tx, int ty, int dx, int dy) {
+        int lx = (i & Chunk.MASK) + dx;
+        int ly = (i >> Chunk.SHIFT) + dy;
+        if (((lx | ly) & ~Chunk.MASK) == 0) {
+            int j = (ly << Chunk.SHIFT) | lx;
+            if (c.cur[j] > 0) wake(c, j);
+        } else {
+            wakeIfWet(tx + dx, ty + dy);
+        }
+    }
+
+    private void wakeIfWet(int tx, int ty) {
+        if (level(tx, ty) > 0) {
+            Cells c = cellsFor(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT);
+            wake(c, index(tx, ty));
+        }
+    }
+
+    private void wake(Cells c, int i) {
+        c.wake[i >>> 6] |= 1L << i;
+        if (!c.awake) {
+            c.awake = true;
+            awake.add(c);
+        }
+    }
+
+    private Cells find(int cx, int cy) {
+        Cells h = home;
+        if (h != null && h.cx == cx && h.cy == cy) return h;
+        int slot = ((cx << 4) + cy) & RECENT_MASK;
+        Cells c = recent[slot];
+        if (c != null && c.cx == cx && c.cy == cy) return c;
+        c = cells.get(Chunk.key(cx, cy));
+        if (c != null) recent[slot] = c;
+        return c;
+    }
+
+    // Levels start from the tiles: water is full, anything else empty
+    private Cells cellsFor(int cx, int cy) {
+        Cells c = find(cx, cy);
+        if (c != null) return c;
+        c = new Cells(cx, cy);
+        Chunk chunk = chunks.chunkAt(cx, cy);
+        for (int i = 0; i < Chunk.BYTES; i++) {
+            if (chunk.get(i & Chunk.MASK, i >> Chunk.SHIFT) == BlockRegistry.WATER) c.cur[i] = FULL;
+        }
+        cells.put(Chunk.key(cx, cy), c);
+        return c;
+    }
+
+    private static boolean any(long[] bits) {
+        for (long b : bits) if (b != 0) return true;
+        return false;
+    }
+
+    private static boolean settled(byte[] levels) {
+        for (byte l : levels) if (l != 0 && l != FULL) return false;
+        return true;
+    }
+
+    // Order-independent digest of the levels kept per chunk, for WorldSnapshot
+    long hash() {
+        long sum = 0;
+        for (Cells c : cells.values()) {
+            long h = WorldSnapshot.mix(0, Chunk.key(c.cx, c.cy));
+            for (int i = 0; i < Chunk.BYTES; i += 8) {
+                long word = 0;
+                for (int k = 0; k < 8; k++) word = (word << 8) | (c.cur[i + k] & 0xff);
+                h = WorldSnapshot.mix(h, word);
+            }
+            sum += h;
+        }
+        return WorldSnapshot.mix(sum, cells.size());
+    }
+}
@@ -0,0 +1,356 @@
+import static org.lwjgl.opengl.GL11.*;
+
+// Presentation for GameWorld: camera, world/UI drawing and inventory screen layout
+public class GameRenderer {
+    private static final int TILE_SIZE = GameWorld.TILE_SIZE;
+    private static final float MIN_ZOOM = 0.125f; // a tile is one pixel
+    private static final float MAX_ZOOM = 4f;
+    private static final float ZOOM_STEP = 1.25f; // per scroll wheel notch
+    // Below this many pixels per tile, chunks draw at a coarser level of detail, so
+    // the quads on screen stay about the same from zoom 1 down to MIN_ZOOM
+    private static final float LOD_MIN_BLOCK_PX = 8f;
+    private static final int MINIMAP_PX = 128; // corner map, one summary pixel per screen pixel
+    private static final int MINIMAP_TILES = MINIMAP_PX * ChunkSummaries.SCALE;
+    private static final int OVERVIEW_TILES = 512;
+    private final GameWorld world;
+    private final Player player;
+    private final Inventory inventory;
+    private final WorldRenderer worldRenderer;
+    private final Profiler profiler;
+    private final HudRenderer hud;
+    private final HudBatch overlay = new HudBatch(); // profiler overlay, rebuilt every frame it is shown
+    private final ChunkSummaries summaries;
+    private final MinimapRenderer minimap;
+    private ChunkTextureRenderer textureRenderer; // made on first use; null until then or if unsupported
+    private boolean tileTextures = false;
+    private float cameraX = 0f;
+    private float cameraY = 0f;
+    private float zoom = 2.0f; // world zoom ( >1.0 zooms in )
+    private boolean showInventory = false;
+    private boolean showProfiler = false;
+    private boolean showOverview = false;
+
+    public GameRenderer(GameWorld world) {
+        this.world = world;
+        this.player = world.getPlayer();
+        this.inventory = world.getInventory();
+        this.worldRenderer = new WorldRenderer(world.getChunks(), world.getLighting(), TILE_SIZE);
+        this.profiler = world.getProfiler();
+        this.hud = new HudRenderer(inventory, TILE_SIZE * 4);
+        this.summaries = new ChunkSummaries(world.getChunks());
+        this.minimap = new MinimapRenderer(summaries);
+        glLineWidth(2f); // the mining cracks have always been drawn at the UI's line width
+        world.addTileListener((tx, ty, oldTile, newTile) -> {
+            worldRenderer.markDirty(tx, ty);
+            if (textureRenderer != null) textureRenderer.markDirty(tx, ty);
+            summaries.tileChanged(tx, ty);
+        });
+        world.getLighting().setListener(worldRenderer::markChunkDirty);
+    }
+
+    // alpha in [0,1] blends the previous and current tick for smooth motion between steps
+    public void render(int width, int height, float alpha) {
+        glViewport(0, 0, width, height);
+
+        // World projection with zoom
+        float viewWorldWidth = width / zoom;
+        float viewWorldHeight = height / zoom;
+
+        float playerX = world.getPrevPlayerX() + (player.x - world.getPrevPlayerX()) * alpha;
+        float playerY = world.getPrevPlayerY() + (player.y - world.getPrevPlayerY()) * alpha;
+
+        // Camera centers on the player in world units
+        cameraX = (playerX + player.width * 0.5f) - (viewWorldWidth * 0.5f);
+        cameraY = (playerY + player.height * 0.5f) - (viewWorldHeight * 0.5f);
+        world.setViewSize(viewWorldWidth, viewWorldHeight);
+
+        glMatrixMode(GL_PROJECTION);
+        glLoadIdentity();
+        glOrtho(0, viewWorldWidth, viewWorldHeight, 0, -1, 1);
+
+        glMatrixMode(GL_MODELVIEW);
+        glLoadIdentity();
+
+        float[] sky = TileMeshBuilder.SKY;
+        glClearColor(sky[0], sky[1], sky[2], sky[3]);
+        glClear(GL_COLOR_BUFFER_BIT);
+
+        int startTileX = (int) Math.floor(cameraX / TILE_SIZE) - 1;
+        int endTileX = (int) Math.floor((cameraX + viewWorldWidth) / TILE_SIZE) + 1;
+        int startTileY = (int) Math.floor(cameraY / TILE_SIZE) - 1;
+        int endTileY = (int) Math.floor((cameraY + viewWorldHeight) / TILE_SIZE) + 1;
+        ChunkMap chunks = world.getChunks();
+        chunks.prefetch(startTileX >> Chunk.SHIFT, endTileX >> Chunk.SHIFT, startTileY >> Chunk.SHIFT, endTileY >> Chunk.SHIFT, player.velocityX);
+        if (tileTextures) {
+            profiler.count(Profiler.DRAW_CALLS, textureRenderer.render(cameraX, cameraY, startTileX, endTileX, startTileY, endTileY));
+        } else if (worldRenderer.render(cameraX, cameraY, startTileX, endTileX, startTileY, endTileY, lodLevel()) > 0) {
+            profiler.count(Profiler.DRAW_CALLS, 1);
+        }
+        profiler.count(Profiler.TILES, (long) (endTileX - startTileX + 1) * (endTileY - startTileY + 1));
+
+        // Draw breaking overlay
+        if (world.getMiningTx() != Integer.MIN_VALUE) {
+            float px = world.getMiningTx() * TILE_SIZE - cameraX;
+            float py = world.getMiningTy() * TILE_SIZE - cameraY;
+            float p = Math.max(0f, Math.min(1f, world.getMiningProgress()));
+            // simple cracks: draw concentric lines increasing with progress
+            glColor3f(1f, 1f - p, 1f - p);
+            begin(GL_LINE_LOOP);
+            glVertex2f(px + 1, py + 1);
+            glVertex2f(px + TILE_SIZE - 1, py + 1);
+            glVertex2f(px + TILE_SIZE - 1, py + TILE_SIZE - 1);
+            glVertex2f(px + 1, py + TILE_SIZE - 1);
+            glEnd();
+            if (p > 0.33f) {
+                begin(GL_LINES);
+                glVertex2f(px + 2, py + 2); glVertex2f(px + TILE_SIZE - 2, py + TILE_SIZE - 2);
+                glVertex2f(px + TILE_SIZE - 2, py + 2); glVertex2f(px + 2, py + TILE_SIZE - 2);
+                glEnd();
+            }
+            if (p > 0.66f) {
+                begin(GL_LINES);
+                glVertex2f(px + TILE_SIZE / 2f, py + 2); glVertex2f(px + TILE_SIZE / 2f, py + TILE_SIZE - 2);
+                glVertex2f(px + 2, py + TILE_SIZE / 2f); glVertex2f(px + TILE_SIZE - 2, py + TILE_SIZE / 2f);
+                glEnd();
+            }
+        }
+
+        // Draw player
+        glColor3f(1.0f, 1.0f, 0.2f);
+        begin(GL_QUADS);
+        glVertex2f(playerX - cameraX, playerY - cameraY);
+        glVertex2f(playerX + player.width - cameraX, playerY - cameraY);
+        glVertex2f(playerX + player.width - cameraX, playerY + player.height - cameraY);
+        glVertex2f(playerX - cameraX, playerY + player.height - cameraY);
+        glEnd();
+
+        // Render drops in world space
+        renderDropsWorld();
+
+        // Switch to screen-space projection for UI so it doesn't get zoomed
+        glMatrixMode(GL_PROJECTION);
+        glLoadIdentity();
+        glOrtho(0, width, height, 0, -1, 1);
+        glMatrixMode(GL_MODELVIEW);
+        glLoadIdentity();
+
+        // UI: hotbar (screen space)
+        profiler.count(Profiler.DRAW_CALLS, hud.drawHotbar(width, height));
+        float centerTileX = (playerX + player.width * 0.5f) / TILE_SIZE;
+        float centerTileY = (playerY + player.height * 0.5f) / TILE_SIZE;
+        if (showOverview) {
+            int size = Math.min(width, height) - 64;
+            profiler.count(Profiler.DRAW_CALLS, minimap.draw((width - size) / 2f, (height - size) / 2f, size, centerTileX, centerTileY, OVERVIEW_TILES));
+        } else {
+            profiler.count(Profiler.DRAW_CALLS, minimap.draw(width - MINIMAP_PX - 8, 8, MINIMAP_PX, centerTileX, centerTileY, MINIMAP_TILES));
+        }
+        if (showProfiler) drawProfiler();
+    }
+    
+    // Positive notches zoom in
+    public void zoomBy(double notches) {
+        zoom = (float) Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * Math.pow(ZOOM_STEP, notches)));
+    }
+
+    // Each level halves the tiles per side; see TileMeshBuilder
+    private int lodLevel() {
+        int level = 0;
+        while (level < TileMeshBuilder.LOD_LEVELS - 1 && TILE_SIZE * zoom * (1 << level) < LOD_MIN_BLOCK_PX) level++;
+        return level;
+    }
+
+    public float screenToWorldX(double mouseX) {
+        return (float) mouseX / zoom + cameraX;
+    }
+
+    public float screenToWorldY(double mouseY) {
+        return (float) mouseY / zoom + cameraY;
+    }
+
+    public void dispose() {
+        worldRenderer.dispose();
+        if (textureRenderer != null) textureRenderer.dispose();
+        hud.dispose();
+        overlay.dispose();
+        minimap.dispose();
+    }
+
+    // Switches between per-tile quads and per-chunk id textures; stays on quads if the
+    // palette shader cannot be built on this GL. The texture mode ignores lighting
+    // (see ChunkTextureRenderer), so the two views differ wherever it is not full light.
+    public void toggleTileTextures() {
+        if (!tileTextures && textureRenderer == null) {
+            try {
+                textureRenderer = new ChunkTextureRenderer(world.getChunks(), TILE_SIZE);
+            } catch (IllegalStateException e) {
+                System.err.println("Tile texture mode unavailable: " + e.getMessage());
+                return;
+            }
+        }
+        tileTextures = !tileTextures;
+    }
+
+    public void toggleInventory() {
+        showInventory = !showInventory;
+    }
+    
+    public boolean isInventoryOpen() {
+        return showInventory;
+    }
+
+    public void toggleProfiler() {
+        showProfiler = !showProfiler;
+    }
+
+    // Swaps the corner minimap for a large map of the OVERVIEW_TILES around the player
+    public void toggleOverview() {
+        showOverview = !showOverview;
+    }
+    
+    // Maps a click on the inventory screen to an InputState.inventoryClick value;
+    // the world applies it on its next tick
+    public int inventoryClickAt(double mouseX, double mouseY, int screenWidth, int screenHeight) {
+        if (!showInventory) return InputState.NO_CLICK;
+        
+        int slotSize = TILE_SIZE * 4;
+        int padding = 4;
+        
+        // Main inventory (3x9 grid)
+        int cols = 9;
+        int rows = 3;
+        int gridW = cols * (slotSize + padding) - padding;
+        int gridH = rows * (slotSize + padding) - padding;
+        int invStartX = (screenWidth - gridW) / 2;
+        int invStartY = (screenHeight - gridH) / 2 + 60; // Offset down for crafting area
+        
+        // Check main inventory clicks
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int x = invStartX + c * (slotSize + padding);
+                int y = invStartY + r * (slotSize + padding);
+                
+                if (mouseX >= x && mouseX < x + slotSize && mouseY >= y && mouseY < y + slotSize) {
+                    return 9 + (r * cols + c); // Offset by hotbar size
+                }
+            }
+        }
+        
+        // Check hotbar clicks (shown at bottom of inventory)
+        int hotbarY = invStartY + gridH + 20;
+        int hotbarStartX = invStartX;
+        for (int i = 0; i < 9; i++) {
+            int x = hotbarStartX + i * (slotSize + padding);
+            if (mouseX >= x && mouseX < x + slotSize && mouseY >= hotbarY && mouseY < hotbarY + slotSize) {
+                return i;
+            }
+        }
+        
+        // Check crafting grid clicks (n x n grid above the bag; see HudRenderer.buildInventory)
+        int n = inventory.getCraftingGrid().getSize();
+        int craftingH = n * (slotSize + padding) - padding;
+        int craftingStartX = invStartX;
+        int craftingStartY = invStartY - 16 - craftingH;
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                int x = craftingStartX + c * (slotSize + padding);
+                int y = craftingStartY + r * (slotSize + padding);
+                
+                if (mouseX >= x && mouseX < x + slotSize && mouseY >= y && mouseY < y + slotSize) {
+                    return InputState.CLICK_CRAFTING + r * n + c;
+                }
+            }
+        }
+        
+        // Check crafting result click
+        int resultX = craftingStartX + craftingH + 24;
+        int resultY = craftingStartY + (craftingH - slotSize) / 2;
+        if (mouseX >= resultX && mouseX < resultX + slotSize && mouseY >= resultY && mouseY < resultY + slotSize) {
+            return InputState.CLICK_RESULT;
+        }
+        return InputState.NO_CLICK;
+    }
+
+    // Immediate-mode draws go through here so the profiler can count them
+    private void begin(int mode) {
+        profiler.count(Profiler.DRAW_CALLS, 1);
+        glBegin(mode);
+    }
+
+    private static final float[][] PROFILER_COLORS = {
+        {0.6f, 0.6f, 0.6f}, // input
+        {0.2f, 0.8f, 0.2f}, // update
+        {0.9f, 0.8f, 0.2f}, // updateDrops
+        {0.9f, 0.4f, 0.1f}, // handleMining
+        {0.3f, 0.5f, 1.0f}, // render
+        {0.7f, 0.3f, 0.9f}, // renderFullInventory
+        {0.9f, 0.2f, 0.2f}, // swap
+        {0.2f, 0.8f, 0.9f}, // fluids
+        {1.0f, 0.9f, 0.6f}  // light
+    };
+
+    // Frame-time graph (one column per frame, sections stacked, 60 fps line at 100px)
+    // and p50/p99/max per metric; times in microseconds. Reads only the ring, so the
+    // overlay itself shows up in the next frame's render time.
+    private void drawProfiler() {
+        HudBatch o = overlay;
+        o.clear();
+        int x0 = 8, graphTop = 8, graphH = 100;
+        int n = (int) Math.min(profiler.frames() - profiler.oldestFrame(), 256);
+        float pxPerNs = graphH / 16_666_667f;
+        o.color(0f, 0f, 0f, 0.6f);
+        o.quad(x0, graphTop, 256, graphH + 8 * Profiler.SECTIONS + 4);
+        long newest = profiler.frames() - 1;
+        for (int i = 0; i < n; i++) {
+            long f = newest - (n - 1 - i);
+            float bottom = graphTop + graphH;
+            for (int sct = 0; sct < Profiler.SECTIONS; sct++) {
+                float h = Math.min(profiler.get(f, sct) * pxPerNs, bottom - graphTop);
+                if (h <= 0f) continue;
+                o.color(PROFILER_COLORS[sct]);
+                o.quad(x0 + i, bottom - h, 1, h);
+                bottom -= h;
+            }
+        }
+        o.color(1f, 1f, 1f);
+        o.quad(x0, graphTop, 256, 1);
+
+        // One row per metric: swatch, then p50 p99 max
+        int y = graphTop + graphH + 4;
+        for (int m = 0; m < Profiler.METRICS; m++) {
+            boolean timed = m < Profiler.SECTIONS;
+            if (timed) o.color(PROFILER_COLORS[m]); else o.color(1f, 1f, 1f);
+            if (m == Profiler.DRAW_CALLS) y = graphTop + graphH + 4; // counters get a second column
+            int x = timed ? x0 + 2 : x0 + 140;
+            o.quad(x, y + 1, 4, 4);
+            long div = timed ? 1000L : 1L;
+            o.color(1f, 1f, 1f);
+            o.number(profiler.percentile(m, 0.5) / div, x + 8, y, 1);
+            o.number(profiler.percentile(m, 0.99) / div, x + 40, y, 1);
+            o.number(profiler.max(m) / div, x + 72, y, 1);
+            y += 8;
+        }
+        profiler.count(Profiler.DRAW_CALLS, o.draw());
+    }
+
+    private void renderDropsWorld() {
+        DropStore drops = world.getDrops();
+        float s = TILE_SIZE * 0.8f;
+        begin(GL_QUADS);
+        for (int i = 0; i < drops.size(); i++) {
+            float sx = drops.getX(i) - cameraX - TILE_SIZE * 0.4f;
+            float sy = drops.getY(i) - cameraY - TILE_SIZE * 0.4f;
+            float[] c = BlockRegistry.color(drops.getTileId(i));
+            glColor3f(c[0], c[1], c[2]);
+            glVertex2f(sx, sy);
+            glVertex2f(sx + s, sy);
+            glVertex2f(sx + s, sy + s);
+            glVertex2f(sx, sy + s);
+        }
+        glEnd();
+    }
+
+    public void renderFullInventory(int width, int height) {
+        if (!showInventory) return;
+        profiler.count(Profiler.DRAW_CALLS, hud.drawInventory(width, height));
+    }
+}
@@ -1,31 +1,74 @@
-import static org.lwjgl.opengl.GL11.*;
-
+// Simulation state and rules: terrain, physics, mining, drops. No GL here;
+// GameRenderer draws it and HeadlessMain runs it without a window.
 public class GameWorld {
-    private final int TILE_SIZE = 8;
+    public interface TileListener {
+        void tileChanged(int tx, int ty, int oldTile, int newTile);
+    }
+
+    public static final int TILE_SIZE = 8;
+    public static final float TICK_DT = 1f / 60f; // fixed simulation step
+    private static final float DROP_SIZE = 1f; // px; a landed drop sits 1px above the tile, as before
+    private static final float DROP_REST_SPEED = 0.5f; // px/s; slower landed drops stop simulating
+    // Chunk streaming keeps a box of chunks around the player. The load box is the view
+    // plus STREAM_MARGIN and is requested ahead of need; chunks are only unloaded beyond
+    // a box STREAM_HYSTERESIS larger, so pacing over a chunk border reloads nothing.
+    private static final int STREAM_MARGIN = 1;
+    private static final int STREAM_HYSTERESIS = 2;
     private Player player;
     private long seed;
-    private float cameraX = 0f;
-    private final int SEA_LEVEL = 30; // tile Y for water filling
+    private final TerrainGenerator generator;
+    private final ChunkMap chunks;
+    private final TileCollider collider;
     private final Inventory inventory = new Inventory(9);
-    private float zoom = 2.0f; // world zoom ( >1.0 zooms in )
+    private final java.util.ArrayList<TileListener> tileListeners = new java.util.ArrayList<>();
+    // Player position before the last tick, for render interpolation
+    private float prevPlayerX;
+    private float prevPlayerY;
+    private long tickCount;
     // Mining state
-    private java.util.HashMap<Long, Integer> overrides = new java.util.HashMap<>(); // key=(tx<<32)|ty -> tile id
-    private java.util.ArrayList<Drop> drops = new java.util.ArrayList<>();
+    // Edit log; the live tile data is written into chunks, this keeps what differs from the generator
+    private final LongByteHashMap overrides = new LongByteHashMap(1024); // key=(tx<<32)|ty -> tile id
+    // Generated tile under each override, so an edit can tell whether it undoes one
+    // without running the generator; a tile with no override still holds its generated value
+    private final LongByteHashMap originals = new LongByteHashMap(1024);
+    private final DropStore drops;
+    private final DropStore.Visitor dropCollector = this::collectDrop;
+    private final FluidSim fluids;
+    private final Lighting lighting;
+    private final Profiler profiler = new Profiler(); // the caller ends frames; a tick only adds to one
     // reserved for future rate limiting
     // private long lastMineNs = 0L;
     // private long mineCooldownNs = 150_000_000L; // 150ms
     private int miningTx = Integer.MIN_VALUE;
     private int miningTy = Integer.MIN_VALUE;
     private float miningProgress = 0f; // 0..1
+    private int viewChunksX, viewChunksY; // half-extents of the view in chunks
+    private int streamCx, streamCy; // player chunk at the last streaming pass
+    private boolean streamValid;
     // private float miningSpeed = 1.0f; // scaled by tool
-    private boolean showInventory = false;
 
     public GameWorld(int width, int height, long seed) {
+        this(width, height, seed, true);
+    }
+
+    // backgroundGeneration=false keeps every chunk on the calling thread (headless runs)
+    public GameWorld(int width, int height, long seed, boolean backgroundGeneration) {
         this.seed = seed;
+        this.generator = new TerrainGenerator(seed);
+        this.drops = new DropStore(seed);
+        this.chunks = backgroundGeneration
+            ? new ChunkMap(generator, new ChunkGenService(seed, ChunkGenService.defaultThreads()))
+            : new ChunkMap(generator);
+        this.collider = new TileCollider(chunks, TILE_SIZE);
+        this.fluids = new FluidSim(this, chunks);
+        this.lighting = new Lighting(chunks, generator);
         int spawnTileX = width / TILE_SIZE / 2;
-        int spawnY = (groundTileY(spawnTileX) - 1) * TILE_SIZE - (int)(2.0f * TILE_SIZE);
+        int spawnY = (generator.groundTileY(spawnTileX) - 1) * TILE_SIZE - (int)(2.0f * TILE_SIZE);
         if (spawnY < 0) spawnY = 0;
         player = new Player(spawnTileX * TILE_SIZE, spawnY, TILE_SIZE * 0.9f, TILE_SIZE * 1.8f);
+        prevPlayerX = player.x;
+        prevPlayerY = player.y;
+        setViewSize(width, height);
 
         // Seed starter tools
         inventory.set(0, new Item("Wood Pickaxe", ToolType.PICKAXE));
@@ -37,131 +80,101 @@ public class GameWorld {
         inventory.setSelectedIndex(index);
     }
 
-    // Deterministic pseudo-random based on index and seed
-    private float rand01(long s, int i) {
-        long x = s ^ (i * 0x9E3779B97F4A7C15L);
-        x ^= (x >>> 30);
-        x *= 0xBF58476D1CE4E5B9L;
-        x ^= (x >>> 27);
-        x *= 0x94D049BB133111EBL;
-        x ^= (x >>> 31);
-        // Convert to [0,1)
-        return ((x >>> 11) & 0xFFFFFFFFFFFFFL) / (float)(1L << 53);
+    public Player getPlayer() { return player; }
+    public Inventory getInventory() { return inventory; }
+
+    // Inventory screen clicks come in as tick input so recordings replay them
+    private void clickInventory(int click) {
+        if (click == InputState.CLICK_RESULT) inventory.handleCraftingResultClick();
+        else if (click >= InputState.CLICK_CRAFTING) inventory.handleCraftingSlotClick(click - InputState.CLICK_CRAFTING);
+        else inventory.handleSlotClick(click);
+    }
+    public ChunkMap getChunks() { return chunks; }
+    public TerrainGenerator getGenerator() { return generator; }
+    public DropStore getDrops() { return drops; }
+    public long getSeed() { return seed; }
+    public long getTickCount() { return tickCount; }
+    public Profiler getProfiler() { return profiler; }
+    public FluidSim getFluids() { return fluids; }
+    public Lighting getLighting() { return lighting; }
+    TileCollider getCollider() { return collider; }
+    public float getPrevPlayerX() { return prevPlayerX; }
+    public float getPrevPlayerY() { return prevPlayerY; }
+    public int getMiningTx() { return miningTx; }
+    public int getMiningTy() { return miningTy; }
+    public float getMiningProgress() { return miningProgress; }
+
+    // Call after moving the player directly (e.g. loading a save) so rendering does not lerp from the old spot
+    public void resetInterpolation() {
+        prevPlayerX = player.x;
+        prevPlayerY = player.y;
     }
 
-    // Height of ground in tile coords at a given tile X
-    private int groundTileY(int tileX) {
-        // Base band around midline
-        float base = 10f; // nominal sky tiles above 0; actual screen height provided at render
-        int step = 8; // distance between control points
-        int i0 = (int) Math.floor(tileX / (float) step);
-        int i1 = i0 + 1;
-        float t = (tileX / (float) step) - i0;
-        float f = t * t * (3f - 2f * t);
-        float h0 = base + 10f + (rand01(seed, i0) - 0.5f) * 6f;
-        float h1 = base + 10f + (rand01(seed, i1) - 0.5f) * 6f;
-        float h = h0 + (h1 - h0) * f;
-        // Add a finer octave
-        int step2 = 4;
-        int j0 = (int) Math.floor(tileX / (float) step2);
-        int j1 = j0 + 1;
-        float t2 = (tileX / (float) step2) - j0;
-        float f2 = t2 * t2 * (3f - 2f * t2);
-        float n0 = (rand01(seed + 1337, j0) - 0.5f) * 2f;
-        float n1 = (rand01(seed + 1337, j1) - 0.5f) * 2f;
-        h += n0 + (n1 - n0) * f2;
-        return Math.max(1, Math.round(h));
+    // Every edited tile as (key = (tx << 32) | ty, tile id), in no particular order
+    public void forEachOverride(LongByteHashMap.Visitor visitor) {
+        overrides.forEach(visitor);
     }
 
-    // 2D value noise for caves
-    private float noise2D(float x, float y, float scale, long salt) {
-        float sx = x * scale;
-        float sy = y * scale;
-        int x0 = (int) Math.floor(sx);
-        int y0 = (int) Math.floor(sy);
-        int x1 = x0 + 1;
-        int y1 = y0 + 1;
-        float tx = sx - x0;
-        float ty = sy - y0;
-        float fx = tx * tx * (3f - 2f * tx);
-        float fy = ty * ty * (3f - 2f * ty);
-        float v00 = rand01(seed + salt, (x0 * 7349) ^ (y0 * 9157));
-        float v10 = rand01(seed + salt, (x1 * 7349) ^ (y0 * 9157));
-        float v01 = rand01(seed + salt, (x0 * 7349) ^ (y1 * 9157));
-        float v11 = rand01(seed + salt, (x1 * 7349) ^ (y1 * 9157));
-        float ix0 = v00 + (v10 - v00) * fx;
-        float ix1 = v01 + (v11 - v01) * fx;
-        return ix0 + (ix1 - ix0) * fy;
+    // View size in world pixels, so the streamed box covers what is on screen
+    public void setViewSize(float worldWidth, float worldHeight) {
+        int rx = (int) Math.ceil(worldWidth * 0.5f / (TILE_SIZE * Chunk.SIZE));
+        int ry = (int) Math.ceil(worldHeight * 0.5f / (TILE_SIZE * Chunk.SIZE));
+        if (rx == viewChunksX && ry == viewChunksY) return;
+        viewChunksX = rx;
+        viewChunksY = ry;
+        streamValid = false;
     }
 
-    private boolean treeSpawnAt(int tx) {
-        return rand01(seed + 7777L, tx) < 0.07f;
+    public void addTileListener(TileListener listener) {
+        tileListeners.add(listener);
     }
 
-    private int treeHeightAt(int tx) {
-        return 3 + (int) (rand01(seed + 991L, tx) * 4f);
+    public int tileAt(int tx, int ty) {
+        return resolvedTileAt(tx, ty);
     }
 
-    private boolean isTreeTrunkAt(int tx, int ty) {
-        if (!treeSpawnAt(tx)) return false;
-        int surface = groundTileY(tx) - 1;
-        int h = treeHeightAt(tx);
-        return ty <= surface && ty >= surface - (h - 1);
+    public void dispose() {
+        chunks.dispose();
     }
 
-    private boolean isLeafAt(int tx, int ty) {
-        if (!treeSpawnAt(tx)) return false;
-        int surface = groundTileY(tx) - 1;
-        int h = treeHeightAt(tx);
-        int topY = surface - (h - 1);
-        int dy = ty - (topY - 1);
-        int radius = 2;
-        // diamond-ish canopy
-        return dy >= -radius && dy <= radius && Math.abs(tx - tx) <= radius && ty < surface + 1 && ty <= surface + 1 && ty <= topY + radius && ty >= topY - radius && (Math.abs(ty - topY) + 0) <= radius;
+    private int resolvedTileAt(int tx, int ty) {
+        return chunks.tileAt(tx, ty);
     }
 
-    // Tile definition: 0 air, 1 dirt, 2 water, 3 trunk, 4 leaves, 5 grass, 6 stone
-    private int tileAt(int tx, int ty) {
-        int ground = groundTileY(tx);
-        // Trees (above ground)
-        if (isTreeTrunkAt(tx, ty)) return 3;
-        if (isLeafAt(tx, ty)) return 4;
-
-        if (ty >= ground) {
-            int depth = ty - ground;
-            // Guarantee top 3 layers: grass then 2 dirt layers (no caves)
-            if (depth == 0) return 5; // grass
-            if (depth == 1 || depth == 2) return 1; // dirt
-
-            // Base material: stone becomes common deeper underground
-            // Large stone blobs using low-frequency noise
-            float stoneBlob = 0.7f * noise2D(tx, ty, 0.06f, 555) + 0.3f * noise2D(tx, ty, 0.10f, 556);
-            boolean deep = depth > 10 || ty > SEA_LEVEL + 8;
-            boolean isStone = deep && stoneBlob > 0.55f;
-
-            // Deeper layers can have caves (smaller, sparser) carving out both dirt and stone
-            float cave = 0.6f * noise2D(tx, ty, 0.20f, 101) + 0.4f * noise2D(tx, ty, 0.40f, 202);
-            if (cave < 0.18f) return 0; // cave air
-
-            return isStone ? 6 : 1;
-        } else {
-            // Above ground: water at and below sea level
-            if (ty >= SEA_LEVEL) return 2;
-            return 0;
-        }
+    private static long tileKey(int tx, int ty) {
+        return (((long) tx) << 32) ^ (ty & 0xffffffffL);
     }
 
-    // kept for reference; use isSolidResolved so mined tiles become non-solid
-    // private boolean isSolidTile(int tx, int ty) {
-    //     int t = tileAt(tx, ty);
-    //     return t == 1 || t == 3 || t == 5 || t == 6; // dirt, trunk, grass, stone
-    // }
+    // Loading a save: (tx, ty) was saved as tileId where the generator puts original.
+    // Only fills the edit log; the chunk itself is read from the store when needed
+    void restoreOverride(int tx, int ty, int tileId, int original) {
+        long key = tileKey(tx, ty);
+        overrides.put(key, (byte) tileId);
+        originals.put(key, (byte) original);
+    }
 
-    private int resolvedTileAt(int tx, int ty) {
-        long key = (((long) tx) << 32) ^ (ty & 0xffffffffL);
-        Integer v = overrides.get(key);
-        if (v != null) return v;
-        return tileAt(tx, ty);
+    // Only tiles that differ from the generator stay in the edit log, so water flowing
+    // in and back out of a tile leaves nothing behind
+    public void setTile(int tx, int ty, int tileId) {
+        int old = resolvedTileAt(tx, ty);
+        long key = tileKey(tx, ty);
+        int original = originals.get(key, old) & BlockRegistry.MAX_ID; // bytes come back signed
+        int editDelta = 0;
+        if ((tileId & BlockRegistry.MAX_ID) != original) {
+            if (!overrides.containsKey(key)) {
+                originals.put(key, (byte) old);
+                editDelta = 1;
+            }
+            overrides.put(key, (byte) tileId);
+        } else if (overrides.remove(key)) {
+            originals.remove(key);
+            editDelta = -1;
+        }
+        chunks.setTile(tx, ty, tileId, editDelta);
+        drops.tileChanged(tx, ty);
+        fluids.tileChanged(tx, ty, tileId);
+        lighting.tileChanged(tx, ty);
+        for (int i = 0; i < tileListeners.size(); i++) tileListeners.get(i).tileChanged(tx, ty, old, tileId);
     }
 
     public void update(float dt, boolean left, boolean right, boolean jump) {
@@ -182,81 +195,60 @@ public class GameWorld {
         player.velocityY += gravity * dt;
 
         // Horizontal move and collide
-        float nextX = player.x + player.velocityX * dt;
-        if (player.velocityX != 0f) {
-            float minX = Math.min(player.x, nextX);
-            float maxX = Math.max(player.x, nextX) + player.width - 0.001f;
-            int tileY0 = (int) Math.floor(player.y / TILE_SIZE);
-            int tileY1 = (int) Math.floor((player.y + player.height - 0.001f) / TILE_SIZE);
-            if (player.velocityX > 0) {
-                int tileX = (int) Math.floor(maxX / TILE_SIZE);
-                for (int ty = tileY0; ty <= tileY1; ty++) {
-                    if (isSolidResolved(tileX, ty)) {
-                        nextX = tileX * TILE_SIZE - player.width;
-                        player.velocityX = 0f;
-                        break;
-                    }
-                }
-            } else {
-                int tileX = (int) Math.floor(minX / TILE_SIZE);
-                for (int ty = tileY0; ty <= tileY1; ty++) {
-                    if (isSolidResolved(tileX, ty)) {
-                        nextX = (tileX + 1) * TILE_SIZE;
-                        player.velocityX = 0f;
-                        break;
-                    }
-                }
-            }
-        }
-        player.x = nextX;
+        player.x = collider.sweepX(player.x, player.y, player.width, player.height, player.velocityX * dt);
+        if (collider.hit) player.velocityX = 0f;
 
         // Vertical move and collide
-        float nextY = player.y + player.velocityY * dt;
-        player.onGround = false;
-        if (player.velocityY != 0f) {
-            float minY = Math.min(player.y, nextY);
-            float maxY = Math.max(player.y, nextY) + player.height - 0.001f;
-            int tileX0 = (int) Math.floor(player.x / TILE_SIZE);
-            int tileX1 = (int) Math.floor((player.x + player.width - 0.001f) / TILE_SIZE);
-            if (player.velocityY > 0) { // moving down
-                int tileY = (int) Math.floor(maxY / TILE_SIZE);
-                for (int tx = tileX0; tx <= tileX1; tx++) {
-                    if (isSolidResolved(tx, tileY)) {
-                        nextY = tileY * TILE_SIZE - player.height;
-                        player.velocityY = 0f;
-                        player.onGround = true;
-                        break;
-                    }
-                }
-            } else { // moving up
-                int tileY = (int) Math.floor(minY / TILE_SIZE);
-                for (int tx = tileX0; tx <= tileX1; tx++) {
-                    if (isSolidResolved(tx, tileY)) {
-                        nextY = (tileY + 1) * TILE_SIZE;
-                        player.velocityY = 0f;
-                        break;
-                    }
-                }
-            }
-        }
-        player.y = nextY;
+        player.y = collider.sweepY(player.x, player.y, player.width, player.height, player.velocityY * dt);
+        player.onGround = collider.hit && player.velocityY > 0f;
+        if (collider.hit) player.velocityY = 0f;
 
         // Camera follows is handled in render with zoom
     }
 
-    public void updateWithInput(float dt, boolean left, boolean right, boolean jump,
-                                double mouseX, double mouseY, int screenW, int screenH, boolean mining, boolean placing) {
-        update(dt, left, right, jump);
+    // One fixed simulation step
+    public void tick(float dt, InputState in) {
+        prevPlayerX = player.x;
+        prevPlayerY = player.y;
+        chunks.drainReady();
+        if (in.hotbarSelect >= 0) setHotbarSelected(in.hotbarSelect);
+        if (in.inventoryClick != InputState.NO_CLICK) clickInventory(in.inventoryClick);
+        profiler.begin(Profiler.UPDATE);
+        update(dt, in.left, in.right, in.jump);
+        profiler.end(Profiler.UPDATE);
+        profiler.begin(Profiler.DROPS);
         updateDrops(dt);
-        handleMining(dt, mouseX, mouseY, screenW, screenH, mining);
-        handlePlacing(mouseX, mouseY, screenW, screenH, placing);
+        profiler.end(Profiler.DROPS);
+        profiler.begin(Profiler.MINING);
+        handleMining(dt, in.cursorWorldX, in.cursorWorldY, in.mining);
+        profiler.end(Profiler.MINING);
+        handlePlacing(in.cursorWorldX, in.cursorWorldY, in.placing);
+        profiler.begin(Profiler.FLUIDS);
+        fluids.step();
+        profiler.end(Profiler.FLUIDS);
+        profiler.begin(Profiler.LIGHT);
+        lighting.step();
+        profiler.end(Profiler.LIGHT);
+        int ptx = (int) Math.floor((player.x + player.width * 0.5f) / TILE_SIZE);
+        generator.getColumns().focus(ptx);
+        stream(ptx >> Chunk.SHIFT, (int) Math.floor((player.y + player.height * 0.5f) / TILE_SIZE) >> Chunk.SHIFT);
+        tickCount++;
     }
 
-    private void handleMining(float dt, double mouseX, double mouseY, int screenW, int screenH, boolean miningHeld) {
-        // Convert screen to world using zoom and cameraX
-        float worldX = (float) mouseX / zoom + cameraX;
-        float worldY = (float) mouseY / zoom;
+    // Runs when the player enters another chunk (or the view changes size); in between,
+    // chunks loaded on demand outside the box wait for the next pass
+    private void stream(int cx, int cy) {
+        if (streamValid && cx == streamCx && cy == streamCy) return;
+        streamValid = true;
+        streamCx = cx;
+        streamCy = cy;
+        int rx = viewChunksX + STREAM_MARGIN;
+        int ry = viewChunksY + STREAM_MARGIN;
+        chunks.prefetch(cx - rx, cx + rx, cy - ry, cy + ry, 0f); // no lead: the renderer prefetches ahead
+        if (chunks.unloadOutside(cx, cy, rx + STREAM_HYSTERESIS, ry + STREAM_HYSTERESIS) > 0) collider.clearCache();
+    }
 
+    private void handleMining(float dt, float worldX, float worldY, boolean miningHeld) {
         int tx = (int) Math.floor(worldX / TILE_SIZE);
         int ty = (int) Math.floor(worldY / TILE_SIZE);
 
@@ -269,9 +261,8 @@ public class GameWorld {
         boolean inRange = (dx * dx + dy * dy) <= range * range;
 
         int t = resolvedTileAt(tx, ty);
-        boolean targetable = !(t == 0 || t == 2 || t == 4);
 
-        if (!miningHeld || !inRange || !targetable) {
+        if (!miningHeld || !inRange || !BlockRegistry.isMineable(t)) {
             miningProgress = 0f;
             miningTx = Integer.MIN_VALUE;
             miningTy = Integer.MIN_VALUE;
@@ -281,15 +272,11 @@ public class GameWorld {
         // Tool gating and speed
         Item sel = inventory.getSelected();
         ToolType tool = sel == null ? ToolType.NONE : sel.toolType;
-        float speed = 1.0f;
-        if (t == 6) { // stone
-            if (tool != ToolType.PICKAXE) { miningProgress = 0f; return; }
-            speed = 1.0f;
-        } else if (t == 3) { // trunk
-            if (tool != ToolType.AXE) { miningProgress = 0f; return; }
-            speed = 1.2f;
-        } else if (t == 1 || t == 5) { // dirt/grass
-            if (tool == ToolType.SHOVEL) speed = 1.2f; else speed = 0.9f;
+        ToolType wanted = BlockRegistry.toolFor(t);
+        float speed = BlockRegistry.breakSpeed(t);
+        if (tool != wanted && wanted != ToolType.NONE) {
+            if (BlockRegistry.needsTool(t)) { miningProgress = 0f; return; }
+            speed *= BlockRegistry.WRONG_TOOL_SPEED;
         }
 
         // Track target tile; reset progress if changed
@@ -301,28 +288,21 @@ public class GameWorld {
 
         miningProgress += speed * dt; // seconds to break ~1s
         if (miningProgress >= 1.0f) {
-            long key = (((long) tx) << 32) ^ (ty & 0xffffffffL);
-            int brokenTile = t; // use resolved tile
-            overrides.put(key, 0);
-            // Spawn drop at tile center
-            float cx = tx * TILE_SIZE + TILE_SIZE * 0.5f;
-            float cy = ty * TILE_SIZE + TILE_SIZE * 0.5f;
-            // Map some tiles to drop ids (grass drops dirt)
-            int dropId = (brokenTile == 5) ? 1 : brokenTile;
-            drops.add(new Drop(cx, cy, dropId));
+            setTile(tx, ty, BlockRegistry.AIR);
+            // Spawn drop at tile center (grass drops dirt, see blocks.txt)
+            int dropId = BlockRegistry.dropOf(t);
+            if (dropId != 0) spawnDrop(tx * TILE_SIZE + TILE_SIZE * 0.5f, ty * TILE_SIZE + TILE_SIZE * 0.5f, dropId);
             miningProgress = 0f;
             miningTx = Integer.MIN_VALUE;
             miningTy = Integer.MIN_VALUE;
         }
     }
 
-    private void handlePlacing(double mouseX, double mouseY, int screenW, int screenH, boolean placingHeld) {
+    private void handlePlacing(float worldX, float worldY, boolean placingHeld) {
         if (!placingHeld) return;
         Item sel = inventory.getSelected();
         if (sel == null || !sel.isBlock()) return;
 
-        float worldX = (float) mouseX / zoom + cameraX;
-        float worldY = (float) mouseY / zoom;
         int tx = (int) Math.floor(worldX / TILE_SIZE);
         int ty = (int) Math.floor(worldY / TILE_SIZE);
 
@@ -339,614 +319,63 @@ public class GameWorld {
         if (overlapsPlayer) return;
 
         int current = resolvedTileAt(tx, ty);
-        if (current != 0 && current != 2) return; // place only in air/water
+        if (!BlockRegistry.isReplaceable(current)) return; // place only in air/water
 
-        long key = (((long) tx) << 32) ^ (ty & 0xffffffffL);
-        overrides.put(key, sel.blockId);
+        setTile(tx, ty, sel.blockId);
         inventory.consumeSelectedBlockOne();
     }
 
-    private boolean isSolidResolved(int tx, int ty) {
-        int t = resolvedTileAt(tx, ty);
-        return t == 1 || t == 3 || t == 5 || t == 6 || t == 7 || t == 8; // Added planks and bricks
-    }
 
-    public void render(int width, int height) {
-        glViewport(0, 0, width, height);
-
-        // World projection with zoom
-        float viewWorldWidth = width / zoom;
-        float viewWorldHeight = height / zoom;
-
-        // Camera centers on player horizontally in world units
-        cameraX = (player.x + player.width * 0.5f) - (viewWorldWidth * 0.5f);
-
-        glMatrixMode(GL_PROJECTION);
-        glLoadIdentity();
-        glOrtho(0, viewWorldWidth, viewWorldHeight, 0, -1, 1);
-
-        glMatrixMode(GL_MODELVIEW);
-        glLoadIdentity();
-
-        glClearColor(0.5f, 0.75f, 1.0f, 1.0f); // sky blue
-        glClear(GL_COLOR_BUFFER_BIT);
-
-        int startTileX = (int) Math.floor(cameraX / TILE_SIZE) - 1;
-        int endTileX = (int) Math.floor((cameraX + viewWorldWidth) / TILE_SIZE) + 1;
-        int startTileY = 0;
-        int endTileY = (int) Math.floor((viewWorldHeight) / TILE_SIZE) + 3;
-        for (int tx = startTileX; tx <= endTileX; tx++) {
-            for (int ty = startTileY; ty <= endTileY; ty++) {
-                int tile = resolvedTileAt(tx, ty);
-                if (tile == 0) continue;
-                float px = tx * TILE_SIZE - cameraX;
-                float py = ty * TILE_SIZE;
-                if (tile == 1) glColor3f(0.4f, 0.2f, 0.1f); // dirt
-                else if (tile == 2) glColor4f(0.2f, 0.5f, 0.9f, 0.8f); // water
-                else if (tile == 3) glColor3f(0.5f, 0.35f, 0.2f); // trunk
-                else if (tile == 4) glColor3f(0.2f, 0.8f, 0.2f); // leaves
-                else if (tile == 5) glColor3f(0.15f, 0.75f, 0.25f); // grass top
-                else if (tile == 6) glColor3f(0.55f, 0.55f, 0.6f); // stone
-                else if (tile == 7) glColor3f(0.6f, 0.4f, 0.2f); // wood planks
-                else if (tile == 8) glColor3f(0.7f, 0.7f, 0.75f); // stone bricks
-                glBegin(GL_QUADS);
-                glVertex2f(px, py);
-                glVertex2f(px + TILE_SIZE, py);
-                glVertex2f(px + TILE_SIZE, py + TILE_SIZE);
-                glVertex2f(px, py + TILE_SIZE);
-                glEnd();
-            }
-        }
-
-        // Draw breaking overlay
-        if (miningTx != Integer.MIN_VALUE) {
-            float px = miningTx * TILE_SIZE - cameraX;
-            float py = miningTy * TILE_SIZE;
-            float p = Math.max(0f, Math.min(1f, miningProgress));
-            // simple cracks: draw concentric lines increasing with progress
-            glColor3f(1f, 1f - p, 1f - p);
-            glBegin(GL_LINE_LOOP);
-            glVertex2f(px + 1, py + 1);
-            glVertex2f(px + TILE_SIZE - 1, py + 1);
-            glVertex2f(px + TILE_SIZE - 1, py + TILE_SIZE - 1);
-            glVertex2f(px + 1, py + TILE_SIZE - 1);
-            glEnd();
-            if (p > 0.33f) {
-                glBegin(GL_LINES);
-                glVertex2f(px + 2, py + 2); glVertex2f(px + TILE_SIZE - 2, py + TILE_SIZE - 2);
-                glVertex2f(px + TILE_SIZE - 2, py + 2); glVertex2f(px + 2, py + TILE_SIZE - 2);
-                glEnd();
-            }
-            if (p > 0.66f) {
-                glBegin(GL_LINES);
-                glVertex2f(px + TILE_SIZE / 2f, py + 2); glVertex2f(px + TILE_SIZE / 2f, py + TILE_SIZE - 2);
-                glVertex2f(px + 2, py + TILE_SIZE / 2f); glVertex2f(px + TILE_SIZE - 2, py + TILE_SIZE / 2f);
-                glEnd();
-            }
-        }
-
-        // Draw player
-        glColor3f(1.0f, 1.0f, 0.2f);
-        glBegin(GL_QUADS);
-        glVertex2f(player.x - cameraX, player.y);
-        glVertex2f(player.x + player.width - cameraX, player.y);
-        glVertex2f(player.x + player.width - cameraX, player.y + player.height);
-        glVertex2f(player.x - cameraX, player.y + player.height);
-        glEnd();
-
-        // Switch to screen-space projection for UI so it doesn't get zoomed
-        glMatrixMode(GL_PROJECTION);
-        glLoadIdentity();
-        glOrtho(0, width, height, 0, -1, 1);
-        glMatrixMode(GL_MODELVIEW);
-        glLoadIdentity();
-
-        // Render drops in world space
-        renderDropsWorld();
-
-        // UI: hotbar (screen space)
-        drawHotbar(width, height);
-    }
-    
-    public void toggleInventory() {
-        showInventory = !showInventory;
-    }
-    
-    public boolean isInventoryOpen() {
-        return showInventory;
-    }
-    
-    public void handleInventoryClick(double mouseX, double mouseY, int screenWidth, int screenHeight) {
-        if (!showInventory) return;
-        
-        int slotSize = TILE_SIZE * 4;
-        int padding = 4;
-        
-        // Main inventory (3x9 grid)
-        int cols = 9;
-        int rows = 3;
-        int gridW = cols * (slotSize + padding) - padding;
-        int gridH = rows * (slotSize + padding) - padding;
-        int invStartX = (screenWidth - gridW) / 2;
-        int invStartY = (screenHeight - gridH) / 2 + 60; // Offset down for crafting area
-        
-        // Check main inventory clicks
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                int x = invStartX + c * (slotSize + padding);
-                int y = invStartY + r * (slotSize + padding);
-                
-                if (mouseX >= x && mouseX < x + slotSize && mouseY >= y && mouseY < y + slotSize) {
-                    int slotIndex = 9 + (r * cols + c); // Offset by hotbar size
-                    inventory.handleSlotClick(slotIndex);
-                    return;
-                }
-            }
-        }
-        
-        // Check hotbar clicks (shown at bottom of inventory)
-        int hotbarY = invStartY + gridH + 20;
-        int hotbarStartX = invStartX;
-        for (int i = 0; i < 9; i++) {
-            int x = hotbarStartX + i * (slotSize + padding);
-            if (mouseX >= x && mouseX < x + slotSize && mouseY >= hotbarY && mouseY < hotbarY + slotSize) {
-                inventory.handleSlotClick(i);
-                return;
-            }
-        }
-        
-        // Check crafting grid clicks (2x2 grid)
-        int craftingStartX = invStartX - 120;
-        int craftingStartY = invStartY - 60;
-        for (int r = 0; r < 2; r++) {
-            for (int c = 0; c < 2; c++) {
-                int x = craftingStartX + c * (slotSize + padding);
-                int y = craftingStartY + r * (slotSize + padding);
-                
-                if (mouseX >= x && mouseX < x + slotSize && mouseY >= y && mouseY < y + slotSize) {
-                    int craftingSlot = r * 2 + c;
-                    inventory.handleCraftingSlotClick(craftingSlot);
-                    return;
-                }
-            }
-        }
-        
-        // Check crafting result click
-        int resultX = craftingStartX + 120;
-        int resultY = craftingStartY + slotSize / 2;
-        if (mouseX >= resultX && mouseX < resultX + slotSize && mouseY >= resultY && mouseY < resultY + slotSize) {
-            inventory.handleCraftingResultClick();
-        }
+    void spawnDrop(float x, float y, int tileId) {
+        drops.spawn(x, y, tileId);
     }
 
-    private void updateDrops(float dt) {
+    // package-private so Benchmarks can step drops on their own
+    void updateDrops(float dt) {
         float gravity = 55.0f * TILE_SIZE;
-        for (int i = 0; i < drops.size(); i++) {
-            Drop d = drops.get(i);
-            if (d.picked) continue;
-            d.vy += gravity * dt;
-            d.x += d.vx * dt;
-            d.y += d.vy * dt;
-            int tx = (int) Math.floor(d.x / TILE_SIZE);
-            int ty = (int) Math.floor((d.y) / TILE_SIZE);
-            if (isSolidResolved(tx, ty)) {
-                d.y = ty * TILE_SIZE - 1;
-                d.vy = 0;
-                d.vx *= 0.7f;
-            }
-            float px = player.x + player.width * 0.5f;
-            float py = player.y + player.height * 0.5f;
-            float dx = d.x - px;
-            float dy = d.y - py;
-            float r = 2.5f * TILE_SIZE;
-            if (dx * dx + dy * dy < r * r) {
-                d.picked = true;
-                // Add to inventory
-                if (d.tileId == 1) inventory.addBlock(1, "Dirt");
-                else if (d.tileId == 6) inventory.addBlock(6, "Stone");
-                else if (d.tileId == 3) inventory.addBlock(3, "Wood");
-                else if (d.tileId == 5) inventory.addBlock(1, "Dirt");
-            }
-        }
-        for (int i = drops.size() - 1; i >= 0; i--) if (drops.get(i).picked) drops.remove(i);
-    }
-
-    private void renderDropsWorld() {
-        for (int i = 0; i < drops.size(); i++) {
-            Drop d = drops.get(i);
-            if (d.picked) continue;
-            float sx = d.x - cameraX - TILE_SIZE * 0.4f;
-            float sy = d.y - TILE_SIZE * 0.4f;
-            if (d.tileId == 6) glColor3f(0.55f, 0.55f, 0.6f);
-            else if (d.tileId == 1) glColor3f(0.4f, 0.2f, 0.1f);
-            else glColor3f(0.8f, 0.8f, 0.8f);
-            float s = TILE_SIZE * 0.8f;
-            glBegin(GL_QUADS);
-            glVertex2f(sx, sy);
-            glVertex2f(sx + s, sy);
-            glVertex2f(sx + s, sy + s);
-            glVertex2f(sx, sy + s);
-            glEnd();
-        }
-    }
-
-    private void drawHotbar(int width, int height) {
-        int slotSize = TILE_SIZE * 4; // bigger UI
-        int padding = 4;
-        int totalWidth = inventory.size() * (slotSize + padding) - padding;
-        int startX = (width - totalWidth) / 2;
-        int y = height - slotSize - 8;
-
-        for (int i = 0; i < inventory.size(); i++) {
-            int x = startX + i * (slotSize + padding);
-            boolean selected = i == inventory.getSelectedIndex();
-            if (selected) glColor3f(1f, 1f, 1f); else glColor3f(0.8f, 0.8f, 0.8f);
-            glLineWidth(2f);
-            glBegin(GL_LINE_LOOP);
-            glVertex2f(x, y);
-            glVertex2f(x + slotSize, y);
-            glVertex2f(x + slotSize, y + slotSize);
-            glVertex2f(x, y + slotSize);
-            glEnd();
-
-            Item item = inventory.get(i);
-            if (item != null) {
-                int mx = x + slotSize / 4;
-                int my = y + slotSize / 4;
-                int mw = slotSize / 2;
-                int mh = slotSize / 2;
-                // Render textured-style icon: outline + fill of material color
-                if (item.isBlock()) {
-                    if (item.blockId == 1) glColor3f(0.4f, 0.2f, 0.1f);
-                    else if (item.blockId == 6) glColor3f(0.55f, 0.55f, 0.6f);
-                    else if (item.blockId == 3) glColor3f(0.5f, 0.35f, 0.2f);
-                    else glColor3f(0.8f, 0.8f, 0.8f);
-                    glBegin(GL_QUADS);
-                    glVertex2f(mx, my);
-                    glVertex2f(mx + mw, my);
-                    glVertex2f(mx + mw, my + mh);
-                    glVertex2f(mx, my + mh);
-                    glEnd();
-                    glColor3f(0, 0, 0);
-                    glBegin(GL_LINE_LOOP);
-                    glVertex2f(mx, my);
-                    glVertex2f(mx + mw, my);
-                    glVertex2f(mx + mw, my + mh);
-                    glVertex2f(mx, my + mh);
-                    glEnd();
-                    // draw count bottom-right
-                    if (item.count > 1) {
-                        int numX = x + slotSize - (3 * (slotSize / 12)) - 6;
-                        int numY = y + slotSize - (5 * (slotSize / 12)) - 6;
-                        int scale = Math.max(2, slotSize / 12);
-                        glColor3f(1f, 1f, 1f);
-                        drawNumber(item.count, numX, numY, scale);
-                    }
-                } else {
-                    if (item.toolType == ToolType.PICKAXE) glColor3f(0.8f, 0.7f, 0.2f);
-                    else if (item.toolType == ToolType.AXE) glColor3f(0.7f, 0.5f, 0.2f);
-                    else if (item.toolType == ToolType.SHOVEL) glColor3f(0.6f, 0.6f, 0.6f);
-                    else glColor3f(0.9f, 0.9f, 0.9f);
-                    glBegin(GL_QUADS);
-                    glVertex2f(mx, my);
-                    glVertex2f(mx + mw, my);
-                    glVertex2f(mx + mw, my + mh);
-                    glVertex2f(mx, my + mh);
-                    glEnd();
-                }
-            }
-        }
-    }
-
-    public void renderFullInventory(int width, int height) {
-        if (!showInventory) return;
-        
-        int slotSize = TILE_SIZE * 4;
-        int padding = 4;
-
-        // Large background panel
-        glColor4f(0f, 0f, 0f, 0.8f);
-        glBegin(GL_QUADS);
-        glVertex2f(50, 50);
-        glVertex2f(width - 50, 50);
-        glVertex2f(width - 50, height - 50);
-        glVertex2f(50, height - 50);
-        glEnd();
-
-        // Main inventory (3x9 grid)
-        int cols = 9;
-        int rows = 3;
-        int gridW = cols * (slotSize + padding) - padding;
-        int gridH = rows * (slotSize + padding) - padding;
-        int invStartX = (width - gridW) / 2;
-        int invStartY = (height - gridH) / 2 + 60;
-        
-        // Draw main inventory slots
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                int idx = r * cols + c;
-                int x = invStartX + c * (slotSize + padding);
-                int y = invStartY + r * (slotSize + padding);
-                
-                // Slot background
-                glColor3f(0.3f, 0.3f, 0.3f);
-                glBegin(GL_QUADS);
-                glVertex2f(x, y);
-                glVertex2f(x + slotSize, y);
-                glVertex2f(x + slotSize, y + slotSize);
-                glVertex2f(x, y + slotSize);
-                glEnd();
-                
-                // Slot border
-                glColor3f(0.9f, 0.9f, 0.9f);
-                glBegin(GL_LINE_LOOP);
-                glVertex2f(x, y);
-                glVertex2f(x + slotSize, y);
-                glVertex2f(x + slotSize, y + slotSize);
-                glVertex2f(x, y + slotSize);
-                glEnd();
-
-                // Draw item in slot
-                Item item = inventory.getBagItem(idx);
-                drawItemInSlot(item, x, y, slotSize);
-            }
-        }
-        
-        // Draw hotbar at bottom of inventory
-        int hotbarY = invStartY + gridH + 20;
-        for (int i = 0; i < 9; i++) {
-            int x = invStartX + i * (slotSize + padding);
-            
-            // Slot background
-            glColor3f(0.2f, 0.2f, 0.2f);
-            glBegin(GL_QUADS);
-            glVertex2f(x, hotbarY);
-            glVertex2f(x + slotSize, hotbarY);
-            glVertex2f(x + slotSize, hotbarY + slotSize);
-            glVertex2f(x, hotbarY + slotSize);
-            glEnd();
-            
-            // Slot border
-            boolean selected = i == inventory.getSelectedIndex();
-            if (selected) glColor3f(1f, 1f, 1f); else glColor3f(0.9f, 0.9f, 0.9f);
-            glBegin(GL_LINE_LOOP);
-            glVertex2f(x, hotbarY);
-            glVertex2f(x + slotSize, hotbarY);
-            glVertex2f(x + slotSize, hotbarY + slotSize);
-            glVertex2f(x, hotbarY + slotSize);
-            glEnd();
-            
-            // Draw item
-            Item item = inventory.get(i);
-            drawItemInSlot(item, x, hotbarY, slotSize);
-        }
-        
-        // Draw crafting grid (2x2)
-        int craftingStartX = invStartX - 120;
-        int craftingStartY = invStartY - 60;
-        CraftingGrid crafting = inventory.getCraftingGrid();
-        
-        for (int r = 0; r < 2; r++) {
-            for (int c = 0; c < 2; c++) {
-                int x = craftingStartX + c * (slotSize + padding);
-                int y = craftingStartY + r * (slotSize + padding);
-                
-                // Slot background
-                glColor3f(0.4f, 0.3f, 0.2f);
-                glBegin(GL_QUADS);
-                glVertex2f(x, y);
-                glVertex2f(x + slotSize, y);
-                glVertex2f(x + slotSize, y + slotSize);
-                glVertex2f(x, y + slotSize);
-                glEnd();
-                
-                // Slot border
-                glColor3f(0.8f, 0.6f, 0.4f);
-                glBegin(GL_LINE_LOOP);
-                glVertex2f(x, y);
-                glVertex2f(x + slotSize, y);
-                glVertex2f(x + slotSize, y + slotSize);
-                glVertex2f(x, y + slotSize);
-                glEnd();
-                
-                // Draw item
-                int craftingSlot = r * 2 + c;
-                Item item = crafting.get(craftingSlot);
-                drawItemInSlot(item, x, y, slotSize);
-            }
-        }
-        
-        // Draw crafting result slot
-        int resultX = craftingStartX + 120;
-        int resultY = craftingStartY + slotSize / 2;
-        
-        // Result slot background
-        glColor3f(0.2f, 0.4f, 0.2f);
-        glBegin(GL_QUADS);
-        glVertex2f(resultX, resultY);
-        glVertex2f(resultX + slotSize, resultY);
-        glVertex2f(resultX + slotSize, resultY + slotSize);
-        glVertex2f(resultX, resultY + slotSize);
-        glEnd();
-        
-        // Result slot border
-        Item result = crafting.getResult();
-        boolean canCraft = result != null && crafting.canCraft();
-        if (canCraft) glColor3f(0.4f, 0.8f, 0.4f); else glColor3f(0.8f, 0.8f, 0.8f);
-        glBegin(GL_LINE_LOOP);
-        glVertex2f(resultX, resultY);
-        glVertex2f(resultX + slotSize, resultY);
-        glVertex2f(resultX + slotSize, resultY + slotSize);
-        glVertex2f(resultX, resultY + slotSize);
-        glEnd();
-        
-        // Draw result item
-        if (canCraft) {
-            drawItemInSlot(result, resultX, resultY, slotSize);
-        }
-        
-        // Draw held item (follows mouse)
-        Item heldItem = inventory.getHeldItem();
-        if (heldItem != null) {
-            // Get mouse position (this is simplified - in a real implementation you'd pass mouse coords)
-            int mouseX = width / 2; // Placeholder
-            int mouseY = height / 2; // Placeholder
-            drawItemInSlot(heldItem, mouseX - slotSize/2, mouseY - slotSize/2, slotSize);
-        }
-    }
-    
-    private void drawItemInSlot(Item item, int x, int y, int slotSize) {
-        if (item == null) return;
-        
-        int mx = x + slotSize / 4;
-        int my = y + slotSize / 4;
-        int mw = slotSize / 2;
-        int mh = slotSize / 2;
-        
-        if (item.isBlock()) {
-            // Block colors
-            if (item.blockId == 1) glColor3f(0.4f, 0.2f, 0.1f); // dirt
-            else if (item.blockId == 6) glColor3f(0.55f, 0.55f, 0.6f); // stone
-            else if (item.blockId == 3) glColor3f(0.5f, 0.35f, 0.2f); // wood
-            else if (item.blockId == 7) glColor3f(0.6f, 0.4f, 0.2f); // wood planks
-            else if (item.blockId == 8) glColor3f(0.7f, 0.7f, 0.75f); // stone bricks
-            else glColor3f(0.8f, 0.8f, 0.8f);
-            
-            glBegin(GL_QUADS);
-            glVertex2f(mx, my);
-            glVertex2f(mx + mw, my);
-            glVertex2f(mx + mw, my + mh);
-            glVertex2f(mx, my + mh);
-            glEnd();
-            
-            glColor3f(0, 0, 0);
-            glBegin(GL_LINE_LOOP);
-            glVertex2f(mx, my);
-            glVertex2f(mx + mw, my);
-            glVertex2f(mx + mw, my + mh);
-            glVertex2f(mx, my + mh);
-            glEnd();
-            
-            // Draw count
-            if (item.count > 1) {
-                int scale = Math.max(2, slotSize / 12);
-                int numX = x + slotSize - (3 * scale) - 4;
-                int numY = y + slotSize - (5 * scale) - 4;
-                glColor3f(1f, 1f, 1f);
-                drawNumber(item.count, numX, numY, scale);
-            }
-        } else {
-            // Tool colors
-            if (item.toolType == ToolType.PICKAXE) glColor3f(0.8f, 0.7f, 0.2f);
-            else if (item.toolType == ToolType.AXE) glColor3f(0.7f, 0.5f, 0.2f);
-            else if (item.toolType == ToolType.SHOVEL) glColor3f(0.6f, 0.6f, 0.6f);
-            else glColor3f(0.9f, 0.9f, 0.9f);
-            
-            glBegin(GL_QUADS);
-            glVertex2f(mx, my);
-            glVertex2f(mx + mw, my);
-            glVertex2f(mx + mw, my + mh);
-            glVertex2f(mx, my + mh);
-            glEnd();
-        }
-    }
+        float px = player.x + player.width * 0.5f;
+        float py = player.y + player.height * 0.5f;
+        float r = 2.5f * TILE_SIZE;
+        float r2 = r * r;
+        DropStore d = drops;
+        TileCollider c = collider;
+        // Resting drops are skipped here; pickUpResting finds them by cell
+        for (int i = 0; i < d.size; i++) {
+            if (d.resting[i]) continue;
+            float vy = d.vy[i] + gravity * dt;
+            float vx = d.vx[i];
+            // Drops collide as a DROP_SIZE box whose top-left is the drop position; in open
+            // air, most ticks, clearMove says so without the full move()
+            float x = d.x[i] + vx * dt;
+            float y = d.y[i] + vy * dt;
+            boolean landed = false;
+            if (!c.clearMove(d.x[i], d.y[i], x, y)) {
+                c.move(d.x[i], d.y[i], DROP_SIZE, DROP_SIZE, vx * dt, vy * dt);
+                x = c.movedX;
+                y = c.movedY;
+                if (c.hitX) vx = 0;
+                landed = c.hitY && vy > 0;
+                if (c.hitY) vy = 0;
+                if (landed) vx *= 0.7f;
             }
-        }
-    }
-
-    // Minimal 3x5 bitmap digits (1 = filled)
-    private static final byte[][] DIGITS = new byte[][]{
-        // 0
-        {1,1,1,
-         1,0,1,
-         1,0,1,
-         1,0,1,
-         1,1,1},
-        // 1
-        {0,1,0,
-         1,1,0,
-         0,1,0,
-         0,1,0,
-         1,1,1},
-        // 2
-        {1,1,1,
-         0,0,1,
-         1,1,1,
-         1,0,0,
-         1,1,1},
-        // 3
-        {1,1,1,
-         0,0,1,
-         0,1,1,
-         0,0,1,
-         1,1,1},
-        // 4
-        {1,0,1,
-         1,0,1,
-         1,1,1,
-         0,0,1,
-         0,0,1},
-        // 5
-        {1,1,1,
-         1,0,0,
-         1,1,1,
-         0,0,1,
-         1,1,1},
-        // 6
-        {1,1,1,
-         1,0,0,
-         1,1,1,
-         1,0,1,
-         1,1,1},
-        // 7
-        {1,1,1,
-         0,0,1,
-         0,1,0,
-         0,1,0,
-         0,1,0},
-        // 8
-        {1,1,1,
-         1,0,1,
-         1,1,1,
-         1,0,1,
-         1,1,1},
-        // 9
-        {1,1,1,
-         1,0,1,
-         1,1,1,
-         0,0,1,
-         1,1,1}
-    };
-
-    private void drawDigit(int digit, int x, int y, int scale) {
-        if (digit < 0 || digit > 9) return;
-        byte[] m = DIGITS[digit];
-        int idx = 0;
-        for (int row = 0; row < 5; row++) {
-            for (int col = 0; col < 3; col++) {
-                if (m[idx++] == 1) {
-                    int px = x + col * scale;
-                    int py = y + row * scale;
-                    glBegin(GL_QUADS);
-                    glVertex2f(px, py);
-                    glVertex2f(px + scale, py);
-                    glVertex2f(px + scale, py + scale);
-                    glVertex2f(px, py + scale);
-                    glEnd();
-                }
+            d.x[i] = x;
+            d.y[i] = y;
+            d.vx[i] = vx;
+            d.vy[i] = vy;
+            float dx = x - px;
+            float dy = y - py;
+            if (dx * dx + dy * dy < r2) {
+                collectDrop(d.tileId[i], d.count[i]);
+                d.remove(i--); // the last drop moved into i; look at it next
+            } else if (landed && Math.abs(vx) < DROP_REST_SPEED) {
+                if (d.settle(i)) i--; // merged into a stack already resting there
             }
         }
+        d.pickUpResting(px, py, r, dropCollector);
     }
 
-    private void drawNumber(int num, int x, int y, int scale) {
-        String s = String.valueOf(num);
-        int cursor = x;
-        for (int i = 0; i < s.length(); i++) {
-            int d = s.charAt(i) - '0';
-            drawDigit(d, cursor, y, scale);
-            cursor += (3 * scale) + scale; // digit width + spacing
-        }
+    private void collectDrop(int tileId, int count) {
+        String name = BlockRegistry.nameOf(tileId);
+        for (int n = 0; n < count; n++) inventory.addBlock(tileId, name);
     }
-
 }
-
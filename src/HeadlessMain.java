@@ -0,0 +1,84 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Runs the simulation without a window or GL context, as fast as the CPU allows.
+//   java HeadlessMain [--seed N] [--ticks N] [--script file] [--once] [--profile out.csv]
+//                     [--replay in.rec] [--record out.rec]
+// --profile writes one CSV row of Profiler metrics per tick and prints percentiles.
+// --replay plays a recorded session (see InputRecorder) on a world with its seed,
+// until the recording or --ticks runs out; --record writes this run's input.
+public class HeadlessMain {
+    public static void main(String[] args) throws IOException {
+        long seed = 12345L;
+        long ticks = 36_000; // ten minutes of game time
+        String scriptPath = null;
+        boolean loop = true;
+        Path profilePath = null;
+        Path replayPath = null;
+        Path recordPath = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--ticks": ticks = Long.parseLong(args[++i]); break;
+                case "--script": scriptPath = args[++i]; break;
+                case "--once": loop = false; break;
+                case "--profile": profilePath = Path.of(args[++i]); break;
+                case "--replay": replayPath = Path.of(args[++i]); break;
+                case "--record": recordPath = Path.of(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        InputSource script;
+        if (replayPath != null) {
+            InputReplay replay = InputReplay.open(replayPath);
+            seed = replay.getSeed();
+            script = replay;
+        } else {
+            script = scriptPath == null ? InputScript.builtin() : InputScript.load(Path.of(scriptPath), loop);
+        }
+        GameWorld world = new GameWorld(800, 600, seed, false);
+        InputRecorder recorder = recordPath == null ? null : new InputRecorder(recordPath, seed);
+        InputState input = new InputState();
+
+        Profiler profiler = world.getProfiler();
+        Writer csv = profilePath == null ? null : Files.newBufferedWriter(profilePath);
+        if (csv != null) Profiler.writeCsvHeader(csv);
+        profiler.setTiming(csv != null);
+        long written = 0;
+
+        long start = System.nanoTime();
+        long n = 0;
+        while (n < ticks && script.next(world, input)) {
+            if (recorder != null) recorder.record(input);
+            world.tick(GameWorld.TICK_DT, input);
+            profiler.endFrame(); // a headless frame is one tick
+            n++;
+            // Flush well before the ring wraps; export time lands outside any section
+            if (csv != null && profiler.frames() - written >= Profiler.CAPACITY / 2) {
+                written = profiler.appendCsv(csv, written);
+            }
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        if (recorder != null) recorder.close();
+        if (csv != null) {
+            profiler.appendCsv(csv, written);
+            csv.close();
+        }
+
+        Player p = world.getPlayer();
+        System.out.printf("ticks=%d elapsed=%.3fs tps=%.0f%n", n, secs, n / secs);
+        System.out.printf("player=(%.1f, %.1f) chunks=%d drops=%d%n", p.x, p.y, world.getChunks().size(), world.getDrops().size());
+        System.out.printf("fluid cells visited=%d%n", world.getFluids().getVisited());
+        if (csv != null) {
+            // Percentiles cover the last Profiler.CAPACITY ticks; the CSV has all of them
+            for (int m : new int[]{Profiler.UPDATE, Profiler.DROPS, Profiler.MINING, Profiler.FLUIDS, Profiler.LIGHT}) {
+                System.out.printf("%-12s p50=%dns p99=%dns max=%dns%n", Profiler.NAMES[m],
+                    profiler.percentile(m, 0.5), profiler.percentile(m, 0.99), profiler.max(m));
+            }
+        }
+        world.dispose();
+    }
+}
@@ -0,0 +1,179 @@
+import java.nio.FloatBuffer;
+
+import org.lwjgl.system.MemoryUtil;
+
+import static org.lwjgl.opengl.GL11.*;
+
+// Screen-space UI geometry collected into one vertex buffer (TileMeshBuilder's
+// x, y, r, g, b, a layout) and drawn with a single glDrawArrays. The colour is a
+// current value, like glColor. Digits are stamped from glyph quads precomputed
+// from the 3x5 font, so drawing a number neither formats a String nor allocates.
+public class HudBatch {
+    // Minimal 3x5 bitmap digits (1 = filled)
+    private static final byte[][] DIGITS = new byte[][]{
+        // 0
+        {1,1,1,
+         1,0,1,
+         1,0,1,
+         1,0,1,
+         1,1,1},
+        // 1
+        {0,1,0,
+         1,1,0,
+         0,1,0,
+         0,1,0,
+         1,1,1},
+        // 2
+        {1,1,1,
+         0,0,1,
+         1,1,1,
+         1,0,0,
+         1,1,1},
+        // 3
+        {1,1,1,
+         0,0,1,
+         0,1,1,
+         0,0,1,
+         1,1,1},
+        // 4
+        {1,0,1,
+         1,0,1,
+         1,1,1,
+         0,0,1,
+         0,0,1},
+        // 5
+        {1,1,1,
+         1,0,0,
+         1,1,1,
+         0,0,1,
+         1,1,1},
+        // 6
+        {1,1,1,
+         1,0,0,
+         1,1,1,
+         1,0,1,
+         1,1,1},
+        // 7
+        {1,1,1,
+         0,0,1,
+         0,1,0,
+         0,1,0,
+         0,1,0},
+        // 8
+        {1,1,1,
+         1,0,1,
+         1,1,1,
+         1,0,1,
+         1,1,1},
+        // 9
+        {1,1,1,
+         1,0,1,
+         1,1,1,
+         0,0,1,
+         1,1,1}
+    };
+    // Per digit, the lit cells as (col, row) pairs
+    private static final byte[][] GLYPHS = new byte[10][];
+
+    static {
+        for (int d = 0; d < 10; d++) {
+            byte[] m = DIGITS[d];
+            int lit = 0;
+            for (byte b : m) lit += b;
+            byte[] cells = new byte[lit * 2];
+            int n = 0;
+            for (int i = 0; i < m.length; i++) {
+                if (m[i] == 0) continue;
+                cells[n++] = (byte) (i % 3);
+                cells[n++] = (byte) (i / 3);
+            }
+            GLYPHS[d] = cells;
+        }
+    }
+
+    private FloatBuffer data = MemoryUtil.memAllocFloat(256 * TileMeshBuilder.FLOATS_PER_QUAD);
+    private int quads;
+    private float r = 1f, g = 1f, b = 1f, a = 1f;
+    private final int[] digits = new int[20]; // scratch for number(); a long has at most 19
+
+    public void clear() {
+        data.clear();
+        quads = 0;
+    }
+
+    public int quadCount() {
+        return quads;
+    }
+
+    public void color(float r, float g, float b) {
+        color(r, g, b, 1f);
+    }
+
+    public void color(float r, float g, float b, float a) {
+        this.r = r;
+        this.g = g;
+        this.b = b;
+        this.a = a;
+    }
+
+    public void color(float[] rgb) {
+        color(rgb[0], rgb[1], rgb[2], 1f);
+    }
+
+    public void quad(float x, float y, float w, float h) {
+        if (data.remaining() < TileMeshBuilder.FLOATS_PER_QUAD) {
+            data = MemoryUtil.memRealloc(data, data.capacity() * 2); // keeps position
+        }
+        data.put(x).put(y).put(r).put(g).put(b).put(a);
+        data.put(x + w).put(y).put(r).put(g).put(b).put(a);
+        data.put(x + w).put(y + h).put(r).put(g).put(b).put(a);
+        data.put(x).put(y + h).put(r).put(g).put(b).put(a);
+        quads++;
+    }
+
+    // Rectangle border as four quads centred on the edges, like a GL line of that width
+    public void outline(float x, float y, float w, float h, float width) {
+        float half = width * 0.5f;
+        quad(x - half, y - half, w + width, width);
+        quad(x - half, y + h - half, w + width, width);
+        quad(x - half, y + half, width, h - width);
+        quad(x + w - half, y + half, width, h - width);
+    }
+
+    // Non-negative decimal in the 3x5 font, digits scale px per cell and one cell apart
+    public void number(long value, float x, float y, int scale) {
+        int n = 0;
+        do {
+            digits[n++] = (int) (value % 10);
+            value /= 10;
+        } while (value > 0);
+        float cursor = x;
+        for (int i = n - 1; i >= 0; i--) {
+            byte[] cells = GLYPHS[digits[i]];
+            for (int c = 0; c < cells.length; c += 2) {
+                quad(cursor + cells[c] * scale, y + cells[c + 1] * scale, scale, scale);
+            }
+            cursor += 4 * scale; // digit width + spacing
+        }
+    }
+
+    // Expects a screen-space projection; returns the draw calls made (0 or 1)
+    public int draw() {
+        if (quads == 0) return 0;
+        int end = data.position();
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glEnableClientState(GL_COLOR_ARRAY);
+        glVertexPointer(2, GL_FLOAT, TileMeshBuilder.STRIDE_BYTES, data.position(0));
+        glColorPointer(4, GL_FLOAT, TileMeshBuilder.STRIDE_BYTES, data.position(2));
+        glDrawArrays(GL_QUADS, 0, quads * TileMeshBuilder.VERTICES_PER_QUAD);
+        data.position(end);
+        glDisableClientState(GL_COLOR_ARRAY);
+        glDisableClientState(GL_VERTEX_ARRAY);
+        return 1;
+    }
+
+    public void dispose() {
+        MemoryUtil.memFree(data);
+        data = null;
+    }
+}
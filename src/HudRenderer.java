@@ -0,0 +1,200 @@
+// Hotbar and inventory screen, each kept as a HudBatch. What they show depends only
+// on the inventory (contents, selection, held item, crafting grid) and the screen
+// size, so a batch is rebuilt when Inventory.getVersion() or the size changes and
+// otherwise drawn again as it is: one draw call each per frame.
+public class HudRenderer {
+    private static final float BORDER = 2f; // px, the line width the UI has always used
+
+    private final Inventory inventory;
+    private final int slotSize;
+    private final int padding = 4;
+    private final HudBatch hotbar = new HudBatch();
+    private final HudBatch screen = new HudBatch();
+    private boolean hotbarValid, screenValid;
+    private int hotbarVersion, hotbarWidth, hotbarHeight;
+    private int screenVersion, screenWidth, screenHeight;
+    private long rebuilds;
+
+    public HudRenderer(Inventory inventory, int slotSize) {
+        this.inventory = inventory;
+        this.slotSize = slotSize;
+    }
+
+    // Returns the draw calls made
+    public int drawHotbar(int width, int height) {
+        int version = inventory.getVersion();
+        if (!hotbarValid || version != hotbarVersion || width != hotbarWidth || height != hotbarHeight) {
+            buildHotbar(hotbar, width, height);
+            hotbarValid = true;
+            hotbarVersion = version;
+            hotbarWidth = width;
+            hotbarHeight = height;
+            rebuilds++;
+        }
+        return hotbar.draw();
+    }
+
+    public int drawInventory(int width, int height) {
+        int version = inventory.getVersion();
+        if (!screenValid || version != screenVersion || width != screenWidth || height != screenHeight) {
+            buildInventory(screen, width, height);
+            screenValid = true;
+            screenVersion = version;
+            screenWidth = width;
+            screenHeight = height;
+            rebuilds++;
+        }
+        return screen.draw();
+    }
+
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+    void buildHotbar(HudBatch b, int width, int height) {
+        b.clear();
+        int totalWidth = inventory.size() * (slotSize + padding) - padding;
+        int startX = (width - totalWidth) / 2;
+        int y = height - slotSize - 8;
+
+        for (int i = 0; i < inventory.size(); i++) {
+            int x = startX + i * (slotSize + padding);
+            boolean selected = i == inventory.getSelectedIndex();
+            if (selected) b.color(1f, 1f, 1f); else b.color(0.8f, 0.8f, 0.8f);
+            b.outline(x, y, slotSize, slotSize, BORDER);
+
+            Item item = inventory.get(i);
+            if (item == null) continue;
+            int mx = x + slotSize / 4;
+            int my = y + slotSize / 4;
+            int mw = slotSize / 2;
+            // Icon: fill of the material colour with an outline
+            if (item.isBlock()) {
+                b.color(BlockRegistry.color(item.blockId));
+                b.quad(mx, my, mw, mw);
+                b.color(0f, 0f, 0f);
+                b.outline(mx, my, mw, mw, BORDER);
+                // count bottom-right
+                if (item.count > 1) {
+                    int numX = x + slotSize - (3 * (slotSize / 12)) - 6;
+                    int numY = y + slotSize - (5 * (slotSize / 12)) - 6;
+                    int scale = Math.max(2, slotSize / 12);
+                    b.color(1f, 1f, 1f);
+                    b.number(item.count, numX, numY, scale);
+                }
+            } else {
+                toolColor(b, item.toolType);
+                b.quad(mx, my, mw, mw);
+            }
+        }
+    }
+
+    void buildInventory(HudBatch b, int width, int height) {
+        b.clear();
+        // Large background panel
+        b.color(0f, 0f, 0f, 0.8f);
+        b.quad(50, 50, width - 100, height - 100);
+
+        // Main inventory (3x9 grid)
+        int cols = 9;
+        int rows = 3;
+        int gridW = cols * (slotSize + padding) - padding;
+        int gridH = rows * (slotSize + padding) - padding;
+        int invStartX = (width - gridW) / 2;
+        int invStartY = (height - gridH) / 2 + 60;
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int x = invStartX + c * (slotSize + padding);
+                int y = invStartY + r * (slotSize + padding);
+                slot(b, x, y, 0.3f, 0.3f, 0.3f);
+                b.color(0.9f, 0.9f, 0.9f);
+                b.outline(x, y, slotSize, slotSize, BORDER);
+                itemInSlot(b, inventory.getBagItem(r * cols + c), x, y);
+            }
+        }
+
+        // Hotbar at the bottom of the inventory
+        int hotbarY = invStartY + gridH + 20;
+        for (int i = 0; i < 9; i++) {
+            int x = invStartX + i * (slotSize + padding);
+            slot(b, x, hotbarY, 0.2f, 0.2f, 0.2f);
+            boolean selected = i == inventory.getSelectedIndex();
+            if (selected) b.color(1f, 1f, 1f); else b.color(0.9f, 0.9f, 0.9f);
+            b.outline(x, hotbarY, slotSize, slotSize, BORDER);
+            itemInSlot(b, inventory.get(i), x, hotbarY);
+        }
+
+        // Crafting grid, above the bag at its left edge; GameRenderer.inventoryClickAt
+        // hit-tests the same layout
+        CraftingGrid crafting = inventory.getCraftingGrid();
+        int n = crafting.getSize();
+        int craftingH = n * (slotSize + padding) - padding;
+        int craftingStartX = invStartX;
+        int craftingStartY = invStartY - 16 - craftingH;
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                int x = craftingStartX + c * (slotSize + padding);
+                int y = craftingStartY + r * (slotSize + padding);
+                slot(b, x, y, 0.4f, 0.3f, 0.2f);
+                b.color(0.8f, 0.6f, 0.4f);
+                b.outline(x, y, slotSize, slotSize, BORDER);
+                itemInSlot(b, crafting.get(r * n + c), x, y);
+            }
+        }
+
+        // Crafting result slot, right of the grid and centred on it
+        int resultX = craftingStartX + craftingH + 24;
+        int resultY = craftingStartY + (craftingH - slotSize) / 2;
+        slot(b, resultX, resultY, 0.2f, 0.4f, 0.2f);
+        Item result = crafting.getResult();
+        boolean canCraft = result != null && crafting.canCraft();
+        if (canCraft) b.color(0.4f, 0.8f, 0.4f); else b.color(0.8f, 0.8f, 0.8f);
+        b.outline(resultX, resultY, slotSize, slotSize, BORDER);
+        if (canCraft) itemInSlot(b, result, resultX, resultY);
+
+        // Held item; drawn at the screen centre until the cursor position is passed in
+        Item heldItem = inventory.getHeldItem();
+        if (heldItem != null) {
+            itemInSlot(b, heldItem, width / 2 - slotSize / 2, height / 2 - slotSize / 2);
+        }
+    }
+
+    private void slot(HudBatch b, int x, int y, float r, float g, float bl) {
+        b.color(r, g, bl);
+        b.quad(x, y, slotSize, slotSize);
+    }
+
+    private void itemInSlot(HudBatch b, Item item, int x, int y) {
+        if (item == null) return;
+        int mx = x + slotSize / 4;
+        int my = y + slotSize / 4;
+        int mw = slotSize / 2;
+        if (item.isBlock()) {
+            b.color(BlockRegistry.color(item.blockId));
+            b.quad(mx, my, mw, mw);
+            b.color(0f, 0f, 0f);
+            b.outline(mx, my, mw, mw, BORDER);
+            if (item.count > 1) {
+                int scale = Math.max(2, slotSize / 12);
+                b.color(1f, 1f, 1f);
+                b.number(item.count, x + slotSize - (3 * scale) - 4, y + slotSize - (5 * scale) - 4, scale);
+            }
+        } else {
+            toolColor(b, item.toolType);
+            b.quad(mx, my, mw, mw);
+        }
+    }
+
+    private static void toolColor(HudBatch b, ToolType tool) {
+        if (tool == ToolType.PICKAXE) b.color(0.8f, 0.7f, 0.2f);
+        else if (tool == ToolType.AXE) b.color(0.7f, 0.5f, 0.2f);
+        else if (tool == ToolType.SHOVEL) b.color(0.6f, 0.6f, 0.6f);
+        else b.color(0.9f, 0.9f, 0.9f);
+    }
+
+    public void dispose() {
+        hotbar.dispose();
+        screen.dispose();
+    }
+}
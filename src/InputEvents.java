@@ -0,0 +1,120 @@
+import static org.lwjgl.glfw.GLFW.*;
+
+// Keyboard, mouse and scroll wheel input from GLFW callbacks. The callbacks only append to a
+// preallocated ring of primitive events; the game loop drains it once a frame,
+// which updates the key and button bitsets and the cursor and lets the loop react
+// to the presses it cares about. Nothing allocates after install() and no key is
+// polled over JNI. GLFW runs callbacks inside glfwPollEvents, so today both ends
+// are the main thread, but head and tail each have a single writer and are
+// volatile, so the queue stays correct if events ever arrive from another thread.
+public class InputEvents {
+    public static final int KEY = 0;
+    public static final int BUTTON = 1;
+    public static final int CURSOR = 2;
+    public static final int SCROLL = 3; // x() and y() are the wheel offsets; no state is kept
+
+    private static final int CAPACITY = 1024; // power of two
+    private static final int MASK = CAPACITY - 1;
+
+    private final int[] types = new int[CAPACITY];
+    private final int[] codes = new int[CAPACITY];
+    private final int[] actions = new int[CAPACITY];
+    private final double[] xs = new double[CAPACITY];
+    private final double[] ys = new double[CAPACITY];
+    private volatile long head; // next slot to write; producer only
+    private volatile long tail; // next slot to read; consumer only
+    private long dropped;
+    private double producerX, producerY; // latest cursor seen by the callbacks, for button events
+
+    // State as of the last drained event
+    private final long[] keys = new long[(GLFW_KEY_LAST >> 6) + 1];
+    private int buttons;
+    private double cursorX, cursorY;
+
+    // The event poll() just took
+    private int type, code, action;
+    private double x, y;
+
+    public void install(long window) {
+        glfwSetKeyCallback(window, (win, key, scancode, act, mods) -> push(KEY, key, act, producerX, producerY));
+        glfwSetMouseButtonCallback(window, (win, button, act, mods) -> push(BUTTON, button, act, producerX, producerY));
+        glfwSetCursorPosCallback(window, (win, cx, cy) -> {
+            producerX = cx;
+            producerY = cy;
+            push(CURSOR, 0, 0, cx, cy);
+        });
+        glfwSetScrollCallback(window, (win, dx, dy) -> push(SCROLL, 0, 0, dx, dy));
+    }
+
+    // Producer side. A full queue drops the new event (counted) rather than block.
+    public void push(int type, int code, int action, double x, double y) {
+        long h = head;
+        if (h - tail == CAPACITY) {
+            dropped++;
+            return;
+        }
+        int i = (int) (h & MASK);
+        types[i] = type;
+        codes[i] = code;
+        actions[i] = action;
+        xs[i] = x;
+        ys[i] = y;
+        head = h + 1;
+    }
+
+    // Consumer side: takes the next event and applies it to the key, button and
+    // cursor state; false when the queue is empty
+    public boolean poll() {
+        long t = tail;
+        if (t == head) return false;
+        int i = (int) (t & MASK);
+        type = types[i];
+        code = codes[i];
+        action = actions[i];
+        x = xs[i];
+        y = ys[i];
+        tail = t + 1;
+        switch (type) {
+            case KEY:
+                if (code >= 0 && code <= GLFW_KEY_LAST) {
+                    if (action == GLFW_RELEASE) keys[code >>> 6] &= ~(1L << code);
+                    else keys[code >>> 6] |= 1L << code;
+                }
+                break;
+            case BUTTON:
+                if (code >= 0 && code < 32) {
+                    if (action == GLFW_RELEASE) buttons &= ~(1 << code);
+                    else buttons |= 1 << code;
+                }
+                break;
+            case CURSOR:
+                cursorX = x;
+                cursorY = y;
+                break;
+        }
+        return true;
+    }
+
+    public int type() { return type; }
+    public int code() { return code; }
+    public int action() { return action; }
+    public double x() { return x; }
+    public double y() { return y; }
+
+    // A key or button going down (not a repeat)
+    public boolean isPress() {
+        return (type == KEY || type == BUTTON) && action == GLFW_PRESS;
+    }
+
+    public boolean isKeyDown(int key) {
+        return key >= 0 && key <= GLFW_KEY_LAST && (keys[key >>> 6] & (1L << key)) != 0;
+    }
+
+    public boolean isButtonDown(int button) {
+        return button >= 0 && button < 32 && (buttons & (1 << button)) != 0;
+    }
+
+    public double cursorX() { return cursorX; }
+    public double cursorY() { return cursorY; }
+    public long getDropped() { return dropped; }
+}
@@ -0,0 +1,80 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Writes the InputState of every tick to a compact binary stream that InputReplay
+// plays back. Format (big-endian):
+//   header  int MAGIC, byte VERSION, long world seed
+//   runs    varint ticks, byte flags, byte hotbarSelect, byte inventoryClick,
+//           float cursorWorldX, float cursorWorldY
+// A run is a state repeated for that many ticks, so holding still costs nothing
+// and an active tick about 12 bytes. Version 2 added inventoryClick. Replays start from a fresh world with the seed.
+public class InputRecorder implements Closeable {
+    static final int MAGIC = 0x45464952; // "EFIR"
+    static final int VERSION = 2;
+    static final int LEFT = 1, RIGHT = 2, JUMP = 4, MINING = 8, PLACING = 16;
+
+    private final DataOutputStream out;
+    private final InputState run = new InputState();
+    private int runTicks;
+    private long ticks;
+
+    public InputRecorder(Path path, long seed) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(seed);
+    }
+
+    // Call once per tick with the input that tick was run with
+    public void record(InputState in) throws IOException {
+        if (runTicks > 0 && !same(run, in)) flushRun();
+        if (runTicks == 0) run.set(in);
+        runTicks++;
+        ticks++;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    private void flushRun() throws IOException {
+        writeVarInt(runTicks);
+        out.writeByte(flags(run));
+        out.writeByte(run.hotbarSelect);
+        out.writeByte(run.inventoryClick);
+        out.writeFloat(run.cursorWorldX);
+        out.writeFloat(run.cursorWorldY);
+        runTicks = 0;
+    }
+
+    private void writeVarInt(int v) throws IOException {
+        while ((v & ~0x7f) != 0) {
+            out.writeByte((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    static int flags(InputState s) {
+        return (s.left ? LEFT : 0) | (s.right ? RIGHT : 0) | (s.jump ? JUMP : 0)
+            | (s.mining ? MINING : 0) | (s.placing ? PLACING : 0);
+    }
+
+    // Bitwise float compare so a replay reproduces the exact cursor values
+    private static boolean same(InputState a, InputState b) {
+        return flags(a) == flags(b) && a.hotbarSelect == b.hotbarSelect
+            && a.inventoryClick == b.inventoryClick
+            && Float.floatToRawIntBits(a.cursorWorldX) == Float.floatToRawIntBits(b.cursorWorldX)
+            && Float.floatToRawIntBits(a.cursorWorldY) == Float.floatToRawIntBits(b.cursorWorldY);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (runTicks > 0) flushRun();
+        out.close();
+    }
+}
@@ -0,0 +1,90 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Plays back a stream written by InputRecorder, one InputState per tick. The world
+// must be fresh and built with getSeed() for the run to reproduce the session.
+public class InputReplay implements InputSource {
+    private final DataInputStream in;
+    private final long seed;
+    private final InputState run = new InputState();
+    private int runTicksLeft;
+    private boolean ended;
+
+    private InputReplay(DataInputStream in, long seed) {
+        this.in = in;
+        this.seed = seed;
+    }
+
+    public static InputReplay open(Path path) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        try {
+            if (in.readInt() != InputRecorder.MAGIC) throw new IOException(path + ": not an input recording");
+            int version = in.readUnsignedByte();
+            if (version != InputRecorder.VERSION) throw new IOException(path + ": unsupported recording version " + version);
+            return new InputReplay(in, in.readLong());
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public boolean next(GameWorld world, InputState out) {
+        if (runTicksLeft == 0 && !readRun()) return false;
+        out.set(run);
+        runTicksLeft--;
+        return true;
+    }
+
+    private boolean readRun() {
+        if (ended) return false;
+        try {
+            int ticks = readVarInt();
+            int flags = in.readUnsignedByte();
+            run.left = (flags & InputRecorder.LEFT) != 0;
+            run.right = (flags & InputRecorder.RIGHT) != 0;
+            run.jump = (flags & InputRecorder.JUMP) != 0;
+            run.mining = (flags & InputRecorder.MINING) != 0;
+            run.placing = (flags & InputRecorder.PLACING) != 0;
+            run.hotbarSelect = in.readByte();
+            run.inventoryClick = in.readByte();
+            run.cursorWorldX = in.readFloat();
+            run.cursorWorldY = in.readFloat();
+            runTicksLeft = ticks;
+            return true;
+        } catch (EOFException e) {
+            ended = true;
+            close();
+            return false;
+        } catch (IOException e) {
+            ended = true;
+            close();
+            throw new UncheckedIOException("Input recording is unreadable", e);
+        }
+    }
+
+    private int readVarInt() throws IOException {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+
+    private void close() {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
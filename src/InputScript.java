@@ -0,0 +1,97 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Text input script for headless runs. One step per line:
+//   <ticks> <flags> [cursorDx cursorDy]
+// flags: any of L R J M P (left, right, jump, mine, place) or '-' for none;
+// the cursor offset is in tiles from the player centre. '#' starts a comment.
+public class InputScript implements InputSource {
+    private static class Step {
+        int ticks;
+        boolean left, right, jump, mining, placing;
+        float cursorDx, cursorDy;
+    }
+
+    private final List<Step> steps = new ArrayList<>();
+    private final boolean loop;
+    private int stepIndex;
+    private int tickInStep;
+
+    private InputScript(boolean loop) {
+        this.loop = loop;
+    }
+
+    public static InputScript load(Path path, boolean loop) throws IOException {
+        InputScript script = new InputScript(loop);
+        int lineNo = 0;
+        for (String raw : Files.readAllLines(path)) {
+            lineNo++;
+            int hash = raw.indexOf('#');
+            String line = (hash >= 0 ? raw.substring(0, hash) : raw).trim();
+            if (line.isEmpty()) continue;
+            String[] parts = line.split("\\s+");
+            try {
+                script.steps.add(parseStep(parts));
+            } catch (RuntimeException e) {
+                throw new IOException(path + ":" + lineNo + ": bad step '" + raw + "'", e);
+            }
+        }
+        if (script.steps.isEmpty()) throw new IOException(path + ": no steps");
+        return script;
+    }
+
+    private static Step parseStep(String[] parts) {
+        Step s = new Step();
+        s.ticks = Integer.parseInt(parts[0]);
+        String flags = parts.length > 1 ? parts[1].toUpperCase() : "-";
+        s.left = flags.indexOf('L') >= 0;
+        s.right = flags.indexOf('R') >= 0;
+        s.jump = flags.indexOf('J') >= 0;
+        s.mining = flags.indexOf('M') >= 0;
+        s.placing = flags.indexOf('P') >= 0;
+        if (parts.length > 3) {
+            s.cursorDx = Float.parseFloat(parts[2]);
+            s.cursorDy = Float.parseFloat(parts[3]);
+        }
+        return s;
+    }
+
+    // Default soak pattern: run right, hop, and dig into the ground ahead
+    public static InputScript builtin() {
+        InputScript script = new InputScript(true);
+        script.steps.add(parseStep(new String[]{"120", "R"}));
+        script.steps.add(parseStep(new String[]{"20", "RJ"}));
+        script.steps.add(parseStep(new String[]{"90", "M", "1", "1.5"}));
+        script.steps.add(parseStep(new String[]{"90", "M", "0", "1.5"}));
+        script.steps.add(parseStep(new String[]{"60", "L"}));
+        script.steps.add(parseStep(new String[]{"10", "P", "-2", "0"}));
+        return script;
+    }
+
+    // Returns false once a non-looping script is exhausted
+    @Override
+    public boolean next(GameWorld world, InputState out) {
+        if (stepIndex >= steps.size()) {
+            if (!loop) return false;
+            stepIndex = 0;
+        }
+        Step s = steps.get(stepIndex);
+        Player p = world.getPlayer();
+        out.left = s.left;
+        out.right = s.right;
+        out.jump = s.jump;
+        out.mining = s.mining;
+        out.placing = s.placing;
+        out.cursorWorldX = p.x + p.width * 0.5f + s.cursorDx * GameWorld.TILE_SIZE;
+        out.cursorWorldY = p.y + p.height * 0.5f + s.cursorDy * GameWorld.TILE_SIZE;
+        out.hotbarSelect = -1;
+        if (++tickInStep >= s.ticks) {
+            tickInStep = 0;
+            stepIndex++;
+        }
+        return true;
+    }
+}
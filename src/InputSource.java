@@ -0,0 +1,5 @@
+// Where a headless run gets each tick's input: a text script or a recorded session
+public interface InputSource {
+    // Fill the input for the next tick; returns false once the source is exhausted
+    boolean next(GameWorld world, InputState out);
+}
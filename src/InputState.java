@@ -0,0 +1,30 @@
+// One tick's worth of player input, already converted to world coordinates
+public class InputState {
+    public boolean left;
+    public boolean right;
+    public boolean jump;
+    public boolean mining;
+    public boolean placing;
+    public float cursorWorldX;
+    public float cursorWorldY;
+    public int hotbarSelect = -1; // -1 = keep current selection
+    // Inventory screen click applied this tick: a hotbar/bag slot (0 = first hotbar
+    // slot, 9 = first bag slot), CLICK_CRAFTING + a crafting grid slot, or CLICK_RESULT
+    public int inventoryClick = NO_CLICK;
+
+    public static final int NO_CLICK = -1;
+    public static final int CLICK_CRAFTING = 64;
+    public static final int CLICK_RESULT = 127;
+
+    public void set(InputState other) {
+        left = other.left;
+        right = other.right;
+        jump = other.jump;
+        mining = other.mining;
+        placing = other.placing;
+        cursorWorldX = other.cursorWorldX;
+        cursorWorldY = other.cursorWorldY;
+        hotbarSelect = other.hotbarSelect;
+        inventoryClick = other.inventoryClick;
+    }
+}
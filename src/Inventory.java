@@ -1,15 +1,25 @@
+import java.util.Arrays;
+
 public class Inventory {
+    // Crafting grid side; every standard recipe must fit (shaped tools are 3 wide)
+    public static final int GRID_SIZE = 3;
+
     private final Item[] hotbar;
     private final Item[] bag; // full inventory grid
+    // Totals over hotbar + bag, updated by every slot write and stack change so
+    // totalCountFor and hasToolType (called per recipe) never scan the slots
+    private int[] blockCounts = new int[16]; // by blockId: items
+    private final int[] toolCounts = new int[ToolType.values().length]; // by ToolType: slots
     private final CraftingGrid craftingGrid;
     private int selectedIndex = 0;
     private int selectedSlot = -1; // -1 = none, 0-8 = hotbar, 9+ = bag slots
     private Item heldItem = null; // item being dragged
+    private int version; // bumped by every change a HUD could show; see getVersion
 
     public Inventory(int hotbarSize) {
         this.hotbar = new Item[hotbarSize];
         this.bag = new Item[27]; // 3 rows x 9 cols
-        this.craftingGrid = new CraftingGrid(2); // 2x2 crafting grid
+        this.craftingGrid = new CraftingGrid(GRID_SIZE);
     }
 
     public int size() {
@@ -23,7 +33,7 @@ public class Inventory {
 
     public void set(int index, Item item) {
         if (index < 0 || index >= hotbar.length) return;
-        hotbar[index] = item;
+        putHotbar(index, item);
     }
 
     public int getSelectedIndex() {
@@ -31,31 +41,34 @@ public class Inventory {
     }
 
     public void setSelectedIndex(int index) {
-        if (index < 0 || index >= hotbar.length) return;
+        if (index < 0 || index >= hotbar.length || index == selectedIndex) return;
         selectedIndex = index;
+        version++;
     }
 
     public Item getSelected() {
         return get(selectedIndex);
     }
 
-    public void addBlockToHotbar(int blockId, String displayName) {
+    public boolean addBlockToHotbar(int blockId, String displayName) {
         // Try stacking into existing block item
         for (int i = 0; i < hotbar.length; i++) {
             Item it = hotbar[i];
             if (it != null && it.isBlock() && it.blockId == blockId) {
                 it.count += 1;
-                return;
+                addBlockCount(blockId, 1);
+                return true;
             }
         }
         // Place into first empty slot
         for (int i = 0; i < hotbar.length; i++) {
             if (hotbar[i] == null) {
-                hotbar[i] = new Item(displayName, blockId, 1);
-                return;
+                putHotbar(i, new Item(displayName, blockId, 1));
+                return true;
             }
         }
         // If full, drop on the floor later; for now, ignore overflow
+        return false;
     }
 
     public boolean addBlockToBag(int blockId, String displayName) {
@@ -63,12 +76,13 @@ public class Inventory {
             Item it = bag[i];
             if (it != null && it.isBlock() && it.blockId == blockId) {
                 it.count += 1;
+                addBlockCount(blockId, 1);
                 return true;
             }
         }
         for (int i = 0; i < bag.length; i++) {
             if (bag[i] == null) {
-                bag[i] = new Item(displayName, blockId, 1);
+                putBag(i, new Item(displayName, blockId, 1));
                 return true;
             }
         }
@@ -77,35 +91,36 @@ public class Inventory {
 
     public void addBlock(int blockId, String displayName) {
         // Try hotbar first, then bag
-        int before = totalCountFor(blockId);
-        addBlockToHotbar(blockId, displayName);
-        int after = totalCountFor(blockId);
-        if (after == before) {
+        if (!addBlockToHotbar(blockId, displayName)) {
             addBlockToBag(blockId, displayName);
         }
     }
 
     public int totalCountFor(int blockId) {
-        int c = 0;
-        for (Item it : hotbar) if (it != null && it.isBlock() && it.blockId == blockId) c += it.count;
-        for (Item it : bag) if (it != null && it.isBlock() && it.blockId == blockId) c += it.count;
-        return c;
+        return blockId >= 0 && blockId < blockCounts.length ? blockCounts[blockId] : 0;
     }
 
     public int bagSize() { return bag.length; }
     public Item getBagItem(int index) { if (index < 0 || index >= bag.length) return null; return bag[index]; }
-    public void setBagItem(int index, Item item) { if (index >= 0 && index < bag.length) bag[index] = item; }
+    public void setBagItem(int index, Item item) { if (index >= 0 && index < bag.length) putBag(index, item); }
     
     public CraftingGrid getCraftingGrid() { return craftingGrid; }
     
     public Item getHeldItem() { return heldItem; }
-    public void setHeldItem(Item item) { this.heldItem = item; }
+    public void setHeldItem(Item item) { this.heldItem = item; version++; }
     
     public int getSelectedSlot() { return selectedSlot; }
     public void setSelectedSlot(int slot) { this.selectedSlot = slot; }
+
+    // Changes whenever slot contents, stack sizes, the selection, the held item or the
+    // crafting grid change, so renderers can rebuild only then
+    public int getVersion() {
+        return version + craftingGrid.getVersion();
+    }
     
     // Click handling for inventory slots
     public void handleSlotClick(int slotIndex) {
+        version++;
         Item slotItem = null;
         
         // Get item from clicked slot
@@ -132,6 +147,7 @@ public class Inventory {
                 int spaceLeft = 64 - slotItem.count; // Max stack size
                 int toAdd = Math.min(spaceLeft, heldItem.count);
                 slotItem.count += toAdd;
+                if (slotItem.isBlock()) addBlockCount(slotItem.blockId, toAdd);
                 heldItem.count -= toAdd;
                 if (heldItem.count <= 0) {
                     heldItem = null;
@@ -146,11 +162,45 @@ public class Inventory {
     
     private void setSlotItem(int slotIndex, Item item) {
         if (slotIndex >= 0 && slotIndex < hotbar.length) {
-            hotbar[slotIndex] = item;
+            putHotbar(slotIndex, item);
         } else if (slotIndex >= 9 && slotIndex < 9 + bag.length) {
-            bag[slotIndex - 9] = item;
+            putBag(slotIndex - 9, item);
         }
     }
+
+    // All slot writes go through these two so the count tables stay in step
+    private void putHotbar(int index, Item item) {
+        version++;
+        uncount(hotbar[index]);
+        hotbar[index] = item;
+        count(item);
+    }
+
+    private void putBag(int index, Item item) {
+        version++;
+        uncount(bag[index]);
+        bag[index] = item;
+        count(item);
+    }
+
+    private void count(Item item) {
+        if (item == null) return;
+        if (item.isBlock()) addBlockCount(item.blockId, item.count);
+        toolCounts[item.toolType.ordinal()]++;
+    }
+
+    private void uncount(Item item) {
+        if (item == null) return;
+        if (item.isBlock()) addBlockCount(item.blockId, -item.count);
+        toolCounts[item.toolType.ordinal()]--;
+    }
+
+    // Every stack size change passes through here
+    private void addBlockCount(int blockId, int delta) {
+        version++;
+        if (blockId >= blockCounts.length) blockCounts = Arrays.copyOf(blockCounts, Math.max(blockId + 1, blockCounts.length * 2));
+        blockCounts[blockId] += delta;
+    }
     
     private boolean canStack(Item item1, Item item2) {
         if (item1 == null || item2 == null) return false;
@@ -164,6 +214,7 @@ public class Inventory {
     }
     
     public void handleCraftingSlotClick(int craftingSlot) {
+        version++;
         Item slotItem = craftingGrid.get(craftingSlot);
         
         if (heldItem == null) {
@@ -197,6 +248,7 @@ public class Inventory {
     }
     
     public void handleCraftingResultClick() {
+        version++;
         Item result = craftingGrid.getResult();
         if (result != null && craftingGrid.canCraft()) {
             if (heldItem == null) {
@@ -214,68 +266,56 @@ public class Inventory {
         Item sel = getSelected();
         if (sel == null || !sel.isBlock() || sel.count <= 0) return false;
         sel.count -= 1;
+        addBlockCount(sel.blockId, -1);
         if (sel.count == 0) {
             setSelectedIndex(selectedIndex); // keep index; clear slot
-            hotbar[selectedIndex] = null;
+            putHotbar(selectedIndex, null);
         }
         return true;
     }
 
     public boolean hasToolType(ToolType toolType) {
-        for (Item item : hotbar) {
-            if (item != null && item.toolType == toolType) {
-                return true;
-            }
-        }
-        for (Item item : bag) {
-            if (item != null && item.toolType == toolType) {
-                return true;
-            }
-        }
-        return false;
+        return toolCounts[toolType.ordinal()] > 0;
     }
 
     public void consumeBlocks(int blockId, int amount) {
         int remaining = amount;
-        
-        // First consume from hotbar
+        // First consume from hotbar, then bag
         for (int i = 0; i < hotbar.length && remaining > 0; i++) {
             Item item = hotbar[i];
             if (item != null && item.isBlock() && item.blockId == blockId) {
-                int toConsume = Math.min(remaining, item.count);
-                item.count -= toConsume;
-                remaining -= toConsume;
-                if (item.count == 0) {
-                    hotbar[i] = null;
-                }
+                remaining -= take(item, remaining);
+                if (item.count == 0) putHotbar(i, null);
             }
         }
-        
-        // Then consume from bag
         for (int i = 0; i < bag.length && remaining > 0; i++) {
             Item item = bag[i];
             if (item != null && item.isBlock() && item.blockId == blockId) {
-                int toConsume = Math.min(remaining, item.count);
-                item.count -= toConsume;
-                remaining -= toConsume;
-                if (item.count == 0) {
-                    bag[i] = null;
-                }
+                remaining -= take(item, remaining);
+                if (item.count == 0) putBag(i, null);
             }
         }
     }
 
+    // Shrinks a block stack by up to amount; returns how many were taken
+    private int take(Item item, int amount) {
+        int n = Math.min(amount, item.count);
+        item.count -= n;
+        addBlockCount(item.blockId, -n);
+        return n;
+    }
+
     public void addTool(Item tool) {
         // Add tool to first empty hotbar slot, then bag
         for (int i = 0; i < hotbar.length; i++) {
             if (hotbar[i] == null) {
-                hotbar[i] = tool;
+                putHotbar(i, tool);
                 return;
             }
         }
         for (int i = 0; i < bag.length; i++) {
             if (bag[i] == null) {
-                bag[i] = tool;
+                putBag(i, tool);
                 return;
             }
         }
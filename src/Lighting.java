@@ -0,0 +1,415 @@
+import java.util.ArrayList;
+
+// Sky light and block light, 0..MAX per tile, kept in each chunk's nibble arrays and
+// spread by breadth-first flood fill. A tile takes the brightest of its four
+// neighbours minus one (two through water, leaves and other open blocks); solid
+// tiles take light but do not pass it on. Sky light at MAX falls straight down
+// through air without losing any.
+//
+// Nothing is ever recomputed wholesale. A chunk is lit once when it loads (columns
+// from the sky, emitters, and the borders of the loaded neighbours); an edit
+// darkens what depended on the edited tile with a removal queue and re-floods the
+// hole from its edge with the addition queue. Work is bounded by a time budget per
+// step and resumes on the next one; all removals finish before any addition runs.
+// Chunks whose light changed are reported once per step so their meshes rebuild.
+public class Lighting {
+    public interface Listener {
+        void lightChanged(int cx, int cy);
+    }
+
+    public static final int MAX = 15;
+    public static final long DEFAULT_BUDGET_NANOS = 1_000_000L; // of a 16.7 ms tick
+    private static final int SKY = 0;
+    private static final int BLOCK = 1;
+    private static final int CLOCK_EVERY = 256; // nodes between budget checks
+    private static final int NEAR_MASK = 63;
+
+    private final ChunkMap chunks;
+    private final ColumnCache columns;
+    private final ArrayList<Chunk> fresh = new ArrayList<>();
+    private final ArrayList<Chunk> relit = new ArrayList<>();
+    private final Queue edits = new Queue();
+    private final Queue removals = new Queue();
+    private final Queue additions = new Queue();
+    // Chunk lookups for this step, misses included: chunks load and unload only between
+    // steps, and fills along the edge of the loaded area ask about the same missing
+    // chunks again and again. Slot = (cx * 8 + cy) & 63, as in ChunkMap.
+    private final Chunk[] near = new Chunk[NEAR_MASK + 1];
+    private final long[] nearKey = new long[NEAR_MASK + 1];
+    private final long[] nearStep = new long[NEAR_MASK + 1];
+    private Listener listener;
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+    private long steps;
+    private long nodes;
+
+    public Lighting(ChunkMap chunks, TerrainGenerator generator) {
+        this.chunks = chunks;
+        this.columns = generator.getColumns();
+        chunks.setLoadListener(fresh::add);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // <= 0 runs every queue dry each step
+    public void setBudgetNanos(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    public long getNodes() { return nodes; }
+
+    public boolean isIdle() {
+        return fresh.isEmpty() && edits.isEmpty() && removals.isEmpty() && additions.isEmpty();
+    }
+
+    public int skyAt(int tx, int ty) {
+        Chunk c = chunks.getIfLoaded(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT);
+        return c == null ? 0 : get(c.skyLight, index(tx, ty));
+    }
+
+    public int blockAt(int tx, int ty) {
+        Chunk c = chunks.getIfLoaded(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT);
+        return c == null ? 0 : get(c.blockLight, index(tx, ty));
+    }
+
+    // Called by GameWorld.setTile; the relight happens in the next step
+    public void tileChanged(int tx, int ty) {
+        edits.push(tx, ty, 0, 0);
+    }
+
+    public void step() {
+        steps++;
+        if (isIdle()) return;
+        long start = budgetNanos > 0 ? System.nanoTime() : 0L;
+        int sinceClock = 0;
+        while (true) {
+            if (++sinceClock == CLOCK_EVERY) {
+                sinceClock = 0;
+                if (budgetNanos > 0 && System.nanoTime() - start > budgetNanos) break;
+            }
+            if (!edits.isEmpty()) {
+                edits.pop();
+                edit(edits.x, edits.y);
+            } else if (!removals.isEmpty()) {
+                removals.pop();
+                remove(removals.x, removals.y, removals.channel, removals.value);
+            } else if (!fresh.isEmpty()) {
+                Chunk c = fresh.remove(fresh.size() - 1);
+                if (chunk(c.cx, c.cy) == c) seed(c);
+                sinceClock = CLOCK_EVERY - 1; // a seed queues up to a chunk's worth; look at the clock
+            } else if (!additions.isEmpty()) {
+                additions.pop();
+                spread(additions.x, additions.y, additions.channel);
+            } else {
+                break;
+            }
+            nodes++;
+        }
+        if (listener != null) {
+            for (int i = 0; i < relit.size(); i++) listener.lightChanged(relit.get(i).cx, relit.get(i).cy);
+        }
+        relit.clear();
+    }
+
+    // ---- flood fill ----
+
+    // The edited tile drops to what it emits itself; what it lit goes with it, and
+    // its neighbours flood back into whatever the new tile lets through
+    private void edit(int tx, int ty) {
+        Chunk c = chunk(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT);
+        if (c == null) return;
+        int i = index(tx, ty);
+        for (int ch = SKY; ch <= BLOCK; ch++) {
+            byte[] light = ch == SKY ? c.skyLight : c.blockLight;
+            int old = get(light, i);
+            int src = source(c, i, ch);
+            if (old != src) set(c, light, i, src);
+            if (old > src) removals.push(tx, ty, ch, old);
+            if (src > 0) additions.push(tx, ty, ch, 0);
+            additions.push(tx, ty - 1, ch, 0);
+            additions.push(tx - 1, ty, ch, 0);
+            additions.push(tx + 1, ty, ch, 0);
+            additions.push(tx, ty + 1, ch, 0);
+        }
+    }
+
+    // (tx, ty) held `old` before it was darkened. Neighbours dimmer than that may have
+    // been lit through it and go dark too; brighter ones are lit from elsewhere and
+    // are queued to flood back in.
+    private void remove(int tx, int ty, int ch, int old) {
+        for (int d = 0; d < 4; d++) {
+            int nx = tx + DX[d], ny = ty + DY[d];
+            Chunk n = chunk(nx >> Chunk.SHIFT, ny >> Chunk.SHIFT);
+            if (n == null) continue;
+            int j = index(nx, ny);
+            byte[] light = ch == SKY ? n.skyLight : n.blockLight;
+            int v = get(light, j);
+            if (v == 0) continue;
+            boolean fed = v < old || (ch == SKY && d == DOWN && old == MAX && v == MAX);
+            if (!fed) {
+                additions.push(nx, ny, ch, 0);
+                continue;
+            }
+            int src = source(n, j, ch);
+            if (src >= v) continue;
+            set(n, light, j, src);
+            removals.push(nx, ny, ch, v);
+            if (src > 0) additions.push(nx, ny, ch, 0);
+        }
+    }
+
+    private void spread(int tx, int ty, int ch) {
+        Chunk c = chunk(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT);
+        if (c == null) return;
+        int i = index(tx, ty);
+        byte[] light = ch == SKY ? c.skyLight : c.blockLight;
+        int v = get(light, i);
+        if (v == 0) return;
+        int tile = c.get(tx & Chunk.MASK, ty & Chunk.MASK);
+        if (BlockRegistry.isSolid(tile)) return;
+        int lx = tx & Chunk.MASK, ly = ty & Chunk.MASK;
+        for (int d = 0; d < 4; d++) {
+            int nx = tx + DX[d], ny = ty + DY[d];
+            // Most neighbours are in the same chunk; skip the map for those
+            boolean inside = ((lx + DX[d]) & ~Chunk.MASK) == 0 && ((ly + DY[d]) & ~Chunk.MASK) == 0;
+            Chunk n = inside ? c : chunk(nx >> Chunk.SHIFT, ny >> Chunk.SHIFT);
+            if (n == null) continue;
+            int j = index(nx, ny);
+            byte[] nl = ch == SKY ? n.skyLight : n.blockLight;
+            int w = passed(v, n.get(nx & Chunk.MASK, ny & Chunk.MASK), ch == SKY && d == DOWN);
+            if (w > get(nl, j)) {
+                set(n, nl, j, w);
+                additions.push(nx, ny, ch, 0);
+            }
+        }
+    }
+
+    // Light v arriving in a tile from an open neighbour
+    private static int passed(int v, int tile, boolean skyDown) {
+        if (tile == BlockRegistry.AIR) return skyDown && v == MAX ? MAX : v - 1;
+        return BlockRegistry.isSolid(tile) ? v - 1 : v - 2;
+    }
+
+    // What a tile holds on its own: its block's emission, and full sky in the top row
+    // of a chunk that has open sky above it and no loaded chunk to say otherwise
+    private int source(Chunk c, int i, int ch) {
+        if (ch == BLOCK) return BlockRegistry.lightOf(c.get(i & Chunk.MASK, i >> Chunk.SHIFT));
+        if (i >= Chunk.SIZE || chunk(c.cx, c.cy - 1) != null) return 0;
+        int tx = (c.cx << Chunk.SHIFT) + i;
+        return openSky(tx, c.cy << Chunk.SHIFT) ? passed(MAX, c.get(i, 0), true) : 0;
+    }
+
+    // Whether nothing the generator places stands above row ty of column tx. Edits in
+    // chunks that are not loaded are not seen; when such a chunk loads, its own light
+    // floods down into this one.
+    private boolean openSky(int tx, int ty) {
+        int ground = columns.groundTileY(tx);
+        int tree = columns.treeHeight(tx);
+        int top = tree > 0 ? ground - tree - 2 : ground; // leaves reach two above the trunk
+        return ty < top && ty < TerrainGenerator.SEA_LEVEL;
+    }
+
+    // First light for a chunk that just loaded: sky straight down each column, then
+    // every lit tile, emitter and neighbouring border tile goes on the addition queue
+    private void seed(Chunk c) {
+        int baseX = c.cx << Chunk.SHIFT;
+        int baseY = c.cy << Chunk.SHIFT;
+        Chunk above = chunk(c.cx, c.cy - 1);
+        for (int lx = 0; lx < Chunk.SIZE; lx++) {
+            int v;
+            if (above == null) {
+                v = source(c, lx, SKY);
+            } else {
+                int t = above.get(lx, Chunk.MASK);
+                int a = get(above.skyLight, (Chunk.MASK << Chunk.SHIFT) | lx);
+                v = BlockRegistry.isSolid(t) || a == 0 ? 0 : passed(a, c.get(lx, 0), true);
+            }
+            for (int ly = 0; ly < Chunk.SIZE && v > 0; ly++) {
+                int i = (ly << Chunk.SHIFT) | lx;
+                int tile = c.get(lx, ly);
+                if (v > get(c.skyLight, i)) set(c, c.skyLight, i, v);
+                additions.push(baseX + lx, baseY + ly, SKY, 0);
+                if (BlockRegistry.isSolid(tile) || ly == Chunk.MASK) break;
+                v = passed(v, c.get(lx, ly + 1), true);
+            }
+        }
+        for (int i = 0; i < Chunk.BYTES; i++) {
+            int e = BlockRegistry.lightOf(c.get(i & Chunk.MASK, i >> Chunk.SHIFT));
+            if (e == 0) continue;
+            if (e > get(c.blockLight, i)) set(c, c.blockLight, i, e);
+            additions.push(baseX + (i & Chunk.MASK), baseY + (i >> Chunk.SHIFT), BLOCK, 0);
+        }
+        // Light already in the neighbours floods in (the one above has done so by column)
+        for (int k = 0; k < Chunk.SIZE; k++) {
+            pushBorder(baseX - 1, baseY + k);
+            pushBorder(baseX + Chunk.SIZE, baseY + k);
+            pushBorder(baseX + k, baseY + Chunk.SIZE);
+            if (above != null) pushBorder(baseX + k, baseY - 1);
+        }
+        // The chunk below may have guessed open sky from the generator; where this one
+        // does not deliver full sky, its top row is relit as if edited
+        Chunk below = chunk(c.cx, c.cy + 1);
+        if (below != null) {
+            for (int lx = 0; lx < Chunk.SIZE; lx++) {
+                if (get(below.skyLight, lx) < MAX) continue;
+                int i = (Chunk.MASK << Chunk.SHIFT) | lx;
+                int v = get(c.skyLight, i);
+                if (BlockRegistry.isSolid(c.get(lx, Chunk.MASK)) || passed(v, below.get(lx, 0), true) < MAX) {
+                    edits.push(baseX + lx, baseY + Chunk.SIZE, 0, 0);
+                }
+            }
+        }
+        if (c.lightMark != steps) markRelit(c);
+    }
+
+    private void pushBorder(int tx, int ty) {
+        Chunk n = chunk(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT);
+        if (n == null) return;
+        int i = index(tx, ty);
+        if (get(n.skyLight, i) > 0) additions.push(tx, ty, SKY, 0);
+        if (get(n.blockLight, i) > 0) additions.push(tx, ty, BLOCK, 0);
+    }
+
+    // ---- storage ----
+
+    private static final int DOWN = 3;
+    private static final int[] DX = {0, -1, 1, 0};
+    private static final int[] DY = {-1, 0, 0, 1};
+
+    private static int index(int tx, int ty) {
+        return ((ty & Chunk.MASK) << Chunk.SHIFT) | (tx & Chunk.MASK);
+    }
+
+    static int get(byte[] nibbles, int i) {
+        return (nibbles[i >> 1] >> ((i & 1) << 2)) & 0xf;
+    }
+
+    private void set(Chunk c, byte[] nibbles, int i, int v) {
+        int shift = (i & 1) << 2;
+        nibbles[i >> 1] = (byte) ((nibbles[i >> 1] & ~(0xf << shift)) | (v << shift));
+        if (c.lightMark != steps) markRelit(c);
+        // Meshes shade each corner from the four tiles around it, so a border
+        // tile also changes the neighbour's mesh
+        int lx = i & Chunk.MASK, ly = i >> Chunk.SHIFT;
+        int dx = lx == 0 ? -1 : lx == Chunk.MASK ? 1 : 0;
+        int dy = ly == 0 ? -1 : ly == Chunk.MASK ? 1 : 0;
+        if (dx != 0) markRelit(c.cx + dx, c.cy);
+        if (dy != 0) markRelit(c.cx, c.cy + dy);
+        if (dx != 0 && dy != 0) markRelit(c.cx + dx, c.cy + dy);
+    }
+
+    private Chunk chunk(int cx, int cy) {
+        int slot = ((cx << 3) + cy) & NEAR_MASK;
+        long key = Chunk.key(cx, cy);
+        if (nearStep[slot] == steps && nearKey[slot] == key) return near[slot];
+        Chunk c = chunks.getIfLoaded(cx, cy);
+        near[slot] = c;
+        nearKey[slot] = key;
+        nearStep[slot] = steps;
+        return c;
+    }
+
+    private void markRelit(int cx, int cy) {
+        Chunk n = chunk(cx, cy);
+        if (n != null && n.lightMark != steps) markRelit(n);
+    }
+
+    private void markRelit(Chunk c) {
+        c.lightMark = steps;
+        relit.add(c);
+    }
+
+    // Corner brightness for a chunk's mesh: (SIZE + 1)^2 values, row-major, each the
+    // sum of max(sky, block) over the four tiles around the corner (0..4 * MAX).
+    // Tiles in chunks that are not loaded count as the nearest tile of this one.
+    private final byte[] tileScratch = new byte[(Chunk.SIZE + 2) * (Chunk.SIZE + 2)];
+
+    public void corners(Chunk c, byte[] out) {
+        final int w = Chunk.SIZE + 2;
+        byte[] t = tileScratch;
+        // Two tiles per byte: the even one in the low nibble
+        for (int k = 0; k < Chunk.BYTES / 2; k++) {
+            int sky = c.skyLight[k], block = c.blockLight[k];
+            int i = k << 1;
+            int at = ((i >> Chunk.SHIFT) + 1) * w + (i & Chunk.MASK) + 1;
+            t[at] = (byte) Math.max(sky & 0xf, block & 0xf);
+            t[at + 1] = (byte) Math.max((sky >> 4) & 0xf, (block >> 4) & 0xf);
+        }
+        // The ring around it from the neighbours, one lookup per side and corner
+        for (int side = 0; side < 8; side++) {
+            int dx = RING_DX[side], dy = RING_DY[side];
+            Chunk n = chunks.getIfLoaded(c.cx + dx, c.cy + dy);
+            int len = dx != 0 && dy != 0 ? 1 : Chunk.SIZE;
+            for (int k = 0; k < len; k++) {
+                // Tile in this chunk next to the ring cell, and the ring cell in n
+                int lx = dx < 0 ? 0 : dx > 0 ? Chunk.MASK : k;
+                int ly = dy < 0 ? 0 : dy > 0 ? Chunk.MASK : k;
+                int at = (ly + 1 + dy) * w + lx + 1 + dx;
+                if (n == null) {
+                    t[at] = t[(ly + 1) * w + lx + 1];
+                } else {
+                    int j = ((ly - dy * Chunk.MASK) << Chunk.SHIFT) | (lx - dx * Chunk.MASK);
+                    t[at] = (byte) Math.max(get(n.skyLight, j), get(n.blockLight, j));
+                }
+            }
+        }
+        int k = 0;
+        for (int y = 0; y <= Chunk.SIZE; y++) {
+            for (int x = 0; x <= Chunk.SIZE; x++) {
+                int a = y * w + x;
+                out[k++] = (byte) (t[a] + t[a + 1] + t[a + w] + t[a + w + 1]);
+            }
+        }
+    }
+
+    private static final int[] RING_DX = {0, 0, -1, 1, -1, 1, -1, 1};
+    private static final int[] RING_DY = {-1, 1, 0, 0, -1, -1, 1, 1};
+
+    // Growable ring of (x, y, channel, value) entries
+    private static final class Queue {
+        private int[] xs = new int[4096];
+        private int[] ys = new int[4096];
+        private byte[] meta = new byte[4096]; // channel << 4 | value
+        private int head, size;
+        int x, y, channel, value; // the entry last popped
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int px, int py, int pch, int pvalue) {
+            if (size == xs.length) grow();
+            int at = (head + size) & (xs.length - 1);
+            xs[at] = px;
+            ys[at] = py;
+            meta[at] = (byte) (pch << 4 | pvalue);
+            size++;
+        }
+
+        void pop() {
+            x = xs[head];
+            y = ys[head];
+            channel = meta[head] >> 4;
+            value = meta[head] & 0xf;
+            head = (head + 1) & (xs.length - 1);
+            size--;
+        }
+
+        private void grow() {
+            int n = xs.length;
+            int[] nx = new int[n * 2], ny = new int[n * 2];
+            byte[] nm = new byte[n * 2];
+            for (int k = 0; k < size; k++) {
+                int from = (head + k) & (n - 1);
+                nx[k] = xs[from];
+                ny[k] = ys[from];
+                nm[k] = meta[from];
+            }
+            xs = nx;
+            ys = ny;
+            meta = nm;
+            head = 0;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.Arrays;
+
+// Open-addressing long -> byte map with linear probing.
+// Key 0 is stored out of band so 0 can mark a free slot; removal shifts later
+// entries back into the hole instead of leaving tombstones.
+public class LongByteHashMap {
+    public interface Visitor {
+        void accept(long key, byte value);
+    }
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private byte[] values;
+    private int mask;
+    private int size;
+    private int growAt;
+    private boolean hasZeroKey;
+    private byte zeroValue;
+
+    public LongByteHashMap() {
+        this(16);
+    }
+
+    public LongByteHashMap(int expected) {
+        int cap = Integer.highestOneBit(Math.max(4, (int) (expected / LOAD_FACTOR) + 1) - 1) << 1;
+        allocate(cap);
+    }
+
+    private void allocate(int cap) {
+        keys = new long[cap];
+        values = new byte[cap];
+        mask = cap - 1;
+        growAt = (int) (cap * LOAD_FACTOR);
+    }
+
+    private static int mix(long k) {
+        // murmur3 fmix64, folded to 32 bits
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return (int) k;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) return hasZeroKey;
+        int pos = mix(key) & mask;
+        long k;
+        while ((k = keys[pos]) != 0) {
+            if (k == key) return true;
+            pos = (pos + 1) & mask;
+        }
+        return false;
+    }
+
+    // Returns the stored value, or missing when the key is absent
+    public int get(long key, int missing) {
+        if (key == 0) return hasZeroKey ? zeroValue : missing;
+        int pos = mix(key) & mask;
+        long k;
+        while ((k = keys[pos]) != 0) {
+            if (k == key) return values[pos];
+            pos = (pos + 1) & mask;
+        }
+        return missing;
+    }
+
+    public void put(long key, byte value) {
+        if (key == 0) {
+            if (!hasZeroKey) size++;
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int pos = mix(key) & mask;
+        long k;
+        while ((k = keys[pos]) != 0) {
+            if (k == key) {
+                values[pos] = value;
+                return;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        values[pos] = value;
+        if (++size > growAt) rehash(keys.length << 1);
+    }
+
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) return false;
+            hasZeroKey = false;
+            size--;
+            return true;
+        }
+        int pos = mix(key) & mask;
+        long k;
+        while ((k = keys[pos]) != 0) {
+            if (k == key) {
+                shiftBack(pos);
+                size--;
+                return true;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return false;
+    }
+
+    // Close the hole at pos by pulling forward any entry whose probe run passes over it
+    private void shiftBack(int pos) {
+        int last = pos;
+        pos = (pos + 1) & mask;
+        while (true) {
+            long k = keys[pos];
+            if (k == 0) {
+                keys[last] = 0;
+                return;
+            }
+            int home = mix(k) & mask;
+            boolean movable = last <= pos ? (last >= home || home > pos) : (last >= home && home > pos);
+            if (movable) {
+                keys[last] = k;
+                values[last] = values[pos];
+                last = pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    private void rehash(int newCap) {
+        long[] oldKeys = keys;
+        byte[] oldValues = values;
+        allocate(newCap);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if (k == 0) continue;
+            int pos = mix(k) & mask;
+            while (keys[pos] != 0) pos = (pos + 1) & mask;
+            keys[pos] = k;
+            values[pos] = oldValues[i];
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    public void forEach(Visitor visitor) {
+        if (hasZeroKey) visitor.accept(0L, zeroValue);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) visitor.accept(keys[i], values[i]);
+        }
+    }
+
+    // Heap footprint of the backing arrays divided by the live entry count
+    public double bytesPerEntry() {
+        if (size == 0) return 0;
+        return (keys.length * 9.0 + 32) / size;
+    }
+}
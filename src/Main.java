@@ -1,3 +1,6 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
 import org.lwjgl.glfw.*;
 import org.lwjgl.opengl.*;
 import org.lwjgl.system.*;
@@ -10,14 +13,45 @@ public class Main {
     private long window;
     private final int WIDTH = 800;
     private final int HEIGHT = 600;
+    private static final float MAX_FRAME_DT = 0.25f;
+    private static final Path SAVE_DIR = Path.of("saves", "world");
+    private static final long AUTOSAVE_NS = 30_000_000_000L;
 
     private GameState currentState = GameState.START_SCREEN;
     private StartScreen startScreen;
     private GameWorld gameWorld;
+    private GameRenderer gameRenderer;
+    private WorldStore worldStore;
+    private long lastSaveNs;
+    private final InputState input = new InputState();
+    private final InputEvents events = new InputEvents();
+    // Inventory clicks waiting for a tick to carry them, one per tick in click order
+    private final int[] pendingClicks = new int[16];
+    private int pendingClickCount;
+    private final Path recordPath; // --record: play a fresh unsaved world and write its input here
+    private InputRecorder recorder;
+
+    public Main(Path recordPath) {
+        this.recordPath = recordPath;
+    }
 
     public void run() {
         init();
         loop();
+        if (gameRenderer != null) gameRenderer.dispose();
+        if (worldStore != null) {
+            worldStore.saveAsync(gameWorld);
+            worldStore.close();
+        }
+        if (recorder != null) {
+            try {
+                recorder.close();
+                System.out.println("Recorded " + recorder.getTicks() + " ticks to " + recordPath);
+            } catch (IOException e) {
+                System.err.println("Could not finish recording " + recordPath + ": " + e.getMessage());
+            }
+        }
+        if (gameWorld != null) gameWorld.dispose();
         glfwDestroyWindow(window);
         glfwTerminate();
     }
@@ -51,44 +85,101 @@ public class Main {
 
         startScreen = new StartScreen();
 
-        glfwSetKeyCallback(window, (win, key, scancode, action, mods) -> {
-            if (action == GLFW_PRESS) {
-                if (currentState == GameState.START_SCREEN && key == GLFW_KEY_ENTER) {
+        events.install(window);
+    }
+
+    // Handles the presses that trigger actions; held keys are read from the bitset
+    private void handleEvents(int fbWidth, int fbHeight) {
+        while (events.poll()) {
+            if (events.type() == InputEvents.SCROLL) {
+                if (currentState == GameState.PLAYING && !gameRenderer.isInventoryOpen()) gameRenderer.zoomBy(events.y());
+                continue;
+            }
+            if (!events.isPress()) continue;
+            int code = events.code();
+            if (events.type() == InputEvents.KEY) {
+                if (currentState == GameState.START_SCREEN && code == GLFW_KEY_ENTER) {
                     currentState = GameState.PLAYING;
-                    gameWorld = new GameWorld(WIDTH, HEIGHT, System.currentTimeMillis());
-                } else if (currentState == GameState.PLAYING && key == GLFW_KEY_E) {
-                    gameWorld.toggleInventory();
+                    startWorld();
+                } else if (currentState == GameState.PLAYING && code == GLFW_KEY_E) {
+                    gameRenderer.toggleInventory();
+                } else if (currentState == GameState.PLAYING && code == GLFW_KEY_F3) {
+                    gameRenderer.toggleProfiler();
+                } else if (currentState == GameState.PLAYING && code == GLFW_KEY_F4) {
+                    gameRenderer.toggleTileTextures();
+                } else if (currentState == GameState.PLAYING && code == GLFW_KEY_M) {
+                    gameRenderer.toggleOverview();
                 }
-            }
-        });
-        
-        glfwSetMouseButtonCallback(window, (win, button, action, mods) -> {
-            if (currentState == GameState.PLAYING && action == GLFW_PRESS && button == GLFW_MOUSE_BUTTON_LEFT) {
-                if (gameWorld.isInventoryOpen()) {
-                    double[] mx = new double[1];
-                    double[] my = new double[1];
-                    glfwGetCursorPos(window, mx, my);
-                    
-                    try (MemoryStack stack = MemoryStack.stackPush()) {
-                        var pW = stack.mallocInt(1);
-                        var pH = stack.mallocInt(1);
-                        glfwGetFramebufferSize(window, pW, pH);
-                        int fbWidth = pW.get(0);
-                        int fbHeight = pH.get(0);
-                        
-                        gameWorld.handleInventoryClick(mx[0], my[0], fbWidth, fbHeight);
-                    }
+            } else if (events.type() == InputEvents.BUTTON && code == GLFW_MOUSE_BUTTON_LEFT
+                    && currentState == GameState.PLAYING && gameRenderer.isInventoryOpen()) {
+                int click = gameRenderer.inventoryClickAt(events.x(), events.y(), fbWidth, fbHeight);
+                if (click != InputState.NO_CLICK && pendingClickCount < pendingClicks.length) {
+                    pendingClicks[pendingClickCount++] = click;
                 }
             }
-        });
+        }
+    }
+
+    private void startWorld() {
+        if (recordPath != null) {
+            startRecordedWorld();
+            return;
+        }
+        try {
+            worldStore = new WorldStore(SAVE_DIR);
+            long seed = worldStore.hasLevel() ? WorldStore.readSeed(SAVE_DIR) : System.currentTimeMillis();
+            gameWorld = new GameWorld(WIDTH, HEIGHT, seed);
+            worldStore.attach(gameWorld);
+        } catch (IOException e) {
+            System.err.println("Could not open save in " + SAVE_DIR + ", starting unsaved world: " + e.getMessage());
+            if (worldStore != null) worldStore.close();
+            worldStore = null;
+            if (gameWorld != null) gameWorld.dispose();
+            gameWorld = new GameWorld(WIDTH, HEIGHT, System.currentTimeMillis());
+        }
+        gameRenderer = new GameRenderer(gameWorld);
+        lastSaveNs = System.nanoTime();
+    }
+
+    // A replay starts from a fresh world, so a recorded session never touches the save
+    private void startRecordedWorld() {
+        long seed = System.currentTimeMillis();
+        gameWorld = new GameWorld(WIDTH, HEIGHT, seed);
+        gameRenderer = new GameRenderer(gameWorld);
+        try {
+            recorder = new InputRecorder(recordPath, seed);
+        } catch (IOException e) {
+            System.err.println("Could not record to " + recordPath + ": " + e.getMessage());
+        }
+    }
+
+    private int nextInventoryClick() {
+        if (pendingClickCount == 0) return InputState.NO_CLICK;
+        int click = pendingClicks[0];
+        System.arraycopy(pendingClicks, 1, pendingClicks, 0, --pendingClickCount);
+        return click;
+    }
+
+    private void record() {
+        try {
+            recorder.record(input);
+        } catch (IOException e) {
+            System.err.println("Recording stopped: " + e.getMessage());
+            try {
+                recorder.close();
+            } catch (IOException ignored) {
+            }
+            recorder = null;
+        }
     }
 
     private void loop() {
         long lastTime = System.nanoTime();
+        float accumulator = 0f;
         while (!glfwWindowShouldClose(window)) {
             long now = System.nanoTime();
-            float dt = (now - lastTime) / 1_000_000_000f;
-            if (dt > 0.05f) dt = 0.05f; // clamp
+            float frameDt = (now - lastTime) / 1_000_000_000f;
+            if (frameDt > MAX_FRAME_DT) frameDt = MAX_FRAME_DT; // avoid a spiral of catch-up ticks
             lastTime = now;
 
             try (MemoryStack stack = MemoryStack.stackPush()) {
@@ -103,29 +194,47 @@ public class Main {
                     continue;
                 }
 
+                handleEvents(fbWidth, fbHeight);
                 glViewport(0, 0, fbWidth, fbHeight);
                 glDrawBuffer(GL_BACK);
 
                 if (currentState == GameState.START_SCREEN) {
                     startScreen.render(fbWidth, fbHeight);
                 } else if (currentState == GameState.PLAYING) {
-                    boolean left = glfwGetKey(window, GLFW_KEY_LEFT) == GLFW_PRESS || glfwGetKey(window, GLFW_KEY_A) == GLFW_PRESS;
-                    boolean right = glfwGetKey(window, GLFW_KEY_RIGHT) == GLFW_PRESS || glfwGetKey(window, GLFW_KEY_D) == GLFW_PRESS;
-                    boolean jump = glfwGetKey(window, GLFW_KEY_SPACE) == GLFW_PRESS || glfwGetKey(window, GLFW_KEY_UP) == GLFW_PRESS || glfwGetKey(window, GLFW_KEY_W) == GLFW_PRESS;
+                    Profiler profiler = gameWorld.getProfiler();
+                    profiler.begin(Profiler.INPUT);
+                    InputEvents e = events;
+                    input.left = e.isKeyDown(GLFW_KEY_LEFT) || e.isKeyDown(GLFW_KEY_A);
+                    input.right = e.isKeyDown(GLFW_KEY_RIGHT) || e.isKeyDown(GLFW_KEY_D);
+                    input.jump = e.isKeyDown(GLFW_KEY_SPACE) || e.isKeyDown(GLFW_KEY_UP) || e.isKeyDown(GLFW_KEY_W);
                     // Hotbar selection 1-9
+                    input.hotbarSelect = -1;
                     for (int i = 0; i < 9; i++) {
-                        if (glfwGetKey(window, GLFW_KEY_1 + i) == GLFW_PRESS) {
-                            gameWorld.setHotbarSelected(i);
-                        }
+                        if (e.isKeyDown(GLFW_KEY_1 + i)) input.hotbarSelect = i;
+                    }
+                    input.mining = e.isButtonDown(GLFW_MOUSE_BUTTON_1);
+                    input.placing = e.isButtonDown(GLFW_MOUSE_BUTTON_2);
+                    input.cursorWorldX = gameRenderer.screenToWorldX(e.cursorX());
+                    input.cursorWorldY = gameRenderer.screenToWorldY(e.cursorY());
+                    profiler.end(Profiler.INPUT);
+
+                    accumulator += frameDt;
+                    while (accumulator >= GameWorld.TICK_DT) {
+                        input.inventoryClick = nextInventoryClick();
+                        if (recorder != null) record();
+                        gameWorld.tick(GameWorld.TICK_DT, input);
+                        accumulator -= GameWorld.TICK_DT;
+                    }
+                    profiler.begin(Profiler.RENDER);
+                    gameRenderer.render(fbWidth, fbHeight, accumulator / GameWorld.TICK_DT);
+                    profiler.end(Profiler.RENDER);
+                    if (worldStore != null && now - lastSaveNs > AUTOSAVE_NS) {
+                        worldStore.saveAsync(gameWorld);
+                        lastSaveNs = now;
                     }
-                    double[] mx = new double[1];
-                    double[] my = new double[1];
-                    glfwGetCursorPos(window, mx, my);
-                    boolean mining = glfwGetMouseButton(window, GLFW_MOUSE_BUTTON_1) == GLFW_PRESS;
-                    boolean placing = glfwGetMouseButton(window, GLFW_MOUSE_BUTTON_2) == GLFW_PRESS;
-                    gameWorld.updateWithInput(dt, left, right, jump, mx[0], my[0], fbWidth, fbHeight, mining, placing);
-                    gameWorld.render(fbWidth, fbHeight);
-                    gameWorld.renderFullInventory(fbWidth, fbHeight);
+                    profiler.begin(Profiler.INVENTORY);
+                    gameRenderer.renderFullInventory(fbWidth, fbHeight);
+                    profiler.end(Profiler.INVENTORY);
                 }
             }
 
@@ -134,13 +243,32 @@ public class Main {
                 System.err.println("GL error: 0x" + Integer.toHexString(err));
             }
 
+            // Swap (including the vsync wait) and event polling belong to the frame just drawn
+            Profiler profiler = currentState == GameState.PLAYING ? gameWorld.getProfiler() : null;
+            if (profiler != null) profiler.begin(Profiler.SWAP);
             glfwSwapBuffers(window);
+            if (profiler != null) {
+                profiler.end(Profiler.SWAP);
+                profiler.begin(Profiler.INPUT);
+            }
             glfwPollEvents();
+            if (profiler != null) {
+                profiler.end(Profiler.INPUT);
+                profiler.endFrame();
+            }
         }
     }
 
+    //   java Main [--record session.rec]
     public static void main(String[] args) {
-        new Main().run();
+        Path recordPath = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--record": recordPath = Path.of(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        new Main(recordPath).run();
     }
 }
 
@@ -0,0 +1,127 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.lwjgl.system.MemoryUtil;
+
+import static org.lwjgl.opengl.GL11.*;
+
+// Draws ChunkSummaries as a map: one SLOTS x SLOTS atlas of chunk summaries, where
+// chunk (cx, cy) always lives in slot (cx & (SLOTS-1), cy & (SLOTS-1)). With
+// GL_REPEAT the atlas then wraps like the world does, so any view up to
+// MAX_SPAN_TILES wide is a single textured quad; moving only re-uploads the chunks
+// that scrolled into the view, and an edit only the one chunk whose summary changed.
+public class MinimapRenderer {
+    private static final int SLOTS = 32;
+    private static final int PIXELS = ChunkSummaries.PIXELS;
+    private static final int ATLAS = SLOTS * PIXELS; // 512 x 512 RGBA, 1 MB
+    // Widest view whose chunks never need the same slot twice
+    public static final int MAX_SPAN_TILES = (SLOTS - 1) * Chunk.SIZE;
+    private static final int MAX_UPLOADS = 64; // per frame; the rest catch up over the next frames
+    private static final int UNSEEN = 0x202020ff; // chunks never loaded
+    private static final int UNSEEN_VERSION = -1;
+    private static final int EMPTY_VERSION = -2; // slot holds nothing yet
+
+    private final ChunkSummaries summaries;
+    private final int texture;
+    private final long[] slotKey = new long[SLOTS * SLOTS];
+    private final int[] slotVersion = new int[SLOTS * SLOTS]; // summary version shown, or one of the above
+    private final ByteBuffer upload = MemoryUtil.memAlloc(PIXELS * PIXELS * 4);
+    private long uploads;
+
+    // Needs a current GL context
+    public MinimapRenderer(ChunkSummaries summaries) {
+        this.summaries = summaries;
+        Arrays.fill(slotVersion, EMPTY_VERSION);
+        texture = glGenTextures();
+        glBindTexture(GL_TEXTURE_2D, texture);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_REPEAT);
+        ByteBuffer blank = MemoryUtil.memAlloc(ATLAS * ATLAS * 4);
+        for (int i = 0; i < ATLAS * ATLAS; i++) putRgba(blank, UNSEEN);
+        blank.flip();
+        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, ATLAS, ATLAS, 0, GL_RGBA, GL_UNSIGNED_BYTE, blank);
+        MemoryUtil.memFree(blank);
+        glBindTexture(GL_TEXTURE_2D, 0);
+    }
+
+    // Screen-space square at (x, y) showing spanTiles x spanTiles tiles centred on
+    // the given tile position, with a frame and a marker in the middle. Expects the
+    // screen projection; returns draw calls.
+    public int draw(float x, float y, float size, float centerTileX, float centerTileY, int spanTiles) {
+        spanTiles = Math.min(spanTiles, MAX_SPAN_TILES);
+        float tileX0 = centerTileX - spanTiles * 0.5f;
+        float tileY0 = centerTileY - spanTiles * 0.5f;
+        int tx0 = (int) Math.floor(tileX0), ty0 = (int) Math.floor(tileY0);
+        sync(tx0 >> Chunk.SHIFT, (tx0 + spanTiles) >> Chunk.SHIFT, ty0 >> Chunk.SHIFT, (ty0 + spanTiles) >> Chunk.SHIFT);
+
+        float texelsPerTile = 1f / (ChunkSummaries.SCALE * ATLAS);
+        float u0 = tileX0 * texelsPerTile, v0 = tileY0 * texelsPerTile;
+        float u1 = u0 + spanTiles * texelsPerTile, v1 = v0 + spanTiles * texelsPerTile;
+        glEnable(GL_TEXTURE_2D);
+        glBindTexture(GL_TEXTURE_2D, texture);
+        glColor4f(1f, 1f, 1f, 1f);
+        glBegin(GL_QUADS);
+        glTexCoord2f(u0, v0); glVertex2f(x, y);
+        glTexCoord2f(u1, v0); glVertex2f(x + size, y);
+        glTexCoord2f(u1, v1); glVertex2f(x + size, y + size);
+        glTexCoord2f(u0, v1); glVertex2f(x, y + size);
+        glEnd();
+        glBindTexture(GL_TEXTURE_2D, 0);
+        glDisable(GL_TEXTURE_2D);
+
+        glColor3f(1f, 1f, 1f);
+        glBegin(GL_LINE_LOOP);
+        glVertex2f(x, y);
+        glVertex2f(x + size, y);
+        glVertex2f(x + size, y + size);
+        glVertex2f(x, y + size);
+        glEnd();
+        float mx = x + size * 0.5f, my = y + size * 0.5f;
+        glColor3f(1.0f, 0.2f, 0.2f);
+        glBegin(GL_QUADS);
+        glVertex2f(mx - 2, my - 2);
+        glVertex2f(mx + 2, my - 2);
+        glVertex2f(mx + 2, my + 2);
+        glVertex2f(mx - 2, my + 2);
+        glEnd();
+        return 3;
+    }
+
+    // Uploads every chunk in range whose slot shows another chunk or an older version
+    private void sync(int cx0, int cx1, int cy0, int cy1) {
+        int budget = MAX_UPLOADS;
+        glBindTexture(GL_TEXTURE_2D, texture);
+        for (int cy = cy0; cy <= cy1 && budget > 0; cy++) {
+            for (int cx = cx0; cx <= cx1 && budget > 0; cx++) {
+                ChunkSummaries.Summary s = summaries.get(cx, cy);
+                long key = Chunk.key(cx, cy);
+                int version = s == null ? UNSEEN_VERSION : s.getVersion();
+                int slot = (cy & (SLOTS - 1)) * SLOTS + (cx & (SLOTS - 1));
+                if (slotKey[slot] == key && slotVersion[slot] == version) continue;
+                upload.clear();
+                for (int i = 0; i < PIXELS * PIXELS; i++) putRgba(upload, s == null ? UNSEEN : s.pixels[i]);
+                upload.flip();
+                glTexSubImage2D(GL_TEXTURE_2D, 0, (cx & (SLOTS - 1)) * PIXELS, (cy & (SLOTS - 1)) * PIXELS,
+                        PIXELS, PIXELS, GL_RGBA, GL_UNSIGNED_BYTE, upload);
+                slotKey[slot] = key;
+                slotVersion[slot] = version;
+                uploads++;
+                budget--;
+            }
+        }
+        glBindTexture(GL_TEXTURE_2D, 0);
+    }
+
+    private static void putRgba(ByteBuffer out, int rgba) {
+        out.put((byte) (rgba >>> 24)).put((byte) (rgba >>> 16)).put((byte) (rgba >>> 8)).put((byte) rgba);
+    }
+
+    public long getUploads() { return uploads; }
+
+    public void dispose() {
+        glDeleteTextures(texture);
+        MemoryUtil.memFree(upload);
+    }
+}
@@ -0,0 +1,115 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+// Per-frame timings and counters in a fixed ring of primitive longs, so recording
+// allocates nothing. A frame is filled by begin/end and count, then published by
+// endFrame. Only the game-loop thread writes; `frames` is volatile and bumped after
+// the row is written, so another thread reading frames older than the newest
+// CAPACITY sees complete rows without taking a lock.
+public class Profiler {
+    // Timed sections, nanoseconds per frame
+    public static final int INPUT = 0;
+    public static final int UPDATE = 1;
+    public static final int DROPS = 2;
+    public static final int MINING = 3;
+    public static final int RENDER = 4;
+    public static final int INVENTORY = 5;
+    public static final int SWAP = 6;
+    public static final int FLUIDS = 7;
+    public static final int LIGHT = 8;
+    public static final int SECTIONS = 9;
+    // Counters, per frame
+    public static final int DRAW_CALLS = 9;
+    public static final int TILES = 10;
+    public static final int METRICS = 11;
+
+    public static final String[] NAMES = {
+        "input", "update", "updateDrops", "handleMining", "render", "renderFullInventory", "swap",
+        "fluids", "light", "drawCalls", "tiles"
+    };
+
+    public static final int CAPACITY = 512; // frames kept; power of two
+    private static final int MASK = CAPACITY - 1;
+
+    private final long[] ring = new long[CAPACITY * METRICS]; // frame-major
+    private final long[] current = new long[METRICS];
+    private final long[] started = new long[SECTIONS];
+    private final long[] scratch = new long[CAPACITY];
+    private volatile long frames;
+    private boolean timing = true;
+
+    // Off skips the clock reads (a few per tick add up in headless runs); frames still
+    // advance and counters still count
+    public void setTiming(boolean timing) {
+        this.timing = timing;
+    }
+
+    public void begin(int section) {
+        if (timing) started[section] = System.nanoTime();
+    }
+
+    // Sections may run several times a frame (several ticks); the time adds up
+    public void end(int section) {
+        if (timing) current[section] += System.nanoTime() - started[section];
+    }
+
+    public void count(int counter, long n) {
+        current[counter] += n;
+    }
+
+    public void endFrame() {
+        long f = frames;
+        System.arraycopy(current, 0, ring, (int) (f & MASK) * METRICS, METRICS);
+        Arrays.fill(current, 0L);
+        frames = f + 1;
+    }
+
+    // Frames recorded so far; the last min(frames, CAPACITY) are still in the ring
+    public long frames() {
+        return frames;
+    }
+
+    public long oldestFrame() {
+        return Math.max(0L, frames - CAPACITY);
+    }
+
+    public long get(long frame, int metric) {
+        return ring[(int) (frame & MASK) * METRICS + metric];
+    }
+
+    // p in [0, 1] over the frames still in the ring; 0 when nothing was recorded
+    public long percentile(int metric, double p) {
+        long end = frames;
+        long start = Math.max(0L, end - CAPACITY);
+        int n = (int) (end - start);
+        if (n == 0) return 0L;
+        for (int i = 0; i < n; i++) scratch[i] = get(start + i, metric);
+        Arrays.sort(scratch, 0, n);
+        return scratch[Math.min(n - 1, (int) (p * n))];
+    }
+
+    public long max(int metric) {
+        long end = frames;
+        long m = 0L;
+        for (long f = Math.max(0L, end - CAPACITY); f < end; f++) m = Math.max(m, get(f, metric));
+        return m;
+    }
+
+    public static void writeCsvHeader(Appendable out) throws IOException {
+        out.append("frame");
+        for (String name : NAMES) out.append(',').append(name);
+        out.append('\n');
+    }
+
+    // Appends one row per frame from `from` (or the oldest frame still held) up to
+    // the newest; returns the frame to pass as `from` next time
+    public long appendCsv(Appendable out, long from) throws IOException {
+        long end = frames;
+        for (long f = Math.max(from, end - CAPACITY); f < end; f++) {
+            out.append(Long.toString(f));
+            for (int m = 0; m < METRICS; m++) out.append(',').append(Long.toString(get(f, m)));
+            out.append('\n');
+        }
+        return end;
+    }
+}
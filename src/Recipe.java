@@ -1,14 +1,118 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
 public class Recipe {
     public final String name;
     public final Item result;
     public final Item[] ingredients;
     public final int[] quantities;
+    // Shaped recipes: ingredient codes row-major in a patternWidth x patternHeight box, 0 = empty.
+    // null for shapeless recipes, which take one item per grid slot in any arrangement.
+    final int[] pattern;
+    final int patternWidth;
+    final int patternHeight;
+    private int[] slotCodes;
 
     public Recipe(String name, Item result, Item[] ingredients, int[] quantities) {
         this.name = name;
         this.result = result;
         this.ingredients = ingredients;
         this.quantities = quantities;
+        this.pattern = null;
+        this.patternWidth = 0;
+        this.patternHeight = 0;
+    }
+
+    // rows use one character per slot: '.' is empty, any other character is looked up in keys
+    // ("S", stone, "W", wood). Ingredients and quantities are derived from the pattern.
+    public static Recipe shaped(String name, Item result, String[] rows, Object... keys) {
+        // Trim to the bounding box of the filled slots; grids are trimmed the same way before matching
+        int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE, x1 = -1, y1 = -1;
+        for (int r = 0; r < rows.length; r++) {
+            if (rows[r].length() != rows[0].length()) throw new IllegalArgumentException(name + ": ragged pattern");
+            for (int c = 0; c < rows[r].length(); c++) {
+                if (rows[r].charAt(c) == '.') continue;
+                x0 = Math.min(x0, c);
+                x1 = Math.max(x1, c);
+                y0 = Math.min(y0, r);
+                y1 = Math.max(y1, r);
+            }
+        }
+        if (x1 < 0) throw new IllegalArgumentException(name + ": empty pattern");
+        int w = x1 - x0 + 1;
+        int h = y1 - y0 + 1;
+        int[] pattern = new int[w * h];
+        ArrayList<Item> ingredients = new ArrayList<>();
+        ArrayList<Integer> quantities = new ArrayList<>();
+        for (int r = 0; r < h; r++) {
+            for (int c = 0; c < w; c++) {
+                char ch = rows[y0 + r].charAt(x0 + c);
+                if (ch == '.') continue;
+                Item item = null;
+                for (int k = 0; k + 1 < keys.length; k += 2) {
+                    if (keys[k].equals(String.valueOf(ch))) item = (Item) keys[k + 1];
+                }
+                if (item == null) throw new IllegalArgumentException(name + ": no key for '" + ch + "'");
+                pattern[r * w + c] = codeOf(item);
+                int i = ingredients.indexOf(item);
+                if (i < 0) {
+                    ingredients.add(item);
+                    quantities.add(1);
+                } else {
+                    quantities.set(i, quantities.get(i) + 1);
+                }
+            }
+        }
+        int[] q = new int[quantities.size()];
+        for (int i = 0; i < q.length; i++) q[i] = quantities.get(i);
+        return new Recipe(name, result, ingredients.toArray(new Item[0]), q, pattern, w, h);
+    }
+
+    private Recipe(String name, Item result, Item[] ingredients, int[] quantities, int[] pattern, int w, int h) {
+        this.name = name;
+        this.result = result;
+        this.ingredients = ingredients;
+        this.quantities = quantities;
+        this.pattern = pattern;
+        this.patternWidth = w;
+        this.patternHeight = h;
+    }
+
+    public boolean isShaped() {
+        return pattern != null;
+    }
+
+    // Blocks are their blockId, tools a negative code per ToolType; 0 is an empty slot
+    static int codeOf(Item item) {
+        if (item == null) return 0;
+        return item.isBlock() ? item.blockId : -1 - item.toolType.ordinal();
+    }
+
+    // Sorted ingredient codes, one per grid slot the recipe occupies
+    int[] slotCodes() {
+        if (slotCodes == null) slotCodes = computeSlotCodes();
+        return slotCodes;
+    }
+
+    private int[] computeSlotCodes() {
+        if (pattern != null) {
+            int n = 0;
+            for (int code : pattern) if (code != 0) n++;
+            int[] out = new int[n];
+            n = 0;
+            for (int code : pattern) if (code != 0) out[n++] = code;
+            Arrays.sort(out);
+            return out;
+        }
+        int n = 0;
+        for (int q : quantities) n += q;
+        int[] out = new int[n];
+        n = 0;
+        for (int i = 0; i < ingredients.length; i++) {
+            for (int k = 0; k < quantities[i]; k++) out[n++] = codeOf(ingredients[i]);
+        }
+        Arrays.sort(out);
+        return out;
     }
 
     public boolean canCraft(Inventory inventory) {
@@ -0,0 +1,127 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+// Recipes compiled into a hash index so matching a crafting grid is one
+// signature computation and a lookup, however many recipes there are.
+// Shaped recipes are keyed by their pattern trimmed to its bounding box (so a
+// 2x2 pattern matches anywhere in a 3x3 grid); shapeless recipes by the sorted
+// multiset of ingredient codes, one per occupied slot. Either way a craft takes
+// one item from every occupied slot.
+public class RecipeBook {
+    private static final long SHAPED = 0x5348415045444L;
+    private static final long SHAPELESS = 0x4C4553534C4CL;
+    private static RecipeBook standard;
+
+    // Signature hash -> recipes with that hash (more than one only on a hash collision)
+    private final HashMap<Long, List<Recipe>> index = new HashMap<>();
+    private final int size;
+    // Scratch for signatures; matching happens on the main thread only
+    private int[] codes = new int[9];
+    private int[] sorted = new int[9];
+
+    public RecipeBook(List<Recipe> recipes) {
+        for (Recipe r : recipes) {
+            long key = r.isShaped()
+                ? shapedKey(r.pattern, r.patternWidth, 0, 0, r.patternWidth, r.patternHeight)
+                : shapelessKey(r.slotCodes(), r.slotCodes().length);
+            List<Recipe> bucket = index.computeIfAbsent(key, k -> new ArrayList<>(1));
+            for (Recipe other : bucket) {
+                if (sameSignature(r, other)) {
+                    throw new IllegalArgumentException("Recipes " + other.name + " and " + r.name + " have the same ingredients");
+                }
+            }
+            bucket.add(r);
+        }
+        size = recipes.size();
+    }
+
+    // The recipes from CraftingSystem, compiled once
+    public static RecipeBook standard() {
+        if (standard == null) standard = new RecipeBook(new CraftingSystem().getAllRecipes());
+        return standard;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // grid is gridSize x gridSize, row-major; returns null when nothing matches
+    public Recipe match(Item[] grid, int gridSize) {
+        if (codes.length < grid.length) {
+            codes = new int[grid.length];
+            sorted = new int[grid.length];
+        }
+        int minC = gridSize, minR = gridSize, maxC = -1, maxR = -1, n = 0;
+        for (int i = 0; i < grid.length; i++) {
+            int code = Recipe.codeOf(grid[i]);
+            codes[i] = code;
+            if (code == 0) continue;
+            int r = i / gridSize, c = i % gridSize;
+            if (c < minC) minC = c;
+            if (c > maxC) maxC = c;
+            if (r < minR) minR = r;
+            if (r > maxR) maxR = r;
+            sorted[n++] = code;
+        }
+        if (n == 0) return null;
+        int w = maxC - minC + 1;
+        int h = maxR - minR + 1;
+        // Shaped first: a pattern is more specific than the same items in any order
+        List<Recipe> bucket = index.get(shapedKey(codes, gridSize, minC, minR, w, h));
+        if (bucket != null) {
+            for (Recipe r : bucket) {
+                if (r.isShaped() && patternMatches(r, gridSize, minC, minR, w, h)) return r;
+            }
+        }
+        Arrays.sort(sorted, 0, n);
+        bucket = index.get(shapelessKey(sorted, n));
+        if (bucket != null) {
+            for (Recipe r : bucket) {
+                if (r.isShaped()) continue;
+                int[] want = r.slotCodes();
+                if (Arrays.equals(want, 0, want.length, sorted, 0, n)) return r;
+            }
+        }
+        return null;
+    }
+
+    private boolean patternMatches(Recipe r, int gridSize, int x0, int y0, int w, int h) {
+        if (r.patternWidth != w || r.patternHeight != h) return false;
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                if (r.pattern[y * w + x] != codes[(y0 + y) * gridSize + x0 + x]) return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameSignature(Recipe a, Recipe b) {
+        if (a.isShaped() != b.isShaped()) return false;
+        if (a.isShaped()) {
+            return a.patternWidth == b.patternWidth && Arrays.equals(a.pattern, b.pattern);
+        }
+        return Arrays.equals(a.slotCodes(), b.slotCodes());
+    }
+
+    // Hash of the w x h box at (x0, y0) of a row-major grid with the given stride
+    private static long shapedKey(int[] cells, int stride, int x0, int y0, int w, int h) {
+        long hash = SHAPED ^ (w * 31L + h);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) hash = mix(hash, cells[(y0 + y) * stride + x0 + x]);
+        }
+        return hash;
+    }
+
+    private static long shapelessKey(int[] sortedCodes, int n) {
+        long hash = SHAPELESS ^ n;
+        for (int i = 0; i < n; i++) hash = mix(hash, sortedCodes[i]);
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+}
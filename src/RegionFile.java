@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// One file per 32x32 block of chunks. Layout:
+//   int magic, int version, int[REGION_CHUNKS] chunk offsets (0 = not stored)
+//   followed by raw Chunk.BYTES tile payloads.
+// Reads come straight out of a read-only mapping of the file; writes go
+// through the channel (in place when the chunk already has a slot, else appended).
+public class RegionFile {
+    public static final int SHIFT = 5; // 32x32 chunks per region
+    public static final int REGION_CHUNKS = 1 << (SHIFT * 2);
+    private static final int MAGIC = 0x45465247; // "EFRG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8 + REGION_CHUNKS * 4;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int[] offsets = new int[REGION_CHUNKS];
+    private MappedByteBuffer map;
+    private long size;
+
+    private RegionFile(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    public static RegionFile open(Path path) throws IOException {
+        boolean exists = Files.exists(path);
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        RegionFile rf = new RegionFile(path, ch);
+        if (exists && ch.size() >= HEADER_BYTES) {
+            rf.remap();
+            if (rf.map.getInt(0) != MAGIC || rf.map.getInt(4) != VERSION) {
+                ch.close();
+                throw new IOException(path + ": not a region file");
+            }
+            rf.map.position(8);
+            rf.map.asIntBuffer().get(rf.offsets);
+            rf.map.position(0);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES); // offsets start zeroed
+            header.putInt(0, MAGIC).putInt(4, VERSION);
+            ch.write(header, 0);
+            rf.remap();
+        }
+        return rf;
+    }
+
+    public static int index(int cx, int cy) {
+        int mask = (1 << SHIFT) - 1;
+        return ((cy & mask) << SHIFT) | (cx & mask);
+    }
+
+    private void remap() throws IOException {
+        size = channel.size();
+        map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    public synchronized boolean contains(int index) {
+        return offsets[index] != 0;
+    }
+
+    public synchronized boolean read(int index, Chunk chunk) throws IOException {
+        int off = offsets[index];
+        if (off == 0) return false;
+        if (off + Chunk.BYTES > size) remap(); // written after the last mapping
+        chunk.loadTiles(map, off);
+        return true;
+    }
+
+    public synchronized void write(int index, byte[] tiles) throws IOException {
+        int off = offsets[index];
+        if (off == 0) {
+            off = (int) channel.size();
+            channel.write(ByteBuffer.wrap(tiles, 0, Chunk.BYTES), off);
+            ByteBuffer entry = ByteBuffer.allocate(4).putInt(0, off);
+            channel.write(entry, 8 + index * 4L);
+            offsets[index] = off;
+        } else {
+            channel.write(ByteBuffer.wrap(tiles, 0, Chunk.BYTES), off);
+        }
+    }
+
+    public void flush() throws IOException {
+        channel.force(false);
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,280 @@
+public class TerrainGenerator {
+    public static final int SEA_LEVEL = 30; // tile Y for water filling
+
+    private static final int NEEDS_NOISE = -1;
+    private static final int LAYERS = 4;
+
+    private final long seed;
+    private final ColumnCache columns;
+    private boolean reference; // generate() takes the scalar path; for DivergenceCheck
+    // Scratch for generate(); a generator is only ever used by one thread
+    private final int[] batchGround = new int[Chunk.SIZE];
+    private final int[] batchTree = new int[Chunk.SIZE];
+    // Stone blob octaves, then cave octaves, as combined in tileAt
+    private final NoiseLayer[] layers = {
+        new NoiseLayer(0.06f, 555), new NoiseLayer(0.10f, 556),
+        new NoiseLayer(0.20f, 101), new NoiseLayer(0.40f, 202)
+    };
+
+    public TerrainGenerator(long seed) {
+        this.seed = seed;
+        this.columns = new ColumnCache(this);
+    }
+
+    public ColumnCache getColumns() {
+        return columns;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    void setReference(boolean reference) {
+        this.reference = reference;
+    }
+
+    // Deterministic pseudo-random based on index and seed
+    private float rand01(long s, int i) {
+        long x = s ^ (i * 0x9E3779B97F4A7C15L);
+        x ^= (x >>> 30);
+        x *= 0xBF58476D1CE4E5B9L;
+        x ^= (x >>> 27);
+        x *= 0x94D049BB133111EBL;
+        x ^= (x >>> 31);
+        // Convert to [0,1)
+        return ((x >>> 11) & 0xFFFFFFFFFFFFFL) / (float)(1L << 53);
+    }
+
+    // Height of ground in tile coords at a given tile X (cached per column)
+    public int groundTileY(int tileX) {
+        return columns.groundTileY(tileX);
+    }
+
+    public int computeGroundTileY(int tileX) {
+        // Base band around midline
+        float base = 10f; // nominal sky tiles above 0; actual screen height provided at render
+        int step = 8; // distance between control points
+        int i0 = (int) Math.floor(tileX / (float) step);
+        int i1 = i0 + 1;
+        float t = (tileX / (float) step) - i0;
+        float f = t * t * (3f - 2f * t);
+        float h0 = base + 10f + (rand01(seed, i0) - 0.5f) * 6f;
+        float h1 = base + 10f + (rand01(seed, i1) - 0.5f) * 6f;
+        float h = h0 + (h1 - h0) * f;
+        // Add a finer octave
+        int step2 = 4;
+        int j0 = (int) Math.floor(tileX / (float) step2);
+        int j1 = j0 + 1;
+        float t2 = (tileX / (float) step2) - j0;
+        float f2 = t2 * t2 * (3f - 2f * t2);
+        float n0 = (rand01(seed + 1337, j0) - 0.5f) * 2f;
+        float n1 = (rand01(seed + 1337, j1) - 0.5f) * 2f;
+        h += n0 + (n1 - n0) * f2;
+        return Math.max(1, Math.round(h));
+    }
+
+    // 2D value noise for caves (package-private so Benchmarks can time it)
+    float noise2D(float x, float y, float scale, long salt) {
+        float sx = x * scale;
+        float sy = y * scale;
+        int x0 = (int) Math.floor(sx);
+        int y0 = (int) Math.floor(sy);
+        int x1 = x0 + 1;
+        int y1 = y0 + 1;
+        float tx = sx - x0;
+        float ty = sy - y0;
+        float fx = tx * tx * (3f - 2f * tx);
+        float fy = ty * ty * (3f - 2f * ty);
+        float v00 = rand01(seed + salt, (x0 * 7349) ^ (y0 * 9157));
+        float v10 = rand01(seed + salt, (x1 * 7349) ^ (y0 * 9157));
+        float v01 = rand01(seed + salt, (x0 * 7349) ^ (y1 * 9157));
+        float v11 = rand01(seed + salt, (x1 * 7349) ^ (y1 * 9157));
+        float ix0 = v00 + (v10 - v00) * fx;
+        float ix1 = v01 + (v11 - v01) * fx;
+        return ix0 + (ix1 - ix0) * fy;
+    }
+
+    private boolean treeSpawnAt(int tx) {
+        return rand01(seed + 7777L, tx) < 0.07f;
+    }
+
+    private int treeHeightAt(int tx) {
+        return 3 + (int) (rand01(seed + 991L, tx) * 4f);
+    }
+
+    // Tree height for a column, 0 when no tree spawns there
+    public int computeTreeHeight(int tx) {
+        return treeSpawnAt(tx) ? treeHeightAt(tx) : 0;
+    }
+
+    private boolean isTreeTrunkAt(int ty, int ground, int h) {
+        if (h == 0) return false;
+        int surface = ground - 1;
+        return ty <= surface && ty >= surface - (h - 1);
+    }
+
+    private boolean isLeafAt(int ty, int ground, int h) {
+        if (h == 0) return false;
+        int surface = ground - 1;
+        int topY = surface - (h - 1);
+        int dy = ty - (topY - 1);
+        int radius = 2;
+        // diamond-ish canopy (one column wide)
+        return dy >= -radius && dy <= radius && ty <= surface && ty <= topY + radius && ty >= topY - radius && Math.abs(ty - topY) <= radius;
+    }
+
+    // Tile definition: 0 air, 1 dirt, 2 water, 3 trunk, 4 leaves, 5 grass, 6 stone
+    public int tileAt(int tx, int ty) {
+        return tileAt(tx, ty, columns.groundTileY(tx), columns.treeHeight(tx));
+    }
+
+    private int tileAt(int tx, int ty, int ground, int treeHeight) {
+        int tile = shallowTileAt(ty, ground, treeHeight);
+        if (tile != NEEDS_NOISE) return tile;
+        // Base material: stone becomes common deeper underground
+        // Large stone blobs using low-frequency noise
+        float stoneBlob = 0.7f * noise2D(tx, ty, 0.06f, 555) + 0.3f * noise2D(tx, ty, 0.10f, 556);
+        // Deeper layers can have caves (smaller, sparser) carving out both dirt and stone
+        float cave = 0.6f * noise2D(tx, ty, 0.20f, 101) + 0.4f * noise2D(tx, ty, 0.40f, 202);
+        return undergroundTile(ty, ground, stoneBlob, cave);
+    }
+
+    // Everything that does not depend on noise; NEEDS_NOISE below the top three ground layers
+    private int shallowTileAt(int ty, int ground, int treeHeight) {
+        // Trees (above ground)
+        if (isTreeTrunkAt(ty, ground, treeHeight)) return 3;
+        if (isLeafAt(ty, ground, treeHeight)) return 4;
+
+        if (ty >= ground) {
+            int depth = ty - ground;
+            // Guarantee top 3 layers: grass then 2 dirt layers (no caves)
+            if (depth == 0) return 5; // grass
+            if (depth == 1 || depth == 2) return 1; // dirt
+            return NEEDS_NOISE;
+        } else {
+            // Above ground: water at and below sea level
+            if (ty >= SEA_LEVEL) return 2;
+            return 0;
+        }
+    }
+
+    private static int undergroundTile(int ty, int ground, float stoneBlob, float cave) {
+        boolean deep = ty - ground > 10 || ty > SEA_LEVEL + 8;
+        boolean isStone = deep && stoneBlob > 0.55f;
+        if (cave < 0.18f) return 0; // cave air
+        return isStone ? 6 : 1;
+    }
+
+    // Fill a freshly allocated chunk; this is the only caller of tileAt on the hot path.
+    // Batch path: each noise layer hashes its lattice points once per chunk (a few
+    // hundred rand01 calls instead of 16 per underground tile), and the per-column and
+    // per-row interpolation terms are computed once. The arithmetic per tile is the same
+    // as noise2D in the same order, so the result is bit-identical to generateScalar.
+    public void generate(Chunk chunk) {
+        if (reference) {
+            generateScalar(chunk);
+            return;
+        }
+        int baseX = chunk.cx << Chunk.SHIFT;
+        int baseY = chunk.cy << Chunk.SHIFT;
+        int minGround = Integer.MAX_VALUE;
+        for (int lx = 0; lx < Chunk.SIZE; lx++) {
+            int tx = baseX + lx;
+            batchGround[lx] = columns.groundTileY(tx);
+            batchTree[lx] = columns.treeHeight(tx);
+            minGround = Math.min(minGround, batchGround[lx]);
+        }
+        // Noise is only sampled below the grass and two dirt layers
+        if (baseY + Chunk.SIZE - 1 >= minGround + 3) {
+            for (int l = 0; l < LAYERS; l++) layers[l].prepare(baseX, baseY);
+        }
+        NoiseLayer blob0 = layers[0], blob1 = layers[1], cave0 = layers[2], cave1 = layers[3];
+        for (int lx = 0; lx < Chunk.SIZE; lx++) {
+            int ground = batchGround[lx];
+            int treeHeight = batchTree[lx];
+            for (int ly = 0; ly < Chunk.SIZE; ly++) {
+                int ty = baseY + ly;
+                int tile = shallowTileAt(ty, ground, treeHeight);
+                if (tile == NEEDS_NOISE) {
+                    float stoneBlob = 0.7f * blob0.sample(lx, ly) + 0.3f * blob1.sample(lx, ly);
+                    float cave = 0.6f * cave0.sample(lx, ly) + 0.4f * cave1.sample(lx, ly);
+                    tile = undergroundTile(ty, ground, stoneBlob, cave);
+                }
+                chunk.set(lx, ly, tile);
+            }
+        }
+    }
+
+    // Reference path, one tileAt per tile; kept to check generate against and for Benchmarks
+    void generateScalar(Chunk chunk) {
+        int baseX = chunk.cx << Chunk.SHIFT;
+        int baseY = chunk.cy << Chunk.SHIFT;
+        for (int lx = 0; lx < Chunk.SIZE; lx++) {
+            int tx = baseX + lx;
+            int ground = columns.groundTileY(tx);
+            int treeHeight = columns.treeHeight(tx);
+            for (int ly = 0; ly < Chunk.SIZE; ly++) {
+                chunk.set(lx, ly, tileAt(tx, baseY + ly, ground, treeHeight));
+            }
+        }
+    }
+
+    // One noise2D octave evaluated for a whole chunk: lattice values plus per-column and
+    // per-row cell index and smoothstep weight
+    private final class NoiseLayer {
+        private final float scale;
+        private final long salt;
+        private final int[] colCell = new int[Chunk.SIZE];
+        private final float[] colWeight = new float[Chunk.SIZE];
+        private final int[] rowCell = new int[Chunk.SIZE];
+        private final float[] rowWeight = new float[Chunk.SIZE];
+        private float[] lattice = new float[0];
+        private int latticeWidth;
+
+        NoiseLayer(float scale, long salt) {
+            this.scale = scale;
+            this.salt = salt;
+        }
+
+        void prepare(int baseX, int baseY) {
+            // floor(t * scale) is monotonic in t, so the first and last tile bound the lattice
+            int cx0 = (int) Math.floor((float) baseX * scale);
+            int cy0 = (int) Math.floor((float) baseY * scale);
+            int cx1 = (int) Math.floor((float) (baseX + Chunk.SIZE - 1) * scale) + 1;
+            int cy1 = (int) Math.floor((float) (baseY + Chunk.SIZE - 1) * scale) + 1;
+            for (int i = 0; i < Chunk.SIZE; i++) {
+                float sx = (float) (baseX + i) * scale;
+                int x0 = (int) Math.floor(sx);
+                float t = sx - x0;
+                colCell[i] = x0 - cx0;
+                colWeight[i] = t * t * (3f - 2f * t);
+                float sy = (float) (baseY + i) * scale;
+                int y0 = (int) Math.floor(sy);
+                t = sy - y0;
+                rowCell[i] = y0 - cy0;
+                rowWeight[i] = t * t * (3f - 2f * t);
+            }
+            latticeWidth = cx1 - cx0 + 1;
+            int n = latticeWidth * (cy1 - cy0 + 1);
+            if (lattice.length < n) lattice = new float[n];
+            long s = seed + salt;
+            int k = 0;
+            for (int y = cy0; y <= cy1; y++) {
+                for (int x = cx0; x <= cx1; x++) lattice[k++] = rand01(s, (x * 7349) ^ (y * 9157));
+            }
+        }
+
+        float sample(int lx, int ly) {
+            int i = rowCell[ly] * latticeWidth + colCell[lx];
+            float fx = colWeight[lx];
+            float fy = rowWeight[ly];
+            float v00 = lattice[i];
+            float v10 = lattice[i + 1];
+            float v01 = lattice[i + latticeWidth];
+            float v11 = lattice[i + latticeWidth + 1];
+            float ix0 = v00 + (v10 - v00) * fx;
+            float ix1 = v01 + (v11 - v01) * fx;
+            return ix0 + (ix1 - ix0) * fy;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+import java.util.Arrays;
+
+// Axis-separated swept AABB collision against solid tiles, for the player, drops
+// and anything else with a box. Queries read the per-chunk solidity rows (one bit
+// per tile), so testing a run of tiles in a row is a mask and an AND per chunk.
+// Nothing here allocates; the sweep methods return the resolved coordinate and
+// leave whether something was hit in `hit`. Main thread only.
+public class TileCollider {
+    private static final float EDGE = 0.001f; // trailing edges stay just inside the box
+
+    private final ChunkMap chunks;
+    private final int tileSize;
+    private final float invTileSize; // exact, tileSize is a power of two
+    // Direct-mapped chunk cache: drops are stored in spawn order rather than by place,
+    // so one drop after another often lands in a different chunk
+    private static final int CACHE = 64; // power of two
+    private final Chunk[] cache = new Chunk[CACHE];
+    private boolean shortcut = true; // move() skips the sweeps over clear areas; off for DivergenceCheck
+    public boolean hit; // set by the last sweepX/sweepY
+    // Results of the last move()
+    public float movedX, movedY;
+    public boolean hitX, hitY;
+
+    public TileCollider(ChunkMap chunks, int tileSize) {
+        this.chunks = chunks;
+        this.tileSize = tileSize;
+        if (Integer.bitCount(tileSize) != 1) throw new IllegalArgumentException("tileSize must be a power of two");
+        this.invTileSize = 1f / tileSize;
+    }
+
+    void setShortcut(boolean shortcut) {
+        this.shortcut = shortcut;
+    }
+
+    // Call after ChunkMap unloads chunks; cached ones may be among them
+    public void clearCache() {
+        Arrays.fill(cache, null);
+    }
+
+    private Chunk chunk(int cx, int cy) {
+        int slot = (cx * 0x9E3779B1 + cy) & (CACHE - 1);
+        Chunk c = cache[slot];
+        if (c == null || c.cx != cx || c.cy != cy) cache[slot] = c = chunks.chunkAt(cx, cy);
+        return c;
+    }
+
+    public boolean isSolid(int tx, int ty) {
+        return (chunk(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT).solidRow(ty & Chunk.MASK) & (1 << (tx & Chunk.MASK))) != 0;
+    }
+
+    // Any solid tile in columns tx0..tx1 of row ty
+    public boolean rowHasSolid(int tx0, int tx1, int ty) {
+        int cy = ty >> Chunk.SHIFT;
+        int ly = ty & Chunk.MASK;
+        int cx0 = tx0 >> Chunk.SHIFT;
+        int cx1 = tx1 >> Chunk.SHIFT;
+        if (cx0 == cx1) return (chunk(cx0, cy).solidRow(ly) & span(tx0 & Chunk.MASK, tx1 & Chunk.MASK)) != 0;
+        if ((chunk(cx0, cy).solidRow(ly) & span(tx0 & Chunk.MASK, Chunk.MASK)) != 0) return true;
+        for (int cx = cx0 + 1; cx < cx1; cx++) {
+            if (chunk(cx, cy).solidRow(ly) != 0) return true;
+        }
+        return (chunk(cx1, cy).solidRow(ly) & span(0, tx1 & Chunk.MASK)) != 0;
+    }
+
+    // Bits lo..hi of a solidity row
+    private static int span(int lo, int hi) {
+        return (-1 << lo) & (-1 >>> (Chunk.MASK - hi));
+    }
+
+    // Any solid tile in the inclusive tile box
+    public boolean boxHasSolid(int tx0, int tx1, int ty0, int ty1) {
+        int cx = tx0 >> Chunk.SHIFT;
+        int cy = ty0 >> Chunk.SHIFT;
+        if (cx == tx1 >> Chunk.SHIFT && cy == ty1 >> Chunk.SHIFT) {
+            // Inside one chunk: OR the rows together and mask once
+            Chunk c = chunk(cx, cy);
+            int rows = 0;
+            for (int ty = ty0; ty <= ty1; ty++) rows |= c.solidRow(ty & Chunk.MASK);
+            return (rows & span(tx0 & Chunk.MASK, tx1 & Chunk.MASK)) != 0;
+        }
+        for (int ty = ty0; ty <= ty1; ty++) {
+            if (rowHasSolid(tx0, tx1, ty)) return true;
+        }
+        return false;
+    }
+
+    // Fast path for drops and other boxes smaller than a tile: true when nothing solid is
+    // near a move from (x, y) to (nx, ny), so the caller can take (nx, ny) as is; false
+    // means it must call move(). Such a box never reaches past the tile after the
+    // further of its two top-left tiles, so that is tested instead of the exact union,
+    // with integer min/max: which way a drop moves is random and a float compare costs
+    // a mispredicted branch more often than not.
+    public boolean clearMove(float x, float y, float nx, float ny) {
+        int ax = floorTile(x), bx = floorTile(nx);
+        int ay = floorTile(y), by = floorTile(ny);
+        int tx0 = Math.min(ax, bx), tx1 = Math.max(ax, bx) + 1;
+        int ty0 = Math.min(ay, by), ty1 = Math.max(ay, by) + 1;
+        int cx = tx0 >> Chunk.SHIFT;
+        int cy = ty0 >> Chunk.SHIFT;
+        if (!shortcut || ty1 - ty0 > 2 || cx != tx1 >> Chunk.SHIFT || cy != ty1 >> Chunk.SHIFT) return false;
+        Chunk c = chunk(cx, cy);
+        int rows = c.solidRow(ty0 & Chunk.MASK) | c.solidRow((ty0 + ty1 >> 1) & Chunk.MASK) | c.solidRow(ty1 & Chunk.MASK);
+        return (rows & span(tx0 & Chunk.MASK, tx1 & Chunk.MASK)) == 0;
+    }
+
+    // Moves the box by (dx, dy), x first and then y, leaving the result in movedX/movedY
+    // and hitX/hitY. Both sweeps only ever test tiles under the union of the start and
+    // end boxes, so when that area is clear (drops, most ticks) it is one or two row
+    // masks and the sweeps are skipped.
+    public void move(float x, float y, float w, float h, float dx, float dy) {
+        float nx = x + dx;
+        float ny = y + dy;
+        int tx0 = floorTile(Math.min(x, nx));
+        int tx1 = floorTile(Math.max(x, nx) + w - EDGE);
+        int ty0 = floorTile(Math.min(y, ny));
+        int ty1 = floorTile(Math.max(y, ny) + h - EDGE);
+        if (shortcut && !boxHasSolid(tx0, tx1, ty0, ty1)) {
+            movedX = nx;
+            movedY = ny;
+            hitX = false;
+            hitY = false;
+            return;
+        }
+        movedX = sweepX(x, y, w, h, dx);
+        hitX = hit;
+        movedY = sweepY(movedX, y, w, h, dy);
+        hitY = hit;
+    }
+
+    // Moves the box (x, y, w, h) by dx and returns the new x, stopped flush against the
+    // first solid column it would enter. Every column crossed is tested, so fast movers
+    // cannot tunnel through thin walls. The common case of a box that stays within one
+    // row and one leading column is kept small enough to inline into callers' loops.
+    public float sweepX(float x, float y, float w, float h, float dx) {
+        hit = false;
+        if (dx == 0f) return x;
+        int ty0 = floorTile(y);
+        int ty1 = floorTile(y + h - EDGE);
+        float nx = x + dx;
+        float lead = dx > 0 ? w - EDGE : 0f;
+        int from = floorTile(x + lead);
+        int to = floorTile(nx + lead);
+        if (from == to && ty0 == ty1) {
+            if (!isSolid(from, ty0)) return nx;
+            hit = true;
+            return dx > 0 ? from * tileSize - w : (from + 1) * tileSize;
+        }
+        return dx > 0 ? sweepRight(nx, w, from, to, ty0, ty1) : sweepLeft(nx, from, to, ty0, ty1);
+    }
+
+    // Vertical counterpart of sweepX; hit with dy > 0 means the box landed on something
+    public float sweepY(float x, float y, float w, float h, float dy) {
+        hit = false;
+        if (dy == 0f) return y;
+        int tx0 = floorTile(x);
+        int tx1 = floorTile(x + w - EDGE);
+        float ny = y + dy;
+        float lead = dy > 0 ? h - EDGE : 0f;
+        int from = floorTile(y + lead);
+        int to = floorTile(ny + lead);
+        if (from == to && tx0 == tx1) {
+            if (!isSolid(tx0, from)) return ny;
+            hit = true;
+            return dy > 0 ? from * tileSize - h : (from + 1) * tileSize;
+        }
+        return dy > 0 ? sweepDown(ny, h, from, to, tx0, tx1) : sweepUp(ny, from, to, tx0, tx1);
+    }
+
+    private float sweepRight(float nx, float w, int from, int to, int ty0, int ty1) {
+        for (int tx = from; tx <= to; tx++) {
+            if (columnHasSolid(tx, ty0, ty1)) {
+                hit = true;
+                return tx * tileSize - w;
+            }
+        }
+        return nx;
+    }
+
+    private float sweepLeft(float nx, int from, int to, int ty0, int ty1) {
+        for (int tx = from; tx >= to; tx--) {
+            if (columnHasSolid(tx, ty0, ty1)) {
+                hit = true;
+                return (tx + 1) * tileSize;
+            }
+        }
+        return nx;
+    }
+
+    private float sweepDown(float ny, float h, int from, int to, int tx0, int tx1) {
+        for (int ty = from; ty <= to; ty++) {
+            if (rowHasSolid(tx0, tx1, ty)) {
+                hit = true;
+                return ty * tileSize - h;
+            }
+        }
+        return ny;
+    }
+
+    private float sweepUp(float ny, int from, int to, int tx0, int tx1) {
+        for (int ty = from; ty >= to; ty--) {
+            if (rowHasSolid(tx0, tx1, ty)) {
+                hit = true;
+                return (ty + 1) * tileSize;
+            }
+        }
+        return ny;
+    }
+
+    private boolean columnHasSolid(int tx, int ty0, int ty1) {
+        int cx = tx >> Chunk.SHIFT;
+        int bit = 1 << (tx & Chunk.MASK);
+        for (int ty = ty0; ty <= ty1; ty++) {
+            if ((chunk(cx, ty >> Chunk.SHIFT).solidRow(ty & Chunk.MASK) & bit) != 0) return true;
+        }
+        return false;
+    }
+
+    // Same result as (int) Math.floor(v / tileSize) without the division and double round trip
+    private int floorTile(float v) {
+        float t = v * invTileSize;
+        int i = (int) t;
+        return t < i ? i - 1 : i;
+    }
+}
@@ -0,0 +1,155 @@
+import java.nio.FloatBuffer;
+
+// CPU side of the world renderer: turns chunk tiles into interleaved quad
+// vertices (x, y, r, g, b, a). No GL calls, so it runs without a context.
+// With corner light from Lighting.corners each vertex is shaded on its own, so
+// light fades smoothly across a tile; air that is not in full light gets a quad of
+// darkened sky colour, which is what makes caves dark.
+// Zoomed-out views use a coarser level of detail: level L draws one quad per
+// (2^L)-tile square block, coloured by the block's most common tile, so the quad
+// count per chunk drops 4x per level.
+public class TileMeshBuilder {
+    public static final int FLOATS_PER_VERTEX = 6;
+    public static final int VERTICES_PER_QUAD = 4;
+    public static final int FLOATS_PER_QUAD = FLOATS_PER_VERTEX * VERTICES_PER_QUAD;
+    public static final int STRIDE_BYTES = FLOATS_PER_VERTEX * 4;
+    public static final int CORNERS = (Chunk.SIZE + 1) * (Chunk.SIZE + 1);
+    public static final float[] SKY = {0.5f, 0.75f, 1.0f, 1.0f}; // clear colour behind air
+    public static final int LOD_LEVELS = 4; // blocks of 1, 2, 4 and 8 tiles a side
+    public static final int LOD_COUNTS = BlockRegistry.MAX_ID + 1; // scratch length for the coarse levels
+
+    private static final int FULL = 4 * Lighting.MAX; // corner sum in full light
+    // Corner sum -> colour scale; each light level is 0.8x the one above, as light
+    // falls off in a way the eye reads as linear
+    private static final float[] SHADE = new float[FULL + 1];
+
+    static {
+        for (int s = 0; s <= FULL; s++) SHADE[s] = (float) Math.pow(0.8, (FULL - s) / 4.0);
+    }
+
+    public static float[] colorOf(int tileId) {
+        return BlockRegistry.color(tileId);
+    }
+
+    public static int quadCount(Chunk chunk) {
+        return quadCount(chunk, null);
+    }
+
+    public static int quadCount(Chunk chunk, byte[] corners) {
+        int n = 0;
+        for (int ly = 0; ly < Chunk.SIZE; ly++) {
+            for (int lx = 0; lx < Chunk.SIZE; lx++) {
+                if (chunk.get(lx, ly) != BlockRegistry.AIR || shaded(corners, lx, ly, 1)) n++;
+            }
+        }
+        return n;
+    }
+
+    // Appends one quad per non-air tile in world pixel coordinates; returns vertices written
+    public static int build(Chunk chunk, int tileSize, FloatBuffer out) {
+        return build(chunk, null, tileSize, out);
+    }
+
+    // corners: (SIZE + 1)^2 sums from Lighting.corners, or null for full light
+    public static int build(Chunk chunk, byte[] corners, int tileSize, FloatBuffer out) {
+        int baseX = (chunk.cx << Chunk.SHIFT) * tileSize;
+        int baseY = (chunk.cy << Chunk.SHIFT) * tileSize;
+        int quads = 0;
+        for (int ly = 0; ly < Chunk.SIZE; ly++) {
+            for (int lx = 0; lx < Chunk.SIZE; lx++) {
+                int tile = chunk.get(lx, ly);
+                float x = baseX + lx * tileSize, y = baseY + ly * tileSize;
+                if (corners == null) {
+                    if (tile == BlockRegistry.AIR) continue;
+                    putQuad(out, x, y, tileSize, colorOf(tile));
+                } else if (tile != BlockRegistry.AIR) {
+                    putLitQuad(out, x, y, tileSize, colorOf(tile), corners, lx, ly, 1);
+                } else if (shaded(corners, lx, ly, 1)) {
+                    putLitQuad(out, x, y, tileSize, SKY, corners, lx, ly, 1);
+                } else {
+                    continue;
+                }
+                quads++;
+            }
+        }
+        return quads * VERTICES_PER_QUAD;
+    }
+
+    // Upper bound on the quads build(chunk, corners, counts, level, ...) writes
+    public static int maxQuads(int level) {
+        int n = Chunk.SIZE >> level;
+        return n * n;
+    }
+
+    // Level 0 is build(chunk, corners, ...); above that, one quad per block, shaded
+    // from the light at the block's corners. Ties for the most common tile go to the
+    // one that reaches that count first in row order. counts is the caller's
+    // LOD_COUNTS scratch, all zero, and is left that way.
+    public static int build(Chunk chunk, byte[] corners, int[] counts, int level, int tileSize, FloatBuffer out) {
+        if (level == 0) return build(chunk, corners, tileSize, out);
+        int block = 1 << level;
+        int size = block * tileSize;
+        int baseX = (chunk.cx << Chunk.SHIFT) * tileSize;
+        int baseY = (chunk.cy << Chunk.SHIFT) * tileSize;
+        int quads = 0;
+        for (int by = 0; by < Chunk.SIZE; by += block) {
+            for (int bx = 0; bx < Chunk.SIZE; bx += block) {
+                int tile = 0, best = 0;
+                for (int ly = by; ly < by + block; ly++) {
+                    for (int lx = bx; lx < bx + block; lx++) {
+                        int t = chunk.get(lx, ly) & BlockRegistry.MAX_ID;
+                        if (++counts[t] > best) {
+                            best = counts[t];
+                            tile = t;
+                        }
+                    }
+                }
+                for (int ly = by; ly < by + block; ly++) {
+                    for (int lx = bx; lx < bx + block; lx++) counts[chunk.get(lx, ly) & BlockRegistry.MAX_ID] = 0;
+                }
+                float x = baseX + bx * tileSize, y = baseY + by * tileSize;
+                if (corners == null) {
+                    if (tile == BlockRegistry.AIR) continue;
+                    putQuad(out, x, y, size, colorOf(tile));
+                } else if (tile != BlockRegistry.AIR) {
+                    putLitQuad(out, x, y, size, colorOf(tile), corners, bx, by, block);
+                } else if (shaded(corners, bx, by, block)) {
+                    putLitQuad(out, x, y, size, SKY, corners, bx, by, block);
+                } else {
+                    continue;
+                }
+                quads++;
+            }
+        }
+        return quads * VERTICES_PER_QUAD;
+    }
+
+    // Whether any corner of the step-tile square at (lx, ly) is out of full light
+    private static boolean shaded(byte[] corners, int lx, int ly, int step) {
+        if (corners == null) return false;
+        int i = ly * (Chunk.SIZE + 1) + lx;
+        int down = step * (Chunk.SIZE + 1);
+        return corners[i] != FULL || corners[i + step] != FULL || corners[i + down] != FULL || corners[i + down + step] != FULL;
+    }
+
+    public static void putQuad(FloatBuffer out, float x, float y, float size, float[] rgba) {
+        float r = rgba[0], g = rgba[1], b = rgba[2], a = rgba[3];
+        out.put(x).put(y).put(r).put(g).put(b).put(a);
+        out.put(x + size).put(y).put(r).put(g).put(b).put(a);
+        out.put(x + size).put(y + size).put(r).put(g).put(b).put(a);
+        out.put(x).put(y + size).put(r).put(g).put(b).put(a);
+    }
+
+    private static void putLitQuad(FloatBuffer out, float x, float y, float size, float[] rgba, byte[] corners, int lx, int ly, int step) {
+        int i = ly * (Chunk.SIZE + 1) + lx;
+        int down = step * (Chunk.SIZE + 1);
+        putLitVertex(out, x, y, rgba, SHADE[corners[i]]);
+        putLitVertex(out, x + size, y, rgba, SHADE[corners[i + step]]);
+        putLitVertex(out, x + size, y + size, rgba, SHADE[corners[i + down + step]]);
+        putLitVertex(out, x, y + size, rgba, SHADE[corners[i + down]]);
+    }
+
+    private static void putLitVertex(FloatBuffer out, float x, float y, float[] rgba, float s) {
+        out.put(x).put(y).put(rgba[0] * s).put(rgba[1] * s).put(rgba[2] * s).put(rgba[3]);
+    }
+}
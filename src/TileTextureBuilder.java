@@ -0,0 +1,23 @@
+import java.nio.ByteBuffer;
+
+// CPU side of the tile-texture render mode: packs a chunk's tile ids into a
+// SIZE x SIZE single-channel image and the block colours into a 256 x 1 RGBA
+// palette the fragment shader indexes with them. No GL calls, so it runs
+// without a context.
+public class TileTextureBuilder {
+    public static final int PALETTE_SIZE = BlockRegistry.MAX_ID + 1;
+    public static final int PALETTE_BYTES = PALETTE_SIZE * 4;
+
+    // Row-major, one unsigned byte per tile, top row first; writes Chunk.BYTES at out's position
+    public static void packChunk(Chunk chunk, ByteBuffer out) {
+        chunk.copyTiles(out);
+    }
+
+    // RGBA bytes per tile id; air (alpha 0) is discarded by the shader
+    public static void packPalette(ByteBuffer out) {
+        for (int id = 0; id < PALETTE_SIZE; id++) {
+            int rgba = BlockRegistry.rgba(id);
+            out.put((byte) (rgba >>> 24)).put((byte) (rgba >>> 16)).put((byte) (rgba >>> 8)).put((byte) rgba);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import java.nio.FloatBuffer;
+
+import org.lwjgl.system.MemoryUtil;
+
+import static org.lwjgl.opengl.GL11.*;
+
+// Draws the visible chunks with a single glDrawArrays. Chunk meshes come
+// from a ChunkMeshCache; every visible mesh is copied into one batch buffer,
+// and that batch is reused as-is while the view, the level of detail and the
+// meshes are unchanged.
+public class WorldRenderer {
+    private static final long MESH_BUDGET_BYTES = 16L * 1024 * 1024;
+
+    private final ChunkMap chunks;
+    private final ChunkMeshCache meshes;
+    private FloatBuffer batch = MemoryUtil.memAllocFloat(64 * 1024);
+    private int batchVertices;
+    private boolean batchValid;
+    private int batchCx0, batchCx1, batchCy0, batchCy1, batchLevel;
+
+    public WorldRenderer(ChunkMap chunks, Lighting lighting, int tileSize) {
+        this.chunks = chunks;
+        this.meshes = new ChunkMeshCache(tileSize, MESH_BUDGET_BYTES, lighting);
+    }
+
+    public ChunkMeshCache getMeshes() {
+        return meshes;
+    }
+
+    // Called for every tile edit so the owning (and bordering) chunk meshes rebuild
+    public void markDirty(int tx, int ty) {
+        if (meshes.markDirty(tx, ty)) batchValid = false;
+    }
+
+    // Called when Lighting relights a chunk
+    public void markChunkDirty(int cx, int cy) {
+        if (meshes.markChunkDirty(cx, cy)) batchValid = false;
+    }
+
+    // Fill the batch with every chunk overlapping the tile range at the given level of
+    // detail (see TileMeshBuilder); returns vertex count
+    public int buildBatch(int startTileX, int endTileX, int startTileY, int endTileY, int level) {
+        int cx0 = startTileX >> Chunk.SHIFT, cx1 = endTileX >> Chunk.SHIFT;
+        int cy0 = startTileY >> Chunk.SHIFT, cy1 = endTileY >> Chunk.SHIFT;
+        if (batchValid && cx0 == batchCx0 && cx1 == batchCx1 && cy0 == batchCy0 && cy1 == batchCy1 && level == batchLevel) {
+            return batchVertices;
+        }
+        batch.clear();
+        int vertices = 0;
+        boolean complete = true;
+        for (int cx = cx0; cx <= cx1; cx++) {
+            for (int cy = cy0; cy <= cy1; cy++) {
+                // Chunks still being generated are left out this frame rather than blocking
+                Chunk chunk = chunks.peek(cx, cy);
+                if (chunk == null) {
+                    complete = false;
+                    continue;
+                }
+                ChunkMeshCache.ChunkMesh mesh = meshes.meshFor(chunk, level);
+                if (mesh.getVertexCount() == 0) continue;
+                FloatBuffer data = mesh.getData();
+                if (batch.remaining() < data.limit()) {
+                    int cap = Math.max(batch.capacity() * 2, batch.position() + data.limit());
+                    batch = MemoryUtil.memRealloc(batch, cap); // keeps position
+                }
+                batch.put(data.duplicate());
+                vertices += mesh.getVertexCount();
+            }
+        }
+        batch.flip();
+        batchVertices = vertices;
+        batchCx0 = cx0; batchCx1 = cx1; batchCy0 = cy0; batchCy1 = cy1;
+        batchLevel = level;
+        batchValid = complete;
+        return vertices;
+    }
+
+    // Expects the world projection to be set up; applies the camera offset itself.
+    // Returns the vertices drawn (0 means no draw call was made).
+    public int render(float cameraX, float cameraY, int startTileX, int endTileX, int startTileY, int endTileY, int level) {
+        int vertices = buildBatch(startTileX, endTileX, startTileY, endTileY, level);
+        if (vertices == 0) return 0;
+
+        glPushMatrix();
+        glTranslatef(-cameraX, -cameraY, 0f);
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glEnableClientState(GL_COLOR_ARRAY);
+        glVertexPointer(2, GL_FLOAT, TileMeshBuilder.STRIDE_BYTES, batch.position(0));
+        glColorPointer(4, GL_FLOAT, TileMeshBuilder.STRIDE_BYTES, batch.position(2));
+        glDrawArrays(GL_QUADS, 0, vertices);
+        batch.position(0);
+        glDisableClientState(GL_COLOR_ARRAY);
+        glDisableClientState(GL_VERTEX_ARRAY);
+        glPopMatrix();
+        return vertices;
+    }
+
+    public FloatBuffer getBatch() {
+        return batch;
+    }
+
+    public void dispose() {
+        meshes.dispose();
+        MemoryUtil.memFree(batch);
+        batch = null;
+    }
+}
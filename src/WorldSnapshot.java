@@ -0,0 +1,138 @@
+// Fingerprint of a GameWorld at one tick, for checking that two runs (or two
+// implementations of the same rules) stay in lockstep. Each part is hashed on its
+// own so a mismatch says what differs. Floats go in by bit pattern, so any change
+// in the arithmetic shows, not just the visible ones. Overrides are combined
+// order-independently, since the map's iteration order depends on its history.
+public final class WorldSnapshot {
+    public static final String[] PARTS = {"player", "overrides", "drops", "inventory", "fluids", "tiles"};
+
+    public final long tick;
+    public final int tx0, ty0, tx1, ty1; // inclusive tile region hashed into the tiles part
+    private final long[] parts;
+
+    private WorldSnapshot(long tick, int tx0, int ty0, int tx1, int ty1, long[] parts) {
+        this.tick = tick;
+        this.tx0 = tx0;
+        this.ty0 = ty0;
+        this.tx1 = tx1;
+        this.ty1 = ty1;
+        this.parts = parts;
+    }
+
+    // Tiles hashed over a square of (2 * radius + 1) tiles centred on the player
+    public static WorldSnapshot capture(GameWorld world, int radius) {
+        Player p = world.getPlayer();
+        int cx = (int) Math.floor((p.x + p.width * 0.5f) / GameWorld.TILE_SIZE);
+        int cy = (int) Math.floor((p.y + p.height * 0.5f) / GameWorld.TILE_SIZE);
+        return capture(world, cx - radius, cy - radius, cx + radius, cy + radius);
+    }
+
+    public static WorldSnapshot capture(GameWorld world, int tx0, int ty0, int tx1, int ty1) {
+        long[] parts = {
+            hashPlayer(world), hashOverrides(world), hashDrops(world.getDrops()),
+            hashInventory(world.getInventory()), world.getFluids().hash(), hashTiles(world, tx0, ty0, tx1, ty1)
+        };
+        return new WorldSnapshot(world.getTickCount(), tx0, ty0, tx1, ty1, parts);
+    }
+
+    public long part(int i) {
+        return parts[i];
+    }
+
+    public long hash() {
+        long h = SEED;
+        for (long part : parts) h = mix(h, part);
+        return h;
+    }
+
+    // Index into PARTS of the first part that differs, or -1
+    public int firstDifference(WorldSnapshot other) {
+        for (int i = 0; i < parts.length; i++) {
+            if (parts[i] != other.parts[i]) return i;
+        }
+        return -1;
+    }
+
+    // ---- hashing ----
+
+    private static final long SEED = 0x6A09E667F3BCC908L;
+
+    static long mix(long h, long v) {
+        h = (h ^ v) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static long mix(long h, float v) {
+        return mix(h, Float.floatToRawIntBits(v));
+    }
+
+    // Resolved tiles row by row; a chunk that is not loaded yet is generated
+    public static long hashTiles(GameWorld world, int tx0, int ty0, int tx1, int ty1) {
+        long h = mix(mix(SEED, tx0 * 31L + ty0), tx1 * 31L + ty1);
+        for (int ty = ty0; ty <= ty1; ty++) {
+            // Pack eight tiles per mix; a tile id is one byte
+            long word = 0;
+            int n = 0;
+            for (int tx = tx0; tx <= tx1; tx++) {
+                word = (word << 8) | (world.tileAt(tx, ty) & 0xff);
+                if (++n == 8) {
+                    h = mix(h, word);
+                    word = 0;
+                    n = 0;
+                }
+            }
+            h = mix(h, word ^ ((long) n << 56));
+        }
+        return h;
+    }
+
+    private static long hashPlayer(GameWorld world) {
+        Player p = world.getPlayer();
+        long h = SEED;
+        h = mix(h, p.x);
+        h = mix(h, p.y);
+        h = mix(h, p.velocityX);
+        h = mix(h, p.velocityY);
+        h = mix(h, p.onGround ? 1 : 0);
+        h = mix(h, world.getMiningTx());
+        h = mix(h, world.getMiningTy());
+        h = mix(h, world.getMiningProgress());
+        return h;
+    }
+
+    private static long hashOverrides(GameWorld world) {
+        long[] acc = {0L, 0L};
+        world.forEachOverride((key, value) -> {
+            acc[0] += mix(mix(SEED, key), value); // sum: independent of visiting order
+            acc[1]++;
+        });
+        return mix(acc[0], acc[1]);
+    }
+
+    private static long hashDrops(DropStore d) {
+        long h = mix(SEED, d.size);
+        for (int i = 0; i < d.size; i++) {
+            h = mix(h, d.x[i]);
+            h = mix(h, d.y[i]);
+            h = mix(h, d.vx[i]);
+            h = mix(h, d.vy[i]);
+            h = mix(h, ((long) d.tileId[i] << 33) | ((long) d.count[i] << 1) | (d.resting[i] ? 1 : 0));
+        }
+        return h;
+    }
+
+    private static long hashInventory(Inventory inv) {
+        long h = mix(SEED, inv.getSelectedIndex());
+        for (int i = 0; i < inv.size(); i++) h = mixItem(h, inv.get(i));
+        for (int i = 0; i < inv.bagSize(); i++) h = mixItem(h, inv.getBagItem(i));
+        CraftingGrid grid = inv.getCraftingGrid();
+        for (int i = 0; i < grid.getSize() * grid.getSize(); i++) h = mixItem(h, grid.get(i));
+        return mixItem(h, inv.getHeldItem());
+    }
+
+    private static long mixItem(long h, Item item) {
+        if (item == null) return mix(h, -1L);
+        h = mix(h, ((long) item.blockId << 40) | ((long) item.toolType.ordinal() << 32) | (item.count & 0xffffffffL));
+        return mix(h, item.name.hashCode());
+    }
+}
@@ -0,0 +1,288 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Save directory for one world:
+//   level.dat        seed, player, inventory, crafting grid, held item
+//   r.<rx>.<ry>.dat  RegionFile with every chunk that was ever edited
+// Unedited chunks are never written; they regenerate from the seed.
+// Saving snapshots dirty chunks on the caller's thread (a 1 KB copy each) and
+// does all file I/O on a single background writer; ChunkMap sends edited chunks it
+// unloads the same way, and reads are served from those copies until written.
+public class WorldStore {
+    private static final int LEVEL_MAGIC = 0x45464C56; // "EFLV"
+    private static final int LEVEL_VERSION = 2; // 2: crafting grid and held item
+
+    private final Path dir;
+    private final ConcurrentHashMap<Long, RegionFile> regions = new ConcurrentHashMap<>();
+    private final Set<Long> existing = ConcurrentHashMap.newKeySet(); // region files on disk
+    private final ConcurrentHashMap<Long, byte[]> inFlight = new ConcurrentHashMap<>(); // chunk key -> queued tiles
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "world-save");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public WorldStore(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        // Only list names here; region files are mapped the first time one of their chunks is needed
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "r.*.dat")) {
+            for (Path f : files) {
+                String[] parts = f.getFileName().toString().split("\\.");
+                if (parts.length != 4) continue;
+                try {
+                    existing.add(Chunk.key(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+    }
+
+    public boolean hasLevel() {
+        return Files.exists(dir.resolve("level.dat"));
+    }
+
+    private RegionFile region(int rx, int ry, boolean create) {
+        long key = Chunk.key(rx, ry);
+        if (!create && !existing.contains(key)) return null;
+        return regions.computeIfAbsent(key, k -> {
+            try {
+                RegionFile rf = RegionFile.open(dir.resolve("r." + rx + "." + ry + ".dat"));
+                existing.add(k);
+                return rf;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public boolean hasChunk(int cx, int cy) {
+        if (inFlight.containsKey(Chunk.key(cx, cy))) return true;
+        RegionFile rf = region(cx >> RegionFile.SHIFT, cy >> RegionFile.SHIFT, false);
+        return rf != null && rf.contains(RegionFile.index(cx, cy));
+    }
+
+    // Fills the chunk from disk; false if it was never saved
+    public boolean readChunk(Chunk chunk) {
+        byte[] queued = inFlight.get(Chunk.key(chunk.cx, chunk.cy));
+        if (queued != null) {
+            chunk.loadTiles(ByteBuffer.wrap(queued), 0);
+            return true;
+        }
+        RegionFile rf = region(chunk.cx >> RegionFile.SHIFT, chunk.cy >> RegionFile.SHIFT, false);
+        if (rf == null) return false;
+        try {
+            return rf.read(RegionFile.index(chunk.cx, chunk.cy), chunk);
+        } catch (IOException e) {
+            System.err.println("Failed to read chunk " + chunk.cx + "," + chunk.cy + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Hook the store into a freshly constructed world and restore player, inventory
+    // and the edit log
+    public void attach(GameWorld world) throws IOException {
+        world.getChunks().setStore(this);
+        if (!hasLevel()) return;
+        try (InputStream in = Files.newInputStream(dir.resolve("level.dat"))) {
+            DataInputStream data = new DataInputStream(in);
+            readLevel(data, world);
+        }
+        restoreEdits(world);
+    }
+
+    // The edit log is not saved; every saved chunk is compared with a freshly generated
+    // one instead, which costs a generate per edited chunk once at load
+    private void restoreEdits(GameWorld world) throws IOException {
+        TerrainGenerator gen = world.getGenerator();
+        for (long key : existing) {
+            int rx = (int) (key >> 32);
+            int ry = (int) key;
+            RegionFile rf = region(rx, ry, false);
+            for (int index = 0; index < RegionFile.REGION_CHUNKS; index++) {
+                if (!rf.contains(index)) continue;
+                int cx = (rx << RegionFile.SHIFT) | (index & ((1 << RegionFile.SHIFT) - 1));
+                int cy = (ry << RegionFile.SHIFT) | (index >> RegionFile.SHIFT);
+                Chunk saved = new Chunk(cx, cy);
+                Chunk generated = new Chunk(cx, cy);
+                rf.read(index, saved);
+                gen.generate(generated);
+                for (int ly = 0; ly < Chunk.SIZE; ly++) {
+                    for (int lx = 0; lx < Chunk.SIZE; lx++) {
+                        int tile = saved.get(lx, ly) & BlockRegistry.MAX_ID;
+                        int original = generated.get(lx, ly) & BlockRegistry.MAX_ID;
+                        if (tile != original) world.restoreOverride((cx << Chunk.SHIFT) + lx, (cy << Chunk.SHIFT) + ly, tile, original);
+                    }
+                }
+            }
+        }
+    }
+
+    public static long readSeed(Path dir) throws IOException {
+        try (DataInputStream data = new DataInputStream(Files.newInputStream(dir.resolve("level.dat")))) {
+            if (data.readInt() != LEVEL_MAGIC) throw new IOException("level.dat: bad magic");
+            data.readInt();
+            return data.readLong();
+        }
+    }
+
+    // Snapshot what changed since the last save and write it in the background
+    public void saveAsync(GameWorld world) {
+        write(world.getChunks().takeUnsaved(), writeLevel(world));
+    }
+
+    // Writes chunks that are being unloaded; level.dat is left for the next save
+    public void saveChunksAsync(List<Chunk> chunks) {
+        write(chunks, null);
+    }
+
+    private void write(List<Chunk> dirty, byte[] level) {
+        int[] coords = new int[dirty.size() * 2];
+        List<byte[]> payloads = new ArrayList<>(dirty.size());
+        for (int i = 0; i < dirty.size(); i++) {
+            Chunk c = dirty.get(i);
+            byte[] tiles = new byte[Chunk.BYTES];
+            c.copyTiles(tiles);
+            coords[i * 2] = c.cx;
+            coords[i * 2 + 1] = c.cy;
+            payloads.add(tiles);
+            // Until the writer gets to it, a reload of this chunk reads the copy
+            inFlight.put(Chunk.key(c.cx, c.cy), tiles);
+        }
+        writer.execute(() -> {
+            try {
+                HashMap<Long, RegionFile> touched = new HashMap<>();
+                for (int i = 0; i < payloads.size(); i++) {
+                    int cx = coords[i * 2];
+                    int cy = coords[i * 2 + 1];
+                    int rx = cx >> RegionFile.SHIFT;
+                    int ry = cy >> RegionFile.SHIFT;
+                    RegionFile rf = region(rx, ry, true);
+                    rf.write(RegionFile.index(cx, cy), payloads.get(i));
+                    touched.put(Chunk.key(rx, ry), rf);
+                }
+                for (RegionFile rf : touched.values()) rf.flush();
+                if (level != null) {
+                    Path tmp = dir.resolve("level.dat.tmp");
+                    Files.write(tmp, level);
+                    Files.move(tmp, dir.resolve("level.dat"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("World save failed: " + e.getMessage());
+            } finally {
+                // A newer copy queued meanwhile stays until its own write
+                for (int i = 0; i < payloads.size(); i++) {
+                    inFlight.remove(Chunk.key(coords[i * 2], coords[i * 2 + 1]), payloads.get(i));
+                }
+            }
+        });
+    }
+
+    // Waits for pending writes, then releases the region files
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (RegionFile rf : regions.values()) {
+            try {
+                rf.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close " + rf.getPath() + ": " + e.getMessage());
+            }
+        }
+        regions.clear();
+    }
+
+    private static byte[] writeLevel(GameWorld world) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(LEVEL_MAGIC);
+            out.writeInt(LEVEL_VERSION);
+            out.writeLong(world.getSeed());
+            Player p = world.getPlayer();
+            out.writeFloat(p.x);
+            out.writeFloat(p.y);
+            Inventory inv = world.getInventory();
+            out.writeInt(inv.getSelectedIndex());
+            out.writeInt(inv.size());
+            for (int i = 0; i < inv.size(); i++) writeItem(out, inv.get(i));
+            out.writeInt(inv.bagSize());
+            for (int i = 0; i < inv.bagSize(); i++) writeItem(out, inv.getBagItem(i));
+            CraftingGrid grid = inv.getCraftingGrid();
+            int cells = grid.getSize() * grid.getSize();
+            out.writeInt(cells);
+            for (int i = 0; i < cells; i++) writeItem(out, grid.get(i));
+            writeItem(out, inv.getHeldItem());
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream
+        }
+    }
+
+    private static void readLevel(DataInputStream in, GameWorld world) throws IOException {
+        if (in.readInt() != LEVEL_MAGIC) throw new IOException("level.dat: bad magic");
+        int version = in.readInt();
+        if (version < 1 || version > LEVEL_VERSION) throw new IOException("level.dat: unsupported version");
+        long seed = in.readLong();
+        if (seed != world.getSeed()) throw new IOException("level.dat: seed mismatch");
+        Player p = world.getPlayer();
+        p.x = in.readFloat();
+        p.y = in.readFloat();
+        world.resetInterpolation();
+        Inventory inv = world.getInventory();
+        int selected = in.readInt();
+        int hotbar = in.readInt();
+        for (int i = 0; i < hotbar; i++) inv.set(i, readItem(in));
+        int bag = in.readInt();
+        for (int i = 0; i < bag; i++) inv.setBagItem(i, readItem(in));
+        inv.setSelectedIndex(selected);
+        if (version < 2) return; // saved before the grid and held item were
+        CraftingGrid grid = inv.getCraftingGrid();
+        int cells = in.readInt();
+        for (int i = 0; i < cells; i++) grid.set(i, readItem(in));
+        inv.setHeldItem(readItem(in));
+    }
+
+    private static void writeItem(DataOutputStream out, Item item) throws IOException {
+        out.writeBoolean(item != null);
+        if (item == null) return;
+        out.writeUTF(item.name);
+        out.writeByte(item.toolType.ordinal());
+        out.writeInt(item.blockId);
+        out.writeInt(item.count);
+    }
+
+    private static Item readItem(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) return null;
+        String name = in.readUTF();
+        ToolType tool = ToolType.values()[in.readByte()];
+        int blockId = in.readInt();
+        int count = in.readInt();
+        if (blockId != 0) return new Item(name, blockId, count);
+        Item item = new Item(name, tool);
+        item.count = count;
+        return item;
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Chunks from the worker pool must be byte-for-byte what the synchronous path makes,
+// whatever the thread count or the order the chunks were asked for in
+class ChunkGenServiceTest {
+    private static final long SEED = 42L;
+
+    // Surface, caves, deep rock and sky, on both sides of the origin
+    private static List<long[]> chunkSet() {
+        List<long[]> coords = new ArrayList<>();
+        for (int cx = -8; cx < 8; cx++) {
+            for (int cy = -3; cy < 12; cy++) coords.add(new long[]{cx, cy});
+        }
+        return coords;
+    }
+
+    private static Map<Long, byte[]> generateSync(List<long[]> coords) {
+        TerrainGenerator generator = new TerrainGenerator(SEED);
+        Map<Long, byte[]> out = new HashMap<>();
+        for (long[] c : coords) {
+            Chunk chunk = new Chunk((int) c[0], (int) c[1]);
+            generator.generate(chunk);
+            byte[] tiles = new byte[Chunk.BYTES];
+            chunk.copyTiles(tiles);
+            out.put(Chunk.key(chunk.cx, chunk.cy), tiles);
+        }
+        return out;
+    }
+
+    private static Map<Long, byte[]> generatePooled(List<long[]> coords, int threads) throws InterruptedException {
+        ChunkGenService service = new ChunkGenService(SEED, threads);
+        Map<Long, byte[]> out = new HashMap<>();
+        try {
+            int next = 0;
+            long deadline = System.nanoTime() + 60_000_000_000L;
+            while (out.size() < coords.size()) {
+                // submit refuses past its in-flight cap; keep offering while draining
+                while (next < coords.size() && service.submit((int) coords.get(next)[0], (int) coords.get(next)[1])) next++;
+                Chunk chunk;
+                while ((chunk = service.poll()) != null) {
+                    byte[] tiles = new byte[Chunk.BYTES];
+                    chunk.copyTiles(tiles);
+                    assertNull(out.put(Chunk.key(chunk.cx, chunk.cy), tiles), "chunk delivered twice");
+                }
+                assertTrue(System.nanoTime() < deadline, "workers did not finish");
+                Thread.sleep(1);
+            }
+        } finally {
+            service.shutdown();
+        }
+        return out;
+    }
+
+    private static void assertSameTiles(Map<Long, byte[]> expected, Map<Long, byte[]> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<Long, byte[]> e : expected.entrySet()) {
+            long key = e.getKey();
+            assertArrayEquals(e.getValue(), actual.get(key), "chunk " + (int) (key >> 32) + "," + (int) key);
+        }
+    }
+
+    @Test
+    void poolMatchesSynchronousGeneration() throws InterruptedException {
+        List<long[]> coords = chunkSet();
+        Map<Long, byte[]> expected = generateSync(coords);
+        assertSameTiles(expected, generatePooled(coords, 1));
+        assertSameTiles(expected, generatePooled(coords, 4));
+    }
+
+    @Test
+    void requestOrderDoesNotMatter() throws InterruptedException {
+        List<long[]> coords = chunkSet();
+        Map<Long, byte[]> expected = generateSync(coords);
+        for (int run = 0; run < 3; run++) {
+            List<long[]> shuffled = new ArrayList<>(coords);
+            Collections.shuffle(shuffled, new Random(run));
+            assertSameTiles(expected, generatePooled(shuffled, 4));
+        }
+    }
+
+    @Test
+    void chunkMapInstallsPooledChunksUnchanged() throws InterruptedException {
+        List<long[]> coords = chunkSet();
+        Map<Long, byte[]> expected = generateSync(coords);
+        ChunkGenService service = new ChunkGenService(SEED, 4);
+        ChunkMap chunks = new ChunkMap(new TerrainGenerator(SEED), service);
+        try {
+            long deadline = System.nanoTime() + 60_000_000_000L;
+            int loaded;
+            do {
+                for (long[] c : coords) chunks.request((int) c[0], (int) c[1]);
+                chunks.drainReady();
+                loaded = 0;
+                for (long[] c : coords) if (chunks.isLoaded((int) c[0], (int) c[1])) loaded++;
+                assertTrue(System.nanoTime() < deadline, "workers did not finish");
+                Thread.sleep(1);
+            } while (loaded < coords.size());
+            Map<Long, byte[]> actual = new HashMap<>();
+            for (long[] c : coords) {
+                byte[] tiles = new byte[Chunk.BYTES];
+                chunks.peek((int) c[0], (int) c[1]).copyTiles(tiles);
+                actual.put(Chunk.key((int) c[0], (int) c[1]), tiles);
+            }
+            assertSameTiles(expected, actual);
+        } finally {
+            chunks.dispose();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Vertical streaming: chunks far above or below the player leave the map and come
+// back by distance, edits and all
+class ChunkMapTest {
+    private static final long SEED = 42L;
+    private static final int STONE = 6;
+    private static final int DEPTH = 60; // chunks below the surface the player is sent
+
+    // One edit near the surface and one deep down, in different chunks
+    private static final int[][] EDITS = {{5, 20}, {-37, 40 * Chunk.SIZE + 3}};
+
+    private static int[] edit(GameWorld world) {
+        int[] generated = new int[EDITS.length];
+        for (int i = 0; i < EDITS.length; i++) {
+            generated[i] = world.getGenerator().tileAt(EDITS[i][0], EDITS[i][1]);
+            world.setTile(EDITS[i][0], EDITS[i][1], generated[i] == STONE ? BlockRegistry.AIR : STONE);
+        }
+        return generated;
+    }
+
+    private static boolean loaded(ChunkMap chunks, int[] tile) {
+        return chunks.isLoaded(tile[0] >> Chunk.SHIFT, tile[1] >> Chunk.SHIFT);
+    }
+
+    // Puts the player at the given chunk row and ticks until streaming has run
+    private static void sendPlayer(GameWorld world, int cy) {
+        Player p = world.getPlayer();
+        p.y = (cy << Chunk.SHIFT) * GameWorld.TILE_SIZE;
+        p.velocityY = 0;
+        world.resetInterpolation();
+        world.tick(GameWorld.TICK_DT, new InputState());
+    }
+
+    @Test
+    void editedChunksComeBackFromTheStore(@TempDir Path dir) throws IOException {
+        GameWorld world = new GameWorld(800, 600, SEED, false);
+        WorldStore store = new WorldStore(dir);
+        store.attach(world);
+        ChunkMap chunks = world.getChunks();
+        int[] generated = edit(world);
+        int top = EDITS[0][1] >> Chunk.SHIFT;
+        int bottom = EDITS[1][1] >> Chunk.SHIFT;
+
+        // Deep below both edits: every chunk near the surface and the row of the deep
+        // edit are unloaded, and the working set stays bounded
+        sendPlayer(world, bottom + DEPTH);
+        for (int[] e : EDITS) assertFalse(loaded(chunks, e), e[0] + "," + e[1]);
+        int deepChunks = chunks.size();
+        sendPlayer(world, bottom + 2 * DEPTH);
+        assertEquals(deepChunks, chunks.size());
+
+        // Back up: the edits read back from the store, not the generator
+        sendPlayer(world, bottom);
+        for (int i = 0; i < EDITS.length; i++) {
+            int[] e = EDITS[i];
+            assertNotEquals(generated[i], world.tileAt(e[0], e[1]));
+            assertEquals(generated[i] == STONE ? BlockRegistry.AIR : STONE, world.tileAt(e[0], e[1]));
+        }
+        sendPlayer(world, top);
+        assertTrue(loaded(chunks, EDITS[0]));
+
+        // Undone after coming back, the tile is out of the edit log again
+        world.setTile(EDITS[0][0], EDITS[0][1], generated[0]);
+        int[] n = {0};
+        world.forEachOverride((key, value) -> n[0]++);
+        assertEquals(1, n[0]);
+        store.close();
+        world.dispose();
+    }
+
+    // With no store an edited chunk is the only copy of its edits and is kept while
+    // everything else around it unloads
+    @Test
+    void editedChunksStayLoadedWithoutAStore() {
+        GameWorld world = new GameWorld(800, 600, SEED, false);
+        ChunkMap chunks = world.getChunks();
+        int[] generated = edit(world);
+        sendPlayer(world, (EDITS[1][1] >> Chunk.SHIFT) + DEPTH);
+        for (int i = 0; i < EDITS.length; i++) {
+            int[] e = EDITS[i];
+            assertTrue(loaded(chunks, e), e[0] + "," + e[1]);
+            assertFalse(chunks.isLoaded((e[0] >> Chunk.SHIFT) + 1, e[1] >> Chunk.SHIFT)); // an unedited neighbour went
+            assertEquals(generated[i] == STONE ? BlockRegistry.AIR : STONE, world.tileAt(e[0], e[1]));
+        }
+        world.dispose();
+    }
+}
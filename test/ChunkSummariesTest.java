@@ -0,0 +1,111 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Minimap summaries: pixel averages, incremental updates and the LRU bound
+class ChunkSummariesTest {
+    private static final int DIRT = 1;
+    private static final int STONE = 6;
+    private static final int SKY_CY = -10; // high above the terrain: generated as all air, and cheap
+
+    private static int rgba(int r, int g, int b) {
+        return (r << 24) | (g << 16) | (b << 8) | 0xff;
+    }
+
+    @Test
+    void pixelIsTheRoundedAverageOfItsBlock() {
+        Chunk chunk = new Chunk(0, 0);
+        // Dirt 66 33 19, stone 8c 8c 99: three dirt and a stone sum to
+        // r 446 (111.5 rounds up), g 293 (73.25 down), b 228 (exactly 57)
+        chunk.set(0, 0, DIRT);
+        chunk.set(1, 0, DIRT);
+        chunk.set(0, 1, DIRT);
+        chunk.set(1, 1, STONE);
+        assertEquals(rgba(112, 73, 57), ChunkSummaries.pixel(chunk, 0, 0));
+        // The next pixel along covers tiles 2..3 only
+        chunk.set(2, 0, STONE);
+        chunk.set(3, 0, STONE);
+        chunk.set(2, 1, STONE);
+        chunk.set(3, 1, STONE);
+        assertEquals(BlockRegistry.rgba(STONE), ChunkSummaries.pixel(chunk, 1, 0));
+    }
+
+    @Test
+    void airIsDrawnAsTheSky() {
+        int[] pixels = new int[ChunkSummaries.PIXELS * ChunkSummaries.PIXELS];
+        ChunkSummaries.build(new Chunk(5, 5), pixels);
+        float[] sky = TileMeshBuilder.SKY;
+        int expected = rgba(Math.round(sky[0] * 255), Math.round(sky[1] * 255), Math.round(sky[2] * 255));
+        for (int p : pixels) assertEquals(expected, p);
+        // Half sky, half stone averages the two
+        Chunk chunk = new Chunk(0, 0);
+        chunk.set(0, 0, STONE);
+        chunk.set(1, 0, STONE);
+        int stone = BlockRegistry.rgba(STONE);
+        int r = ((stone >>> 24) * 2 + (expected >>> 24) * 2 + 2) / 4;
+        assertEquals(r, ChunkSummaries.pixel(chunk, 0, 0) >>> 24);
+    }
+
+    @Test
+    void tileEditUpdatesOnePixelAndTheVersion() {
+        ChunkMap chunks = new ChunkMap(new TerrainGenerator(42L));
+        ChunkSummaries summaries = new ChunkSummaries(chunks);
+        Chunk chunk = chunks.chunkAt(3, SKY_CY);
+        ChunkSummaries.Summary s = summaries.get(3, SKY_CY);
+        assertNotNull(s);
+        assertEquals(1, summaries.getBuilds());
+        int version = s.getVersion();
+        int[] before = s.pixels.clone();
+
+        int lx = 9, ly = 20;
+        int tx = (3 << Chunk.SHIFT) + lx, ty = (SKY_CY << Chunk.SHIFT) + ly;
+        chunk.set(lx, ly, STONE);
+        summaries.tileChanged(tx, ty);
+        assertEquals(version + 1, s.getVersion());
+        assertEquals(1, summaries.getUpdates());
+        int changed = (ly / ChunkSummaries.SCALE) * ChunkSummaries.PIXELS + lx / ChunkSummaries.SCALE;
+        for (int i = 0; i < before.length; i++) {
+            if (i != changed) assertEquals(before[i], s.pixels[i], "pixel " + i);
+        }
+        assertNotEquals(before[changed], s.pixels[changed]);
+        int[] rebuilt = new int[before.length];
+        ChunkSummaries.build(chunk, rebuilt);
+        assertArrayEquals(rebuilt, s.pixels);
+
+        // Nothing changed under the pixel: no new version, nothing to upload
+        summaries.tileChanged(tx, ty);
+        assertEquals(version + 1, s.getVersion());
+        assertEquals(1, summaries.getUpdates());
+        // Edits in chunks without a summary are ignored
+        summaries.tileChanged(tx + Chunk.SIZE, ty);
+        assertEquals(1, summaries.size());
+        assertEquals(1, summaries.getBuilds());
+    }
+
+    @Test
+    void neverSeenUnloadedChunkHasNoSummary() {
+        ChunkSummaries summaries = new ChunkSummaries(new ChunkMap(new TerrainGenerator(42L)));
+        assertNull(summaries.get(0, 0));
+        assertEquals(0, summaries.size());
+    }
+
+    @Test
+    void leastRecentlyUsedSummaryIsDroppedAtCapacity() {
+        ChunkMap chunks = new ChunkMap(new TerrainGenerator(42L));
+        ChunkSummaries summaries = new ChunkSummaries(chunks);
+        for (int cx = 0; cx <= ChunkSummaries.CAPACITY; cx++) chunks.chunkAt(cx, SKY_CY);
+        for (int cx = 0; cx < ChunkSummaries.CAPACITY; cx++) summaries.get(cx, SKY_CY);
+        assertEquals(ChunkSummaries.CAPACITY, summaries.size());
+        // Touching chunk 0 makes chunk 1 the least recently used
+        ChunkSummaries.Summary first = summaries.get(0, SKY_CY);
+        summaries.get(ChunkSummaries.CAPACITY, SKY_CY);
+        assertEquals(ChunkSummaries.CAPACITY, summaries.size());
+        long builds = summaries.getBuilds();
+        assertSame(first, summaries.get(0, SKY_CY));
+        assertEquals(builds, summaries.getBuilds());
+        // Chunk 1 was dropped, so asking again builds it afresh
+        summaries.get(1, SKY_CY);
+        assertEquals(builds + 1, summaries.getBuilds());
+        assertEquals(ChunkSummaries.CAPACITY, summaries.size());
+    }
+}
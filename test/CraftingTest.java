@@ -0,0 +1,64 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every standard recipe has to be craftable in the grid the inventory actually has
+class CraftingTest {
+    private static Item one(Item ingredient) {
+        return ingredient.isBlock() ? new Item(ingredient.name, ingredient.blockId, 1) : new Item(ingredient.name, ingredient.toolType);
+    }
+
+    private static Item ingredientFor(Recipe recipe, int code) {
+        for (Item item : recipe.ingredients) if (Recipe.codeOf(item) == code) return item;
+        throw new AssertionError(recipe.name + ": no ingredient for code " + code);
+    }
+
+    // Lays the recipe out in the top-left corner of the grid
+    private static void place(Recipe recipe, CraftingGrid grid) {
+        int n = grid.getSize();
+        if (recipe.isShaped()) {
+            for (int r = 0; r < recipe.patternHeight; r++) {
+                for (int c = 0; c < recipe.patternWidth; c++) {
+                    int code = recipe.pattern[r * recipe.patternWidth + c];
+                    if (code != 0) grid.set(r * n + c, one(ingredientFor(recipe, code)));
+                }
+            }
+        } else {
+            int slot = 0;
+            for (int i = 0; i < recipe.ingredients.length; i++) {
+                for (int k = 0; k < recipe.quantities[i]; k++) grid.set(slot++, one(recipe.ingredients[i]));
+            }
+        }
+    }
+
+    @Test
+    void everyStandardRecipeFitsTheInventoryGrid() {
+        int n = new Inventory(9).getCraftingGrid().getSize();
+        assertEquals(Inventory.GRID_SIZE, n);
+        for (Recipe recipe : new CraftingSystem().getAllRecipes()) {
+            if (recipe.isShaped()) {
+                assertTrue(recipe.patternWidth <= n && recipe.patternHeight <= n,
+                        recipe.name + " is " + recipe.patternWidth + "x" + recipe.patternHeight + ", grid is " + n + "x" + n);
+            } else {
+                assertTrue(recipe.slotCodes().length <= n * n, recipe.name + " needs more slots than the grid has");
+            }
+        }
+    }
+
+    @Test
+    void everyStandardRecipeCraftsInTheInventoryGrid() {
+        for (Recipe recipe : new CraftingSystem().getAllRecipes()) {
+            Inventory inv = new Inventory(9);
+            CraftingGrid grid = inv.getCraftingGrid();
+            place(recipe, grid);
+            assertTrue(grid.canCraft(), recipe.name + " does not match in the inventory grid");
+            assertEquals(recipe.result.name, grid.getResult().name);
+            assertEquals(recipe.result.count, grid.getResult().count, recipe.name);
+            inv.handleCraftingResultClick();
+            Item held = inv.getHeldItem();
+            assertNotNull(held, recipe.name);
+            assertEquals(recipe.result.name, held.name);
+            for (int i = 0; i < grid.getSize() * grid.getSize(); i++) assertNull(grid.get(i), recipe.name + " left ingredients in slot " + i);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The edit log holds only tiles that differ from the generator
+class GameWorldTest {
+    private static int overrides(GameWorld world) {
+        int[] n = {0};
+        world.forEachOverride((key, value) -> n[0]++);
+        return n[0];
+    }
+
+    @Test
+    void tileBackToItsGeneratedValueLeavesTheEditLog() {
+        GameWorld world = new GameWorld(800, 600, 42L, false);
+        int tx = 40, ty = TerrainGenerator.SEA_LEVEL - 5; // open sky near the surface
+        int generated = world.getGenerator().tileAt(tx, ty);
+        int baseline = overrides(world);
+        world.setTile(tx, ty, BlockRegistry.WATER == generated ? BlockRegistry.AIR : BlockRegistry.WATER);
+        assertEquals(baseline + 1, overrides(world));
+        world.setTile(tx, ty, 6);
+        assertEquals(baseline + 1, overrides(world));
+        world.setTile(tx, ty, 200); // ids past 127 are stored as negative bytes
+        assertEquals(baseline + 1, overrides(world));
+        world.setTile(tx, ty, generated);
+        assertEquals(baseline, overrides(world));
+        world.dispose();
+    }
+
+    // With no store an edited chunk is the only copy and stays; once it matches the
+    // generator again it unloads like any other
+    @Test
+    void revertedChunkUnloadsWithoutAStore() {
+        GameWorld world = new GameWorld(800, 600, 42L, false);
+        ChunkMap chunks = world.getChunks();
+        int cx = 400, cy = 0;
+        int tx = cx << Chunk.SHIFT, ty = cy << Chunk.SHIFT;
+        int generated = world.getGenerator().tileAt(tx, ty);
+        world.setTile(tx, ty, generated == 6 ? 1 : 6);
+        chunks.unloadOutside(cx + 100, cy, 1, 1);
+        assertTrue(chunks.isLoaded(cx, cy));
+        world.setTile(tx, ty, generated);
+        chunks.unloadOutside(cx + 100, cy, 1, 1);
+        assertFalse(chunks.isLoaded(cx, cy));
+        assertTrue(chunks.takeUnsaved().isEmpty());
+        world.dispose();
+    }
+}
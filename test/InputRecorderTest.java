@@ -0,0 +1,64 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A recorded session, inventory clicks included, must replay to the same world
+class InputRecorderTest {
+    private static final long SEED = 42L;
+    private static final int TICKS = 120;
+
+    // Clicks by tick: pick up the pickaxe, drop it in the crafting grid centre, move the
+    // axe to the bag, and click the shovel twice on consecutive ticks (one run of two)
+    private static int clickAt(int tick) {
+        switch (tick) {
+            case 10: return 0;
+            case 11: return InputState.CLICK_CRAFTING + 4;
+            case 30: return 1;
+            case 40: return 20;
+            case 50: case 51: return 2;
+            default: return InputState.NO_CLICK;
+        }
+    }
+
+    @Test
+    void replayReproducesInventoryClicks(@TempDir Path dir) throws IOException {
+        Path rec = dir.resolve("session.rec");
+        GameWorld recorded = new GameWorld(800, 600, SEED, false);
+        InputState input = new InputState();
+        try (InputRecorder recorder = new InputRecorder(rec, SEED)) {
+            for (int t = 0; t < TICKS; t++) {
+                input.right = t >= 60;
+                input.inventoryClick = clickAt(t);
+                recorder.record(input);
+                recorded.tick(GameWorld.TICK_DT, input);
+            }
+        }
+        Inventory inv = recorded.getInventory();
+        assertNull(inv.get(0));
+        assertNull(inv.get(1));
+        assertEquals(ToolType.PICKAXE, inv.getCraftingGrid().get(4).toolType);
+        assertEquals(ToolType.AXE, inv.getBagItem(20 - 9).toolType);
+        assertEquals(ToolType.SHOVEL, inv.get(2).toolType);
+        assertNull(inv.getHeldItem());
+
+        InputReplay replay = InputReplay.open(rec);
+        assertEquals(SEED, replay.getSeed());
+        GameWorld replayed = new GameWorld(800, 600, replay.getSeed(), false);
+        InputState in = new InputState();
+        int ticks = 0;
+        while (replay.next(replayed, in)) {
+            replayed.tick(GameWorld.TICK_DT, in);
+            ticks++;
+        }
+        assertEquals(TICKS, ticks);
+        WorldSnapshot a = WorldSnapshot.capture(recorded, 32), b = WorldSnapshot.capture(replayed, 32);
+        int diff = a.firstDifference(b);
+        assertEquals(-1, diff, diff < 0 ? "" : WorldSnapshot.PARTS[diff] + " differs");
+        recorded.dispose();
+        replayed.dispose();
+    }
+}
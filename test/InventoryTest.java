@@ -0,0 +1,82 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The count tables must always equal a scan of the slots
+class InventoryTest {
+    private static int scanCount(Inventory inv, int blockId) {
+        int n = 0;
+        for (int i = 0; i < inv.size(); i++) n += countIn(inv.get(i), blockId);
+        for (int i = 0; i < inv.bagSize(); i++) n += countIn(inv.getBagItem(i), blockId);
+        return n;
+    }
+
+    private static int countIn(Item item, int blockId) {
+        return item != null && item.isBlock() && item.blockId == blockId ? item.count : 0;
+    }
+
+    private static boolean scanTool(Inventory inv, ToolType type) {
+        for (int i = 0; i < inv.size(); i++) if (inv.get(i) != null && inv.get(i).toolType == type) return true;
+        for (int i = 0; i < inv.bagSize(); i++) if (inv.getBagItem(i) != null && inv.getBagItem(i).toolType == type) return true;
+        return false;
+    }
+
+    private static void assertTablesMatchSlots(Inventory inv) {
+        for (int id = 0; id < 16; id++) assertEquals(scanCount(inv, id), inv.totalCountFor(id), "block " + id);
+        for (ToolType type : ToolType.values()) assertEquals(scanTool(inv, type), inv.hasToolType(type), type.name());
+    }
+
+    // Stone split over a hotbar stack and two bag stacks, beside other blocks and a tool
+    private static Inventory spreadInventory() {
+        Inventory inv = new Inventory(9);
+        inv.addTool(new Item("Wood Pickaxe", ToolType.PICKAXE));
+        for (int i = 0; i < 5; i++) inv.addBlock(6, "Stone");
+        for (int id = 1; id <= 5; id++) inv.addBlock(id, "Block " + id);
+        inv.setBagItem(0, new Item("Stone", 6, 7));
+        inv.setBagItem(4, new Item("Stone", 6, 3));
+        inv.setBagItem(5, new Item("Dirt", 1, 2));
+        return inv;
+    }
+
+    @Test
+    void consumeAcrossStacksKeepsTablesInStep() {
+        Inventory inv = spreadInventory();
+        assertEquals(15, inv.totalCountFor(6));
+        inv.consumeBlocks(6, 7); // empties the hotbar stack, takes 2 from the first bag stack
+        assertEquals(8, inv.totalCountFor(6));
+        assertTablesMatchSlots(inv);
+        inv.consumeBlocks(6, 8); // empties both bag stacks
+        assertEquals(0, inv.totalCountFor(6));
+        assertNull(inv.getBagItem(0));
+        assertNull(inv.getBagItem(4));
+        assertTablesMatchSlots(inv);
+        assertTrue(inv.hasToolType(ToolType.PICKAXE));
+    }
+
+    @Test
+    void consumingMoreThanHeldTakesWhatThereIs() {
+        Inventory inv = spreadInventory();
+        inv.consumeBlocks(1, 50);
+        assertEquals(0, inv.totalCountFor(1));
+        assertTablesMatchSlots(inv);
+        // Emptied slots are free again and counted from zero
+        inv.addBlock(1, "Dirt");
+        assertEquals(1, inv.totalCountFor(1));
+        assertTablesMatchSlots(inv);
+    }
+
+    @Test
+    void slotClicksMoveItemsWithoutChangingTotals() {
+        Inventory inv = spreadInventory();
+        inv.handleSlotClick(1);  // pick up the hotbar stone
+        assertEquals(10, inv.totalCountFor(6)); // held items are not in any slot
+        inv.handleSlotClick(9);  // onto the first bag stone stack
+        assertTablesMatchSlots(inv);
+        assertEquals(15, inv.totalCountFor(6));
+        inv.handleSlotClick(0);  // pick up the pickaxe
+        assertFalse(inv.hasToolType(ToolType.PICKAXE));
+        inv.handleSlotClick(20); // put it in the bag
+        assertTrue(inv.hasToolType(ToolType.PICKAXE));
+        assertTablesMatchSlots(inv);
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The incremental flood fill must land where a from-scratch fixpoint over the loaded
+// chunks does, whatever the order of loads and edits and however the work is cut up
+class LightingTest {
+    private static final int CX0 = -2, CX1 = 2, CY0 = -1, CY1 = 2; // sky, surface, caves
+    private static final int W = (CX1 - CX0 + 1) * Chunk.SIZE, H = (CY1 - CY0 + 1) * Chunk.SIZE;
+    private static final int X0 = CX0 << Chunk.SHIFT, Y0 = CY0 << Chunk.SHIFT;
+    private static final int AIR = BlockRegistry.AIR, WATER = BlockRegistry.WATER;
+    private static final int[] EDIT_TILES = {AIR, AIR, AIR, 1, 6, 9, WATER, 4}; // dirt, stone, torch, leaves
+
+    // ---- brute force ----
+
+    private static int passed(int v, int tile, boolean skyDown) {
+        if (tile == AIR) return skyDown && v == Lighting.MAX ? Lighting.MAX : v - 1;
+        return BlockRegistry.isSolid(tile) ? v - 1 : v - 2;
+    }
+
+    // The top row of a chunk with no loaded chunk above takes full sky where the
+    // generator puts nothing over it
+    private static int skySource(ChunkMap chunks, ColumnCache columns, int tx, int ty, int tile) {
+        int cy = ty >> Chunk.SHIFT;
+        if ((ty & Chunk.MASK) != 0 || chunks.getIfLoaded(tx >> Chunk.SHIFT, cy - 1) != null) return 0;
+        int ground = columns.groundTileY(tx);
+        int tree = columns.treeHeight(tx);
+        int top = tree > 0 ? ground - tree - 2 : ground;
+        boolean open = ty < top && ty < TerrainGenerator.SEA_LEVEL;
+        return open ? Math.max(0, passed(Lighting.MAX, tile, true)) : 0;
+    }
+
+    // Every tile takes the most of its own source and what its open neighbours pass it,
+    // relaxed from the sources up until nothing changes; -1 where no chunk is loaded
+    private static int[] fixpoint(ChunkMap chunks, ColumnCache columns, boolean sky) {
+        int[] tiles = new int[W * H];
+        int[] light = new int[W * H];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int tx = X0 + x, ty = Y0 + y, i = y * W + x;
+                Chunk c = chunks.getIfLoaded(tx >> Chunk.SHIFT, ty >> Chunk.SHIFT);
+                if (c == null) {
+                    tiles[i] = -1;
+                    light[i] = -1;
+                    continue;
+                }
+                int tile = c.get(tx & Chunk.MASK, ty & Chunk.MASK) & BlockRegistry.MAX_ID;
+                tiles[i] = tile;
+                light[i] = sky ? skySource(chunks, columns, tx, ty, tile) : BlockRegistry.lightOf(tile);
+            }
+        }
+        int[] dx = {0, -1, 1, 0}, dy = {-1, 0, 0, 1};
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int y = 0; y < H; y++) {
+                for (int x = 0; x < W; x++) {
+                    int i = y * W + x;
+                    if (tiles[i] < 0) continue;
+                    int best = light[i];
+                    for (int d = 0; d < 4; d++) {
+                        int nx = x + dx[d], ny = y + dy[d];
+                        if (nx < 0 || ny < 0 || nx >= W || ny >= H) continue;
+                        int j = ny * W + nx;
+                        if (tiles[j] < 0 || light[j] <= 0 || BlockRegistry.isSolid(tiles[j])) continue;
+                        // Neighbour above (d == 0) is the one sky falls down from
+                        best = Math.max(best, passed(light[j], tiles[i], sky && d == 0));
+                    }
+                    if (best > light[i]) {
+                        light[i] = best;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return light;
+    }
+
+    private static void assertMatchesFixpoint(ChunkMap chunks, ColumnCache columns, Lighting lighting, String when) {
+        int[] sky = fixpoint(chunks, columns, true);
+        int[] block = fixpoint(chunks, columns, false);
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int i = y * W + x;
+                if (sky[i] < 0) continue;
+                int tx = X0 + x, ty = Y0 + y;
+                if (sky[i] != lighting.skyAt(tx, ty)) fail(when + ": sky at " + tx + "," + ty + " is " + lighting.skyAt(tx, ty) + ", fixpoint " + sky[i]);
+                if (block[i] != lighting.blockAt(tx, ty)) fail(when + ": block light at " + tx + "," + ty + " is " + lighting.blockAt(tx, ty) + ", fixpoint " + block[i]);
+            }
+        }
+    }
+
+    // ---- the incremental path ----
+
+    private static void drain(Lighting lighting) {
+        for (int n = 0; !lighting.isIdle(); n++) {
+            assertTrue(n < 1_000_000, "lighting never went idle");
+            lighting.step();
+        }
+    }
+
+    private static void edit(ChunkMap chunks, Lighting lighting, List<long[]> loaded, Random rnd) {
+        long[] c = loaded.get(rnd.nextInt(loaded.size()));
+        int tx = ((int) c[0] << Chunk.SHIFT) + rnd.nextInt(Chunk.SIZE);
+        int ty = ((int) c[1] << Chunk.SHIFT) + rnd.nextInt(Chunk.SIZE);
+        chunks.setTile(tx, ty, EDIT_TILES[rnd.nextInt(EDIT_TILES.length)], 0);
+        lighting.tileChanged(tx, ty);
+    }
+
+    // Loads the chunks in a shuffled order with random edits in between; with a budget,
+    // steps stop part way and the next loads and edits land on unfinished work
+    private static void run(long seed, long budgetNanos) {
+        Random rnd = new Random(seed);
+        TerrainGenerator gen = new TerrainGenerator(seed);
+        ChunkMap chunks = new ChunkMap(gen);
+        Lighting lighting = new Lighting(chunks, gen);
+        lighting.setBudgetNanos(budgetNanos);
+        List<long[]> order = new ArrayList<>();
+        for (int cx = CX0; cx <= CX1; cx++) {
+            for (int cy = CY0; cy <= CY1; cy++) order.add(new long[]{cx, cy});
+        }
+        Collections.shuffle(order, rnd);
+        List<long[]> loaded = new ArrayList<>();
+        for (long[] c : order) {
+            chunks.chunkAt((int) c[0], (int) c[1]);
+            loaded.add(c);
+            lighting.step();
+            for (int e = rnd.nextInt(40); e > 0; e--) {
+                edit(chunks, lighting, loaded, rnd);
+                if (rnd.nextInt(4) == 0) lighting.step();
+            }
+            if (loaded.size() % 5 == 0) {
+                drain(lighting);
+                assertMatchesFixpoint(chunks, gen.getColumns(), lighting, "seed " + seed + ", " + loaded.size() + " chunks");
+            }
+        }
+        for (int e = 0; e < 2000; e++) {
+            edit(chunks, lighting, loaded, rnd);
+            if (rnd.nextInt(8) == 0) lighting.step();
+        }
+        drain(lighting);
+        assertMatchesFixpoint(chunks, gen.getColumns(), lighting, "seed " + seed + " after edits");
+    }
+
+    @Test
+    void editsAndLoadOrdersMatchTheFixpoint() {
+        for (long seed = 1; seed <= 4; seed++) run(seed, 0);
+    }
+
+    @Test
+    void budgetedStepsMatchTheFixpoint() {
+        for (long seed = 11; seed <= 13; seed++) run(seed, 1);
+    }
+
+    @Test
+    void torchInAClosedRoomLightsItAndGoesOutCleanly() {
+        TerrainGenerator gen = new TerrainGenerator(42L);
+        ChunkMap chunks = new ChunkMap(gen);
+        Lighting lighting = new Lighting(chunks, gen);
+        lighting.setBudgetNanos(0);
+        int ox = 4, oy = 2 * Chunk.SIZE + 16; // underground, below where sky can reach
+        for (int cx = -1; cx <= 1; cx++) {
+            for (int cy = 1; cy <= CY1; cy++) chunks.chunkAt(cx, cy);
+        }
+        for (int y = -6; y <= 6; y++) {
+            for (int x = -6; x <= 6; x++) {
+                boolean wall = Math.abs(x) == 6 || Math.abs(y) == 6;
+                chunks.setTile(ox + x, oy + y, wall ? 6 : AIR, 0);
+                lighting.tileChanged(ox + x, oy + y);
+            }
+        }
+        chunks.setTile(ox, oy, 9, 0);
+        lighting.tileChanged(ox, oy);
+        drain(lighting);
+        assertEquals(BlockRegistry.lightOf(9), lighting.blockAt(ox, oy));
+        assertEquals(BlockRegistry.lightOf(9) - 3, lighting.blockAt(ox + 2, oy + 1));
+        assertMatchesFixpoint(chunks, gen.getColumns(), lighting, "torch lit");
+        chunks.setTile(ox, oy, AIR, 0);
+        lighting.tileChanged(ox, oy);
+        drain(lighting);
+        assertEquals(0, lighting.blockAt(ox + 2, oy + 1));
+        assertMatchesFixpoint(chunks, gen.getColumns(), lighting, "torch removed");
+    }
+}
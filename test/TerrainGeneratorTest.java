@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The batched generator has to reproduce the scalar one tile for tile
+class TerrainGeneratorTest {
+    private static final long[] SEEDS = {42L, 0L, -1L, 12345L, Long.MIN_VALUE, 0x5DEECE66DL};
+
+    private static void assertSameChunk(TerrainGenerator batch, TerrainGenerator scalar, int cx, int cy) {
+        Chunk a = new Chunk(cx, cy), b = new Chunk(cx, cy);
+        batch.generate(a);
+        scalar.generateScalar(b);
+        byte[] ta = new byte[Chunk.BYTES], tb = new byte[Chunk.BYTES];
+        a.copyTiles(ta);
+        b.copyTiles(tb);
+        for (int i = 0; i < Chunk.BYTES; i++) {
+            if (ta[i] != tb[i]) {
+                fail("seed " + batch.getSeed() + " chunk " + cx + "," + cy + " tile " + (i & Chunk.MASK) + "," + (i >> Chunk.SHIFT)
+                        + ": batch " + ta[i] + ", scalar " + tb[i]);
+            }
+        }
+    }
+
+    // Sky, surface, caves and deep stone, on both sides of both axes
+    @Test
+    void batchMatchesScalarAroundTheOrigin() {
+        for (long seed : SEEDS) {
+            TerrainGenerator batch = new TerrainGenerator(seed), scalar = new TerrainGenerator(seed);
+            for (int cx = -10; cx < 10; cx++) {
+                for (int cy = -3; cy < 9; cy++) assertSameChunk(batch, scalar, cx, cy);
+            }
+        }
+    }
+
+    // Far out the float lattice coordinates lose precision; the batch path must round
+    // them the same way
+    @Test
+    void batchMatchesScalarFarFromTheOrigin() {
+        int[] far = {-1_000_000, -65_537, -4_097, 4_096, 65_536, 999_999};
+        for (long seed : SEEDS) {
+            TerrainGenerator batch = new TerrainGenerator(seed), scalar = new TerrainGenerator(seed);
+            for (int cx : far) {
+                for (int cy = -1; cy < 6; cy++) assertSameChunk(batch, scalar, cx, cy);
+            }
+            for (int cy : far) assertSameChunk(batch, scalar, 3, cy);
+        }
+    }
+
+    @Test
+    void referenceModeTakesTheScalarPath() {
+        TerrainGenerator gen = new TerrainGenerator(42L);
+        gen.setReference(true);
+        assertSameChunk(gen, new TerrainGenerator(42L), -7, 2);
+    }
+}
@@ -0,0 +1,48 @@
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The drop fast path may only skip move() where move() would have let the box through
+class TileColliderTest {
+    private static final int TILE = GameWorld.TILE_SIZE;
+
+    @Test
+    void clearMoveNeverSkipsAHit() {
+        ChunkMap chunks = new ChunkMap(new TerrainGenerator(42L));
+        TileCollider collider = new TileCollider(chunks, TILE);
+        TerrainGenerator gen = new TerrainGenerator(42L);
+        Random rnd = new Random(1);
+        int clear = 0, blocked = 0;
+        for (int n = 0; n < 200_000; n++) {
+            // Around the surface on both sides of x = 0, where solid and open tiles mix
+            int tx = rnd.nextInt(400) - 200;
+            float x = tx * TILE + rnd.nextFloat() * TILE;
+            float y = (gen.groundTileY(tx) - 3 + rnd.nextInt(6)) * TILE + rnd.nextFloat() * TILE;
+            float dx = (rnd.nextFloat() * 2 - 1) * TILE, dy = (rnd.nextFloat() * 2 - 1) * TILE;
+            float nx = x + dx, ny = y + dy;
+            collider.move(x, y, 1f, 1f, dx, dy);
+            if (collider.clearMove(x, y, nx, ny)) {
+                clear++;
+                assertFalse(collider.hitX || collider.hitY, "clear at " + x + "," + y + " by " + dx + "," + dy);
+                assertEquals(nx, collider.movedX);
+                assertEquals(ny, collider.movedY);
+            } else if (collider.hitX || collider.hitY) {
+                blocked++;
+            }
+        }
+        // Both outcomes have to be common for the test to mean anything
+        assertTrue(clear > 10_000, "clear " + clear);
+        assertTrue(blocked > 10_000, "blocked " + blocked);
+    }
+
+    @Test
+    void clearMoveDefersToTheSweepWhenTheShortcutIsOff() {
+        TileCollider collider = new TileCollider(new ChunkMap(new TerrainGenerator(42L)), TILE);
+        float y = -20 * Chunk.SIZE * TILE; // high in the sky
+        assertTrue(collider.clearMove(4f, y, 5f, y + 3f));
+        collider.setShortcut(false);
+        assertFalse(collider.clearMove(4f, y, 5f, y + 3f));
+    }
+}
@@ -0,0 +1,185 @@
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Headless checks of the quad mesh: counts and the interleaved x, y, r, g, b, a floats
+class TileMeshBuilderTest {
+    private static final int TILE = 8;
+    private static final int STONE = 6;
+    private static final int DIRT = 1;
+
+    private static FloatBuffer buffer() {
+        return FloatBuffer.allocate(Chunk.BYTES * TileMeshBuilder.FLOATS_PER_QUAD);
+    }
+
+    private static int[] counts() {
+        return new int[TileMeshBuilder.LOD_COUNTS];
+    }
+
+    private static void assertVertex(FloatBuffer mesh, int vertex, float x, float y, float[] rgba) {
+        int at = vertex * TileMeshBuilder.FLOATS_PER_VERTEX;
+        assertEquals(x, mesh.get(at), "x of vertex " + vertex);
+        assertEquals(y, mesh.get(at + 1), "y of vertex " + vertex);
+        for (int c = 0; c < 4; c++) assertEquals(rgba[c], mesh.get(at + 2 + c), "channel " + c + " of vertex " + vertex);
+    }
+
+    @Test
+    void airChunkWritesNothing() {
+        FloatBuffer mesh = buffer();
+        assertEquals(0, TileMeshBuilder.build(new Chunk(3, -2), TILE, mesh));
+        assertEquals(0, mesh.position());
+        assertEquals(0, TileMeshBuilder.quadCount(new Chunk(3, -2)));
+    }
+
+    @Test
+    void singleTileIsOneQuadInWorldPixels() {
+        Chunk chunk = new Chunk(2, 1);
+        chunk.set(5, 7, STONE);
+        FloatBuffer mesh = buffer();
+        assertEquals(TileMeshBuilder.VERTICES_PER_QUAD, TileMeshBuilder.build(chunk, TILE, mesh));
+        assertEquals(TileMeshBuilder.FLOATS_PER_QUAD, mesh.position());
+        float x = (2 * Chunk.SIZE + 5) * TILE, y = (1 * Chunk.SIZE + 7) * TILE;
+        float[] c = BlockRegistry.color(STONE);
+        // Clockwise from the top-left, y down
+        assertVertex(mesh, 0, x, y, c);
+        assertVertex(mesh, 1, x + TILE, y, c);
+        assertVertex(mesh, 2, x + TILE, y + TILE, c);
+        assertVertex(mesh, 3, x, y + TILE, c);
+    }
+
+    @Test
+    void negativeChunksSitLeftOfAndAboveTheOrigin() {
+        Chunk chunk = new Chunk(-1, -1);
+        chunk.set(Chunk.MASK, Chunk.MASK, DIRT);
+        FloatBuffer mesh = buffer();
+        TileMeshBuilder.build(chunk, TILE, mesh);
+        // The chunk's last tile ends exactly at world pixel (0, 0)
+        assertVertex(mesh, 0, -TILE, -TILE, BlockRegistry.color(DIRT));
+        assertVertex(mesh, 2, 0, 0, BlockRegistry.color(DIRT));
+    }
+
+    @Test
+    void quadsFollowRowOrder() {
+        Chunk chunk = new Chunk(0, 0);
+        chunk.set(3, 4, STONE);
+        chunk.set(1, 9, DIRT);
+        chunk.set(0, 4, DIRT);
+        FloatBuffer mesh = buffer();
+        assertEquals(3 * TileMeshBuilder.VERTICES_PER_QUAD, TileMeshBuilder.build(chunk, TILE, mesh));
+        int v = TileMeshBuilder.VERTICES_PER_QUAD;
+        assertVertex(mesh, 0, 0, 4 * TILE, BlockRegistry.color(DIRT));
+        assertVertex(mesh, v, 3 * TILE, 4 * TILE, BlockRegistry.color(STONE));
+        assertVertex(mesh, 2 * v, 1 * TILE, 9 * TILE, BlockRegistry.color(DIRT));
+    }
+
+    @Test
+    void fullChunkFillsTheBuffer() {
+        Chunk chunk = new Chunk(0, 0);
+        for (int ly = 0; ly < Chunk.SIZE; ly++) {
+            for (int lx = 0; lx < Chunk.SIZE; lx++) chunk.set(lx, ly, STONE);
+        }
+        FloatBuffer mesh = buffer();
+        assertEquals(Chunk.BYTES * TileMeshBuilder.VERTICES_PER_QUAD, TileMeshBuilder.build(chunk, TILE, mesh));
+        assertFalse(mesh.hasRemaining());
+    }
+
+    @Test
+    void quadCountMatchesWhatBuildWrites() {
+        TerrainGenerator gen = new TerrainGenerator(42L);
+        FloatBuffer mesh = buffer();
+        for (int cy = -2; cy < 6; cy++) {
+            Chunk chunk = new Chunk(cy * 7, cy);
+            gen.generate(chunk);
+            mesh.clear();
+            int vertices = TileMeshBuilder.build(chunk, TILE, mesh);
+            assertEquals(TileMeshBuilder.quadCount(chunk) * TileMeshBuilder.VERTICES_PER_QUAD, vertices);
+            assertEquals(vertices * TileMeshBuilder.FLOATS_PER_VERTEX, mesh.position());
+        }
+    }
+
+    @Test
+    void fullLightMatchesTheUnlitMesh() {
+        Chunk chunk = new Chunk(1, 2);
+        new TerrainGenerator(7L).generate(chunk);
+        byte[] corners = new byte[TileMeshBuilder.CORNERS];
+        Arrays.fill(corners, (byte) (4 * Lighting.MAX));
+        FloatBuffer lit = buffer(), unlit = buffer();
+        assertEquals(TileMeshBuilder.build(chunk, TILE, unlit), TileMeshBuilder.build(chunk, corners, TILE, lit));
+        lit.flip();
+        unlit.flip();
+        assertEquals(unlit, lit);
+    }
+
+    // ---- level of detail ----
+
+    @Test
+    void lodBlockTakesItsMostCommonTile() {
+        Chunk chunk = new Chunk(0, 0);
+        // Level 1 block at (0, 0): three dirt and one stone
+        chunk.set(0, 0, STONE);
+        chunk.set(1, 0, DIRT);
+        chunk.set(0, 1, DIRT);
+        chunk.set(1, 1, DIRT);
+        FloatBuffer mesh = buffer();
+        assertEquals(TileMeshBuilder.VERTICES_PER_QUAD, TileMeshBuilder.build(chunk, null, counts(), 1, TILE, mesh));
+        assertVertex(mesh, 0, 0, 0, BlockRegistry.color(DIRT));
+        assertVertex(mesh, 2, 2 * TILE, 2 * TILE, BlockRegistry.color(DIRT));
+    }
+
+    // Stone is met first, but dirt gets to two first
+    @Test
+    void lodTieGoesToTheTileThatReachesTheCountFirst() {
+        Chunk chunk = new Chunk(0, 0);
+        chunk.set(0, 0, STONE);
+        chunk.set(1, 0, DIRT);
+        chunk.set(0, 1, DIRT);
+        chunk.set(1, 1, STONE);
+        FloatBuffer mesh = buffer();
+        TileMeshBuilder.build(chunk, null, counts(), 1, TILE, mesh);
+        assertVertex(mesh, 0, 0, 0, BlockRegistry.color(DIRT));
+    }
+
+    // The scratch is shared between blocks and builds, so a block must not inherit its
+    // neighbour's counts: here the one brick in the planks block would win on leftovers
+    @Test
+    void lodCountsStartFromZeroInEveryBlock() {
+        int[] counts = counts();
+        int planks = 7, bricks = 8;
+        Chunk chunk = new Chunk(0, 0);
+        for (int ly = 0; ly < 4; ly++) {
+            for (int lx = 0; lx < 4; lx++) chunk.set(lx, ly, bricks);
+        }
+        for (int ly = 0; ly < 3; ly++) {
+            for (int lx = 4; lx < 8; lx++) chunk.set(lx, ly, planks);
+        }
+        chunk.set(7, 2, bricks);
+        FloatBuffer mesh = buffer();
+        for (int pass = 0; pass < 2; pass++) {
+            mesh.clear();
+            assertEquals(2 * TileMeshBuilder.VERTICES_PER_QUAD, TileMeshBuilder.build(chunk, null, counts, 2, TILE, mesh));
+            assertVertex(mesh, 0, 0, 0, BlockRegistry.color(bricks));
+            assertVertex(mesh, TileMeshBuilder.VERTICES_PER_QUAD, 4 * TILE, 0, BlockRegistry.color(planks));
+            assertArrayEquals(new int[TileMeshBuilder.LOD_COUNTS], counts);
+        }
+    }
+
+    @Test
+    void lodStaysWithinMaxQuadsAndLevelZeroIsTheFullMesh() {
+        Chunk chunk = new Chunk(-2, 3);
+        new TerrainGenerator(42L).generate(chunk);
+        byte[] corners = new byte[TileMeshBuilder.CORNERS];
+        Arrays.fill(corners, (byte) (4 * Lighting.MAX));
+        FloatBuffer a = buffer(), b = buffer();
+        assertEquals(TileMeshBuilder.build(chunk, corners, TILE, a), TileMeshBuilder.build(chunk, corners, counts(), 0, TILE, b));
+        assertEquals(a.flip(), b.flip());
+        for (int level = 1; level < TileMeshBuilder.LOD_LEVELS; level++) {
+            FloatBuffer mesh = buffer();
+            int vertices = TileMeshBuilder.build(chunk, corners, counts(), level, TILE, mesh);
+            assertTrue(vertices <= TileMeshBuilder.maxQuads(level) * TileMeshBuilder.VERTICES_PER_QUAD, "level " + level);
+            assertEquals(vertices * TileMeshBuilder.FLOATS_PER_VERTEX, mesh.position());
+        }
+    }
+}
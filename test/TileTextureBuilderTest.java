@@ -0,0 +1,81 @@
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The bytes the texture mode uploads: ids as unsigned luminance, palette as RGBA
+class TileTextureBuilderTest {
+    @Test
+    void chunkIsPackedRowMajorTopRowFirst() {
+        Chunk chunk = new Chunk(-3, 4);
+        chunk.set(0, 0, 6);
+        chunk.set(Chunk.MASK, 0, 1);
+        chunk.set(0, 1, 3);
+        chunk.set(7, Chunk.MASK, 8);
+        ByteBuffer out = ByteBuffer.allocate(Chunk.BYTES);
+        TileTextureBuilder.packChunk(chunk, out);
+        assertEquals(Chunk.BYTES, out.position());
+        assertEquals(6, out.get(0));
+        assertEquals(1, out.get(Chunk.MASK));
+        assertEquals(3, out.get(Chunk.SIZE));
+        assertEquals(8, out.get(Chunk.MASK * Chunk.SIZE + 7));
+        int filled = 0;
+        for (int i = 0; i < Chunk.BYTES; i++) if (out.get(i) != 0) filled++;
+        assertEquals(4, filled);
+    }
+
+    @Test
+    void packingStartsAtTheBufferPosition() {
+        Chunk chunk = new Chunk(0, 0);
+        chunk.set(0, 0, 5);
+        ByteBuffer out = ByteBuffer.allocate(Chunk.BYTES + 16);
+        out.position(16);
+        TileTextureBuilder.packChunk(chunk, out);
+        assertEquals(16 + Chunk.BYTES, out.position());
+        assertEquals(5, out.get(16));
+    }
+
+    // The shader reads the byte as 0..1 and scales by 255, so ids must go out unsigned
+    @Test
+    void highIdsSurviveAsUnsignedBytes() {
+        Chunk chunk = new Chunk(0, 0);
+        chunk.set(2, 3, 128);
+        chunk.set(4, 5, 200);
+        chunk.set(6, 7, BlockRegistry.MAX_ID);
+        ByteBuffer out = ByteBuffer.allocate(Chunk.BYTES);
+        TileTextureBuilder.packChunk(chunk, out);
+        assertEquals(128, out.get(3 * Chunk.SIZE + 2) & 0xff);
+        assertEquals(200, out.get(5 * Chunk.SIZE + 4) & 0xff);
+        assertEquals(BlockRegistry.MAX_ID, out.get(7 * Chunk.SIZE + 6) & 0xff);
+    }
+
+    @Test
+    void paletteIsRgbaBytesPerId() {
+        ByteBuffer out = ByteBuffer.allocate(TileTextureBuilder.PALETTE_BYTES);
+        TileTextureBuilder.packPalette(out);
+        assertEquals(TileTextureBuilder.PALETTE_BYTES, out.position());
+        for (int id = 0; id < TileTextureBuilder.PALETTE_SIZE; id++) {
+            int rgba = BlockRegistry.rgba(id);
+            int at = id * 4;
+            assertEquals(rgba >>> 24, out.get(at) & 0xff, "red of " + id);
+            assertEquals((rgba >>> 16) & 0xff, out.get(at + 1) & 0xff, "green of " + id);
+            assertEquals((rgba >>> 8) & 0xff, out.get(at + 2) & 0xff, "blue of " + id);
+            assertEquals(rgba & 0xff, out.get(at + 3) & 0xff, "alpha of " + id);
+        }
+    }
+
+    @Test
+    void airIsTransparentAndBlocksAreOpaque() {
+        ByteBuffer out = ByteBuffer.allocate(TileTextureBuilder.PALETTE_BYTES);
+        TileTextureBuilder.packPalette(out);
+        assertEquals(0, out.get(BlockRegistry.AIR * 4 + 3));
+        // Stone, as an example of a solid block: its colour from blocks.txt, fully opaque
+        int stone = BlockRegistry.rgba(6);
+        assertEquals(0xff, out.get(6 * 4 + 3) & 0xff);
+        assertEquals(stone >>> 24, out.get(6 * 4) & 0xff);
+        // Ids with no blocks.txt entry still get a visible colour
+        assertFalse(BlockRegistry.isDefined(200));
+        assertEquals(0xff, out.get(200 * 4 + 3) & 0xff);
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A snapshot pair has to name the part where two worlds first differ
+class WorldSnapshotTest {
+    private static final long SEED = 42L;
+    private static final int STONE = 6;
+    private static final int RADIUS = 16;
+
+    // Snapshots a fresh world and one changed by change; returns firstDifference
+    private static int differenceAfter(Consumer<GameWorld> change) {
+        GameWorld a = new GameWorld(800, 600, SEED, false), b = new GameWorld(800, 600, SEED, false);
+        change.accept(b);
+        // Both over a's region, so moving b's player does not move the tiles compared
+        WorldSnapshot sa = WorldSnapshot.capture(a, RADIUS);
+        WorldSnapshot sb = WorldSnapshot.capture(b, sa.tx0, sa.ty0, sa.tx1, sa.ty1);
+        int diff = sa.firstDifference(sb);
+        assertEquals(diff, sb.firstDifference(sa));
+        assertEquals(diff < 0, sa.hash() == sb.hash());
+        a.dispose();
+        b.dispose();
+        return diff;
+    }
+
+    private static int part(String name) {
+        for (int i = 0; i < WorldSnapshot.PARTS.length; i++) {
+            if (WorldSnapshot.PARTS[i].equals(name)) return i;
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    // A tile inside the snapshot region that is not already stone
+    private static int[] tileNearPlayer(GameWorld world) {
+        Player p = world.getPlayer();
+        int tx = (int) Math.floor(p.x / GameWorld.TILE_SIZE) + 3;
+        int ty = (int) Math.floor(p.y / GameWorld.TILE_SIZE);
+        while (world.tileAt(tx, ty) == STONE) ty--;
+        return new int[]{tx, ty};
+    }
+
+    @Test
+    void sameSeedAndNoInputMatch() {
+        assertEquals(-1, differenceAfter(w -> { }));
+    }
+
+    @Test
+    void eachPartIsReportedOnItsOwn() {
+        assertEquals(part("player"), differenceAfter(w -> w.getPlayer().x += 0.5f));
+        assertEquals(part("drops"), differenceAfter(w -> w.spawnDrop(w.getPlayer().x + 400, w.getPlayer().y, 1)));
+        assertEquals(part("inventory"), differenceAfter(w -> w.getInventory().setSelectedIndex(4)));
+        assertEquals(part("inventory"), differenceAfter(w -> w.getInventory().getCraftingGrid().set(0, new Item("Dirt", 1, 1))));
+        // Straight into the chunk: the tiles differ but nothing went through the edit log
+        assertEquals(part("tiles"), differenceAfter(w -> {
+            int[] t = tileNearPlayer(w);
+            w.getChunks().setTile(t[0], t[1], STONE, 0);
+        }));
+        // Water the fluid sim was told about, also behind the edit log's back
+        assertEquals(part("fluids"), differenceAfter(w -> {
+            int[] t = tileNearPlayer(w);
+            w.getChunks().setTile(t[0], t[1], BlockRegistry.WATER, 0);
+            w.getFluids().tileChanged(t[0], t[1], BlockRegistry.WATER);
+        }));
+    }
+
+    // An edit changes the log, the fluids or tiles after it too; the log comes first
+    @Test
+    void earliestDifferingPartWins() {
+        assertEquals(part("overrides"), differenceAfter(w -> {
+            int[] t = tileNearPlayer(w);
+            w.setTile(t[0], t[1], STONE);
+        }));
+        assertEquals(part("player"), differenceAfter(w -> {
+            w.getPlayer().y -= 1;
+            w.getInventory().setSelectedIndex(4);
+        }));
+    }
+
+    // Tiles outside the hashed region are not compared
+    @Test
+    void editOutsideTheRegionIsNotATileDifference() {
+        assertEquals(-1, differenceAfter(w -> {
+            int[] t = tileNearPlayer(w);
+            w.getChunks().setTile(t[0] + 10 * RADIUS, t[1], STONE, 0);
+        }));
+    }
+}
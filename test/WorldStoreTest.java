@@ -0,0 +1,105 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// What goes to disk has to come back: region payloads, level.dat and the edit log
+class WorldStoreTest {
+    private static final long SEED = 42L;
+    private static final int STONE = 6;
+
+    private static Map<Long, Integer> overrides(GameWorld world) {
+        Map<Long, Integer> m = new HashMap<>();
+        world.forEachOverride((key, value) -> m.put(key, value & BlockRegistry.MAX_ID));
+        return m;
+    }
+
+    @Test
+    void regionFileKeepsPayloadsAcrossReopen(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("r.-1.0.dat");
+        byte[] a = new byte[Chunk.BYTES], b = new byte[Chunk.BYTES];
+        for (int i = 0; i < Chunk.BYTES; i++) {
+            a[i] = (byte) i;
+            b[i] = (byte) (i * 7 + 200); // ids past 127 included
+        }
+        int ia = RegionFile.index(-1, 0), ib = RegionFile.index(-32, 31);
+        RegionFile rf = RegionFile.open(path);
+        rf.write(ia, a);
+        // Written after the file was mapped: the read has to remap
+        Chunk chunk = new Chunk(-1, 0);
+        assertTrue(rf.read(ia, chunk));
+        assertTiles(a, chunk);
+        rf.write(ib, b);
+        rf.write(ia, b); // rewrite in place
+        rf.flush();
+        rf.close();
+
+        rf = RegionFile.open(path);
+        assertTrue(rf.contains(ia));
+        assertTrue(rf.contains(ib));
+        assertFalse(rf.contains(RegionFile.index(0, 0)));
+        assertFalse(rf.read(RegionFile.index(0, 0), new Chunk(0, 0)));
+        chunk = new Chunk(-32, 31);
+        assertTrue(rf.read(ib, chunk));
+        assertTiles(b, chunk);
+        assertTrue(rf.read(ia, chunk));
+        assertTiles(b, chunk);
+        rf.close();
+    }
+
+    private static void assertTiles(byte[] expected, Chunk chunk) {
+        byte[] actual = new byte[Chunk.BYTES];
+        chunk.copyTiles(actual);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void saveAndLoadRestoresTheWorld(@TempDir Path dir) throws IOException {
+        GameWorld saved = new GameWorld(800, 600, SEED, false);
+        WorldStore store = new WorldStore(dir);
+        store.attach(saved);
+        // Edits in chunks on both sides of both axes, one reverted again
+        int[][] edits = {{3, 40}, {-5, 41}, {-70, -12}, {90, 200}, {31, 40}};
+        for (int[] e : edits) {
+            int generated = saved.getGenerator().tileAt(e[0], e[1]);
+            saved.setTile(e[0], e[1], generated == STONE ? BlockRegistry.AIR : STONE);
+        }
+        saved.setTile(31, 40, saved.getGenerator().tileAt(31, 40));
+        saved.getPlayer().x += 100;
+        // An item left in the crafting grid and one on the cursor
+        Inventory inv = saved.getInventory();
+        inv.handleSlotClick(0);
+        inv.handleCraftingSlotClick(4);
+        inv.handleSlotClick(1);
+        assertNotNull(inv.getCraftingGrid().get(4));
+        assertNotNull(inv.getHeldItem());
+        store.saveAsync(saved);
+        store.close();
+
+        assertEquals(SEED, WorldStore.readSeed(dir));
+        GameWorld loaded = new GameWorld(800, 600, SEED, false);
+        store = new WorldStore(dir);
+        store.attach(loaded);
+        assertEquals(overrides(saved), overrides(loaded));
+        assertEquals(4, overrides(loaded).size());
+        for (int[] e : edits) assertEquals(saved.tileAt(e[0], e[1]), loaded.tileAt(e[0], e[1]), e[0] + "," + e[1]);
+        assertEquals(ToolType.PICKAXE, loaded.getInventory().getCraftingGrid().get(4).toolType);
+        assertEquals(ToolType.AXE, loaded.getInventory().getHeldItem().toolType);
+        WorldSnapshot a = WorldSnapshot.capture(saved, 32), b = WorldSnapshot.capture(loaded, 32);
+        int diff = a.firstDifference(b);
+        assertEquals(-1, diff, diff < 0 ? "" : WorldSnapshot.PARTS[diff] + " differs");
+
+        // Undoing a saved edit after the load takes it out of the log again
+        int[] e = edits[0];
+        loaded.setTile(e[0], e[1], loaded.getGenerator().tileAt(e[0], e[1]));
+        assertEquals(3, overrides(loaded).size());
+        store.close();
+        saved.dispose();
+        loaded.dispose();
+    }
+}